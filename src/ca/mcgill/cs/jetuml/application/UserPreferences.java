@@ -35,6 +35,11 @@ import ca.mcgill.cs.jetuml.JetUML;
  */
 public final class UserPreferences
 {
+	/* The default maximum number of operations that can be undone or redone in a diagram. */
+	private static final int DEFAULT_UNDO_HISTORY_LENGTH = 1000;
+	/* The default maximum number of diagram elements kept for undoing or redoing operations in a diagram. */
+	private static final int DEFAULT_UNDO_HISTORY_SIZE = 200000;
+	
 	/**
 	 * A boolean preference.
 	 */
@@ -61,7 +66,8 @@ public final class UserPreferences
 	 */
 	public enum IntegerPreference
 	{
-		diagramWidth(0), diagramHeight(0), nextTipId(1), fontSize(DEFAULT_FONT_SIZE);
+		diagramWidth(0), diagramHeight(0), nextTipId(1), fontSize(DEFAULT_FONT_SIZE),
+		undoHistoryLength(DEFAULT_UNDO_HISTORY_LENGTH), undoHistorySize(DEFAULT_UNDO_HISTORY_SIZE);
 		
 		private int aDefault;
 		
@@ -72,4 +72,11 @@ public abstract class AbstractDiagramElement implements DiagramElement
 	{
 		aProperties = new Properties();
 	}
+	
+	/**
+	 * Called by the setters of the properties of this element every time 
+	 * they assign a value. Does nothing by default.
+	 */
+	protected void propertyChanged()
+	{}
 }
@@ -71,9 +71,8 @@ public final class ControlFlow
 	public List<Node> getCallees(Node pNode)
 	{
 		assert pNode != null && aDiagram.contains(pNode);
-		return aDiagram.edges().stream()
+		return aDiagram.outgoingEdges(pNode).stream()
 				.filter(CallEdge.class::isInstance)
-				.filter(edge -> edge.getStart() == pNode)
 				.map(Edge::getEnd)
 				.collect(toList());
 	}
@@ -86,10 +85,9 @@ public final class ControlFlow
 	public List<CallEdge> getCalls(Node pCaller)
 	{
 		assert pCaller != null;
-		return aDiagram.edges().stream()
+		return aDiagram.outgoingEdges(pCaller).stream()
 				.filter(CallEdge.class::isInstance)
 				.map(CallEdge.class::cast)
-				.filter(edge -> edge.getStart() == pCaller)
 				.collect(toList());
 	}
 	
@@ -104,9 +102,8 @@ public final class ControlFlow
 	public Optional<CallNode> getCaller(Node pNode)
 	{
 		assert pNode != null && aDiagram.contains(pNode);
-		return aDiagram.edges().stream()
+		return aDiagram.incomingEdges(pNode).stream()
 			.filter(CallEdge.class::isInstance)
-			.filter(edge -> edge.getEnd() == pNode)
 			.map(Edge::getStart)
 			.map(CallNode.class::cast)
 			.findFirst();
@@ -213,9 +210,9 @@ public final class ControlFlow
 		{
 			return false;
 		}
-		for( Edge edge : aDiagram.edges() )
+		for( Edge edge : aDiagram.incomingEdges(pNode) )
 		{
-			if ( edge.getEnd() == pNode && edge.getClass() == ConstructorEdge.class )
+			if ( edge.getClass() == ConstructorEdge.class )
 			{
 				return true;
 			}
@@ -246,9 +243,9 @@ public final class ControlFlow
 		{
 			return Optional.empty();	
 		}
-		for( Edge edge : aDiagram.edges() )
+		for( Edge edge : aDiagram.incomingEdges(pNode) )
 		{
-			if ( edge.getEnd() == pNode && edge.getClass() == ConstructorEdge.class )
+			if ( edge.getClass() == ConstructorEdge.class )
 			{
 				return Optional.of(edge);
 			}
@@ -283,13 +280,7 @@ public final class ControlFlow
 				}
 				
 				// Add upstream edges of the child nodes
-				for( Edge edge: aDiagram.edges() )
-				{
-					if( edge.getEnd() == child )
-					{
-						downstreamElements.add(edge);
-					}
-				}
+				downstreamElements.addAll(aDiagram.incomingEdges(child));
 			}
 		}
 		else if( pEdge.getClass() == CallEdge.class )
@@ -455,9 +446,8 @@ public final class ControlFlow
 	
 	private Optional<Edge> getReturnEdge(Edge pEdge)
 	{
-		return aDiagram.edges().stream()
+		return aDiagram.outgoingEdges(pEdge.getEnd()).stream()
 			.filter(ReturnEdge.class::isInstance)
-			.filter(edge -> edge.getStart() == pEdge.getEnd())
 			.filter(edge -> edge.getEnd() == pEdge.getStart())
 			.findFirst();
 	}
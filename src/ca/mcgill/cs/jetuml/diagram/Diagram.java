@@ -23,10 +23,17 @@ package ca.mcgill.cs.jetuml.diagram;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.FieldNode;
+import ca.mcgill.cs.jetuml.geom.SpatialIndex;
 
 /**
  * Stores the logical structure of a diagram. This class is only concerned with 
@@ -35,9 +42,19 @@ import ca.mcgill.cs.jetuml.diagram.nodes.FieldNode;
  * of diagrams (handled by DiagramBuilder), or of computing the geometry of a diagram
  * (handled by DiagramView). DiagramData provides immutable access to the information
  * stored in the diagram.
+ * 
+ * To avoid scanning its elements, a diagram also maintains identity sets of its root
+ * nodes and edges, the edges incident to each node, and spatial indexes that it 
+ * invalidates and the viewers rebuild. Modification stamps, for the diagram and for 
+ * each tree of nodes, tell when derived information is stale, and registered observers
+ * are notified of each change. Observers are not copied when the diagram is duplicated.
  */
 public final class Diagram implements DiagramData
 {
+	/* Source of modification stamps, shared by all diagrams so that a stamp identifies
+	 * a single state of a single diagram. */
+	private static final AtomicLong MODIFICATION_STAMPS = new AtomicLong();
+	
 	/*
 	 * Only root nodes are explicitly tracked by a diagram object. Nodes that are children of their parent should be
 	 * managed and accessed through their parent node.
@@ -45,6 +62,21 @@ public final class Diagram implements DiagramData
 	private final ArrayList<Node> aRootNodes;
 	private final ArrayList<Edge> aEdges;
 	private final DiagramType aType;
+	private final SpatialIndex<Node> aNodeIndex = new SpatialIndex<>();
+	private final SpatialIndex<Edge> aEdgeIndex = new SpatialIndex<>();
+	private long aModificationStamp = MODIFICATION_STAMPS.incrementAndGet();
+	/* The modification stamp of the tree of nodes of each root node. */
+	private final Map<Node, Long> aTreeStamps = new IdentityHashMap<>();
+	private final Map<Node, Adjacency> aAdjacency = new IdentityHashMap<>();
+	/* False when the adjacency map must be recomputed from the list of edges before use. 
+	 * Appending and removing edges update the map directly. */
+	private boolean aAdjacencyValid = true;
+	private final List<DiagramChangeObserver> aChangeObservers = new ArrayList<>();
+	private final Set<Node> aRootNodeSet = Collections.newSetFromMap(new IdentityHashMap<>());
+	/* The keys are exactly the edges of the diagram. The values are their positions in aEdges 
+	 * only if aEdgePositionsValid is true. */
+	private final Map<Edge, Integer> aEdgePositions = new IdentityHashMap<>();
+	private boolean aEdgePositionsValid = true;
 
 	/**
 	 * Creates an empty diagram.
@@ -60,28 +92,35 @@ public final class Diagram implements DiagramData
 
 	/**
 	 * Creates a copy of the current diagram. The copy is a completely distinct graph of nodes and edges with the same
-	 * topology as this diagram.
+	 * topology as this diagram. The nodes are copied first, while recording the copy of each node, so that each
+	 * edge copy can then be connected to the copies of its end points directly. The copy thus takes a time linear 
+	 * in the size of the diagram.
 	 * 
 	 * @return A copy of this diagram. Never null.
 	 */
 	public Diagram duplicate()
 	{
 		Diagram copy = new Diagram(this.aType);
-		aEdges.forEach(edge -> copy.aEdges.add(edge.clone()));
-
+		Map<Node, Node> copies = new IdentityHashMap<>();
 		for( Node node : aRootNodes )
 		{
 			Node nodeCopy = node.clone();
 			copy.aRootNodes.add(nodeCopy);
-			reassignEdges(copy.aEdges, node, nodeCopy);
+			copy.aRootNodeSet.add(nodeCopy);
+			copy.aTreeStamps.put(nodeCopy, MODIFICATION_STAMPS.incrementAndGet());
+			mapCopies(node, nodeCopy, copies);
+			copy.attachNode(nodeCopy);
 		}
-
-		// Reassign diagram
-		copy.aEdges.forEach(edge -> edge.connect(edge.getStart(), edge.getEnd(), copy));
-		for( Node node : copy.aRootNodes )
+		for( Edge edge : aEdges )
 		{
-			copy.attachNode(node);
+			Edge edgeCopy = edge.clone();
+			// End points that are not in this diagram are shared with the copy, as they are not copied.
+			edgeCopy.connect(copies.getOrDefault(edge.getStart(), edge.getStart()), 
+					copies.getOrDefault(edge.getEnd(), edge.getEnd()), copy);
+			copy.aEdgePositions.put(edgeCopy, copy.aEdges.size());
+			copy.aEdges.add(edgeCopy);
 		}
+		copy.aAdjacencyValid = false;
 		return copy;
 	}
 
@@ -98,28 +137,171 @@ public final class Diagram implements DiagramData
 	}
 
 	/*
-	 * For node pOriginal, go through all edges that refer to it and replace it with pCopy in the edge. Do this
-	 * recursively for all children of pOriginal, assuming the same topology for pCopy.
+	 * Records pCopy as the copy of pOriginal in pCopies, and does the same recursively for
+	 * all the children of pOriginal, assuming the same topology for pCopy.
 	 */
-	private static void reassignEdges(List<Edge> pEdges, Node pOriginal, Node pCopy)
+	private static void mapCopies(Node pOriginal, Node pCopy, Map<Node, Node> pCopies)
 	{
-		for( Edge edge : pEdges )
-		{
-			if( edge.getStart() == pOriginal )
-			{
-				edge.connect(pCopy, edge.getEnd(), edge.getDiagram());
-			}
-			if( edge.getEnd() == pOriginal )
-			{
-				edge.connect(edge.getStart(), pCopy, edge.getDiagram());
-			}
-		}
+		pCopies.put(pOriginal, pCopy);
 		List<Node> oldChildren = pOriginal.getChildren();
 		List<Node> newChildren = pCopy.getChildren();
 		for( int i = 0; i < oldChildren.size(); i++ )
 		{
-			reassignEdges(pEdges, oldChildren.get(i), newChildren.get(i));
+			mapCopies(oldChildren.get(i), newChildren.get(i), pCopies);
+		}
+	}
+
+	/**
+	 * Records that an element of this diagram was added, removed, moved, or otherwise 
+	 * changed in a way that can affect the geometry of the diagram. This invalidates
+	 * the spatial indexes of the diagram.
+	 */
+	public void recordModification()
+	{
+		aModificationStamp = MODIFICATION_STAMPS.incrementAndGet();
+		aNodeIndex.invalidate();
+		aEdgeIndex.invalidate();
+	}
+	
+	/**
+	 * Records that pElement was moved, or that its properties or its children changed, 
+	 * and notifies the change observers.
+	 * 
+	 * @param pElement The element that changed.
+	 * @pre pElement != null
+	 */
+	public void recordModification(DiagramElement pElement)
+	{
+		assert pElement != null;
+		if( pElement instanceof Node )
+		{
+			aTreeStamps.replace(rootOf((Node) pElement), MODIFICATION_STAMPS.incrementAndGet());
+		}
+		aChangeObservers.forEach(observer -> observer.elementChanged(pElement));
+		recordModification();
+	}
+	
+	/**
+	 * Records that the end points of pEdge, which may be in this diagram, have changed. 
+	 * If pEdge is in this diagram, this invalidates the adjacency information of the diagram
+	 * in addition to its spatial indexes. Otherwise, for example for an edge being created, 
+	 * nothing needs to be recorded: the edge is indexed once it is added.
+	 * 
+	 * @param pEdge The edge that was reconnected.
+	 * @pre pEdge != null
+	 */
+	public void recordReconnection(Edge pEdge)
+	{
+		assert pEdge != null;
+		if( contains(pEdge) )
+		{
+			aAdjacencyValid = false;
+			recordModification(pEdge);
+		}
+	}
+	
+	/**
+	 * @param pObserver An observer to notify of the changes to this diagram.
+	 * @pre pObserver != null
+	 */
+	public void addChangeObserver(DiagramChangeObserver pObserver)
+	{
+		assert pObserver != null;
+		aChangeObservers.add(pObserver);
+	}
+	
+	/**
+	 * @param pObserver An observer that no longer needs to be notified.
+	 * @pre pObserver != null
+	 */
+	public void removeChangeObserver(DiagramChangeObserver pObserver)
+	{
+		assert pObserver != null;
+		aChangeObservers.remove(pObserver);
+	}
+	
+	private void rootNodesAdded(int[] pIndices, List<Node> pNodes)
+	{
+		pNodes.forEach(node -> aTreeStamps.put(node, MODIFICATION_STAMPS.incrementAndGet()));
+		aChangeObservers.forEach(observer -> observer.rootNodesAdded(pIndices, pNodes));
+		recordModification();
+	}
+	
+	private void rootNodesRemoved(Collection<Node> pNodes)
+	{
+		pNodes.forEach(aTreeStamps::remove);
+		aChangeObservers.forEach(observer -> observer.rootNodesRemoved(pNodes));
+		recordModification();
+	}
+	
+	private void edgesAdded(int[] pIndices, List<Edge> pEdges)
+	{
+		aChangeObservers.forEach(observer -> observer.edgesAdded(pIndices, pEdges));
+		recordModification();
+	}
+	
+	private void edgesRemoved(Collection<Edge> pEdges)
+	{
+		aChangeObservers.forEach(observer -> observer.edgesRemoved(pEdges));
+		recordModification();
+	}
+	
+	/*
+	 * The indices of pCount elements appended to a list of size pSize.
+	 */
+	private static int[] appendedIndices(int pSize, int pCount)
+	{
+		int[] indices = new int[pCount];
+		for( int i = 0; i < pCount; i++ )
+		{
+			indices[i] = pSize + i;
+		}
+		return indices;
+	}
+	
+	/**
+	 * @return A value that changes every time a modification is recorded for this diagram, 
+	 *     and that is never shared with another diagram. Clients can compare successive 
+	 *     values to determine whether the diagram has changed.
+	 */
+	public long getModificationStamp()
+	{
+		return aModificationStamp;
+	}
+	
+	/**
+	 * @param pNode A node.
+	 * @return A value that changes every time a modification is recorded for pNode or for 
+	 *     another node of the same tree of nodes, or when the tree is added to this diagram.
+	 *     Modifications to the other elements of the diagram do not change this value. 
+	 *     A different value is returned at every call if pNode is not in this diagram.
+	 * @pre pNode != null
+	 */
+	public long getModificationStamp(Node pNode)
+	{
+		assert pNode != null;
+		Long stamp = aTreeStamps.get(rootOf(pNode));
+		if( stamp == null )
+		{
+			return MODIFICATION_STAMPS.incrementAndGet();
 		}
+		return stamp;
+	}
+	
+	/**
+	 * @return The spatial index of the root nodes of this diagram. 
+	 */
+	public SpatialIndex<Node> getNodeIndex()
+	{
+		return aNodeIndex;
+	}
+	
+	/**
+	 * @return The spatial index of the edges of this diagram. 
+	 */
+	public SpatialIndex<Edge> getEdgeIndex()
+	{
+		return aEdgeIndex;
 	}
 
 	@Override
@@ -169,34 +351,26 @@ public final class Diagram implements DiagramData
 	public boolean contains(DiagramElement pElement)
 	{
 		assert pElement != null;
-		if( aEdges.contains(pElement) )
+		if( pElement instanceof Edge )
 		{
-			return true;
+			return aEdgePositions.containsKey(pElement);
 		}
-		for( Node node : aRootNodes )
+		if( !(pElement instanceof Node) )
 		{
-			if( containsNode(node, pElement) )
-			{
-				return true;
-			}
+			return false;
 		}
-		return false;
+		// Children can be added to a node at any time, so they are found through their ancestors.
+		return aRootNodeSet.contains(rootOf((Node) pElement));
 	}
-
-	private boolean containsNode(Node pTest, DiagramElement pTarget)
+	
+	private static Node rootOf(Node pNode)
 	{
-		if( pTest == pTarget )
+		Node root = pNode;
+		while( root.hasParent() )
 		{
-			return true;
+			root = root.getParent();
 		}
-		for( Node node : pTest.getChildren() )
-		{
-			if( containsNode(node, pTarget) )
-			{
-				return true;
-			}
-		}
-		return false;
+		return root;
 	}
 
 	/**
@@ -207,7 +381,7 @@ public final class Diagram implements DiagramData
 	public boolean containsAsRoot(Node pNode)
 	{
 		assert pNode != null;
-		return aRootNodes.contains(pNode);
+		return aRootNodeSet.contains(pNode);
 	}
 
 	/**
@@ -230,15 +404,119 @@ public final class Diagram implements DiagramData
 	public Iterable<Edge> edgesConnectedTo(Node pNode)
 	{
 		assert pNode != null && contains(pNode);
-		Collection<Edge> lReturn = new ArrayList<>();
-		for( Edge edge : aEdges )
+		return view(pNode, adjacency -> adjacency.aConnected);
+	}
+	
+	/**
+	 * @param pNode The node to test for.
+	 * @return The edges that start at pNode, in the order in which they appear in the diagram.
+	 * @pre pNode != null
+	 */
+	public List<Edge> outgoingEdges(Node pNode)
+	{
+		assert pNode != null;
+		return view(pNode, adjacency -> adjacency.aOutgoing);
+	}
+	
+	/**
+	 * @param pNode The node to test for.
+	 * @return The edges that end at pNode, in the order in which they appear in the diagram.
+	 * @pre pNode != null
+	 */
+	public List<Edge> incomingEdges(Node pNode)
+	{
+		assert pNode != null;
+		return view(pNode, adjacency -> adjacency.aIncoming);
+	}
+	
+	private List<Edge> view(Node pNode, Function<Adjacency, List<Edge>> pSelector)
+	{
+		return adjacencyOf(pNode)
+				.map(pSelector)
+				.map(Collections::unmodifiableList)
+				.orElse(Collections.emptyList());
+	}
+	
+	/*
+	 * Whether the adjacency map can be used without being recomputed. For testing.
+	 */
+	boolean isAdjacencyValid()
+	{
+		return aAdjacencyValid;
+	}
+	
+	private Optional<Adjacency> adjacencyOf(Node pNode)
+	{
+		if( !aAdjacencyValid )
+		{
+			aAdjacency.clear();
+			aEdges.forEach(this::indexEdge);
+			aAdjacencyValid = true;
+		}
+		return Optional.ofNullable(aAdjacency.get(pNode));
+	}
+	
+	/*
+	 * Appends pEdge to the adjacency lists of its end points. 
+	 */
+	private void indexEdge(Edge pEdge)
+	{
+		Adjacency start = aAdjacency.computeIfAbsent(pEdge.getStart(), node -> new Adjacency());
+		Adjacency end = aAdjacency.computeIfAbsent(pEdge.getEnd(), node -> new Adjacency());
+		start.aOutgoing.add(pEdge);
+		start.aConnected.add(pEdge);
+		end.aIncoming.add(pEdge);
+		if( end != start )
 		{
-			if( edge.getStart() == pNode || edge.getEnd() == pNode )
+			end.aConnected.add(pEdge);
+		}
+	}
+	
+	/*
+	 * Removes pEdge from the adjacency lists of its end points, and forgets
+	 * the end points that are no longer connected to any edge. 
+	 */
+	private void unindexEdge(Edge pEdge)
+	{
+		unindex(pEdge.getStart(), pEdge);
+		unindex(pEdge.getEnd(), pEdge);
+	}
+	
+	private void unindex(Node pNode, Edge pEdge)
+	{
+		Adjacency adjacency = aAdjacency.get(pNode);
+		if( adjacency == null )
+		{
+			return;
+		}
+		removeIdentical(adjacency.aOutgoing, pEdge);
+		removeIdentical(adjacency.aIncoming, pEdge);
+		removeIdentical(adjacency.aConnected, pEdge);
+		if( adjacency.aConnected.isEmpty() )
+		{
+			aAdjacency.remove(pNode);
+		}
+	}
+	
+	private static void removeIdentical(List<Edge> pEdges, Edge pEdge)
+	{
+		int index = indexOfIdentical(pEdges, pEdge);
+		if( index >= 0 )
+		{
+			pEdges.remove(index);
+		}
+	}
+	
+	private static int indexOfIdentical(List<Edge> pEdges, Edge pEdge)
+	{
+		for( int i = 0; i < pEdges.size(); i++ )
+		{
+			if( pEdges.get(i) == pEdge )
 			{
-				lReturn.add(edge);
+				return i;
 			}
 		}
-		return lReturn;
+		return -1;
 	}
 
 	/**
@@ -253,6 +531,8 @@ public final class Diagram implements DiagramData
 		assert pNode != null;
 		recursiveAttach(pNode);
 		aRootNodes.add(pNode);
+		aRootNodeSet.add(pNode);
+		rootNodesAdded(new int[] {aRootNodes.size() - 1}, List.of(pNode));
 	}
 
 	private void recursiveAttach(Node pNode)
@@ -276,9 +556,11 @@ public final class Diagram implements DiagramData
 	 */
 	public void removeRootNode(Node pNode)
 	{
-		assert pNode != null && aRootNodes.contains(pNode);
+		assert pNode != null && containsAsRoot(pNode);
 		recursiveDetach(pNode);
 		aRootNodes.remove(pNode);
+		aRootNodeSet.remove(pNode);
+		rootNodesRemoved(List.of(pNode));
 	}
 
 	/**
@@ -291,7 +573,13 @@ public final class Diagram implements DiagramData
 	public void addEdge(Edge pEdge)
 	{
 		assert pEdge != null && pEdge.getStart() != null && pEdge.getEnd() != null && pEdge.getDiagram() != null;
+		aEdgePositions.put(pEdge, aEdges.size());
 		aEdges.add(pEdge);
+		if( aAdjacencyValid )
+		{
+			indexEdge(pEdge);
+		}
+		edgesAdded(new int[] {aEdges.size() - 1}, List.of(pEdge));
 	}
 	
 	/**
@@ -304,7 +592,12 @@ public final class Diagram implements DiagramData
 	public void addEdge(int pIndex, Edge pEdge)
 	{
 		assert pEdge != null && pIndex >= 0 && pIndex <= aEdges.size();
+		aEdgePositionsValid = aEdgePositionsValid && pIndex == aEdges.size();
+		aEdgePositions.put(pEdge, pIndex);
 		aEdges.add(pIndex, pEdge);
+		// Inserting in the middle changes the relative order of edges, so the adjacency is recomputed lazily
+		aAdjacencyValid = false;
+		edgesAdded(new int[] {pIndex}, List.of(pEdge));
 	}
 
 
@@ -317,7 +610,11 @@ public final class Diagram implements DiagramData
 	public int indexOf(Edge pEdge)
 	{
 		assert contains(pEdge);
-		return aEdges.indexOf(pEdge);
+		if( !aEdgePositionsValid )
+		{
+			recomputeEdgePositions();
+		}
+		return aEdgePositions.get(pEdge);
 	}
 
 	/**
@@ -328,8 +625,169 @@ public final class Diagram implements DiagramData
 	 */
 	public void removeEdge(Edge pEdge)
 	{
-		assert pEdge != null && aEdges.contains(pEdge);
-		aEdges.remove(pEdge);
+		assert pEdge != null && contains(pEdge);
+		// A single removal does not need all the positions to be recomputed
+		int index = aEdgePositionsValid ? aEdgePositions.get(pEdge) : indexOfIdentical(aEdges, pEdge);
+		aEdges.remove(index);
+		aEdgePositions.remove(pEdge);
+		aEdgePositionsValid = aEdgePositionsValid && index == aEdges.size();
+		if( aAdjacencyValid )
+		{
+			unindexEdge(pEdge);
+		}
+		edgesRemoved(List.of(pEdge));
+	}
+	
+	/**
+	 * Adds all the nodes in pNodes as root nodes, in order, at the end of the list of root nodes.
+	 * The change observers are notified once. Callers of this method must ensure that the addition 
+	 * respects the integrity of the diagram.
+	 * 
+	 * @param pNodes The nodes to add.
+	 * @pre pNodes != null && !pNodes.contains(null)
+	 */
+	public void addRootNodes(List<Node> pNodes)
+	{
+		assert pNodes != null;
+		pNodes.forEach(this::recursiveAttach);
+		int[] indices = appendedIndices(aRootNodes.size(), pNodes.size());
+		aRootNodes.addAll(pNodes);
+		aRootNodeSet.addAll(pNodes);
+		rootNodesAdded(indices, pNodes);
+	}
+	
+	/**
+	 * Inserts each node in pNodes as a root node so that, once all the nodes are inserted, 
+	 * it is at the index stored at the same position in pIndices. This reverses removeRootNodes
+	 * for nodes that were at the indices pIndices. The change observers are notified once.
+	 * 
+	 * @param pIndices The indices of the nodes once inserted, in increasing order.
+	 * @param pNodes The nodes to insert.
+	 * @pre pIndices != null && pNodes != null && pIndices.length == pNodes.size()
+	 * @pre pIndices is strictly increasing and pIndices[i] < rootNodes().size() + pNodes.size()
+	 */
+	public void addRootNodes(int[] pIndices, List<Node> pNodes)
+	{
+		assert pIndices != null && pNodes != null && pIndices.length == pNodes.size();
+		pNodes.forEach(this::recursiveAttach);
+		insertAll(aRootNodes, pIndices, pNodes);
+		aRootNodeSet.addAll(pNodes);
+		rootNodesAdded(pIndices, pNodes);
+	}
+	
+	/**
+	 * Removes all the nodes in pNodes from the list of root nodes in this diagram, in a
+	 * single pass over the list. The change observers are notified once. Callers must ensure 
+	 * that the removal preserves the integrity of the diagram.
+	 * 
+	 * @param pNodes The nodes to remove.
+	 * @pre pNodes != null && all the nodes in pNodes are contained as root nodes.
+	 */
+	public void removeRootNodes(Collection<Node> pNodes)
+	{
+		assert pNodes != null && pNodes.stream().allMatch(this::containsAsRoot);
+		Set<Node> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+		for( Node node : pNodes )
+		{
+			recursiveDetach(node);
+			removed.add(node);
+			aRootNodeSet.remove(node);
+		}
+		aRootNodes.removeIf(removed::contains);
+		rootNodesRemoved(pNodes);
+	}
+	
+	/**
+	 * Adds all the edges in pEdges, in order, at the end of the list of edges. The edges should already 
+	 * be connected to their start and end nodes. The change observers are notified once.
+	 * 
+	 * @param pEdges The edges to add.
+	 * @pre pEdges != null && each edge in pEdges is connected and refers to a diagram
+	 */
+	public void addEdges(List<Edge> pEdges)
+	{
+		assert pEdges != null && pEdges.stream().allMatch(edge -> edge.getStart() != null && 
+				edge.getEnd() != null && edge.getDiagram() != null);
+		int[] indices = appendedIndices(aEdges.size(), pEdges.size());
+		for( Edge edge : pEdges )
+		{
+			aEdgePositions.put(edge, aEdges.size());
+			aEdges.add(edge);
+			if( aAdjacencyValid )
+			{
+				indexEdge(edge);
+			}
+		}
+		edgesAdded(indices, pEdges);
+	}
+	
+	/**
+	 * Inserts each edge in pEdges so that, once all the edges are inserted, it is at the index stored 
+	 * at the same position in pIndices. This reverses removeEdges for edges that were at the indices 
+	 * pIndices. The change observers are notified once.
+	 * 
+	 * @param pIndices The indices of the edges once inserted, in increasing order.
+	 * @param pEdges The edges to insert.
+	 * @pre pIndices != null && pEdges != null && pIndices.length == pEdges.size()
+	 * @pre pIndices is strictly increasing and pIndices[i] < edges().size() + pEdges.size()
+	 */
+	public void addEdges(int[] pIndices, List<Edge> pEdges)
+	{
+		assert pIndices != null && pEdges != null && pIndices.length == pEdges.size();
+		insertAll(aEdges, pIndices, pEdges);
+		recomputeEdgePositions();
+		aAdjacencyValid = false;
+		edgesAdded(pIndices, pEdges);
+	}
+	
+	/**
+	 * Removes all the edges in pEdges from this diagram, in a single pass over the list of
+	 * edges. The change observers are notified once. Callers must ensure that the removal 
+	 * preserves the integrity of the diagram.
+	 * 
+	 * @param pEdges The edges to remove.
+	 * @pre pEdges != null && all the edges in pEdges are contained in the diagram
+	 */
+	public void removeEdges(Collection<Edge> pEdges)
+	{
+		assert pEdges != null && pEdges.stream().allMatch(this::contains);
+		pEdges.forEach(aEdgePositions::remove);
+		aEdges.removeIf(edge -> !aEdgePositions.containsKey(edge));
+		recomputeEdgePositions();
+		// Unindexing each edge would scan the adjacency lists of its end points once per edge
+		aAdjacencyValid = false;
+		edgesRemoved(pEdges);
+	}
+	
+	private void recomputeEdgePositions()
+	{
+		for( int i = 0; i < aEdges.size(); i++ )
+		{
+			aEdgePositions.put(aEdges.get(i), i);
+		}
+		aEdgePositionsValid = true;
+	}
+	
+	/*
+	 * Inserts each element of pElements in pList at the index at the same position in 
+	 * pIndices, in a single pass over pList instead of shifting pList once per element.
+	 */
+	private static <T> void insertAll(ArrayList<T> pList, int[] pIndices, List<T> pElements)
+	{
+		List<T> existing = new ArrayList<>(pList);
+		pList.clear();
+		pList.ensureCapacity(existing.size() + pElements.size());
+		int next = 0;
+		for( int i = 0; i < pIndices.length; i++ )
+		{
+			while( pList.size() < pIndices[i] )
+			{
+				pList.add(existing.get(next));
+				next++;
+			}
+			pList.add(pElements.get(i));
+		}
+		pList.addAll(existing.subList(next, existing.size()));
 	}
 
 	/**
@@ -352,6 +810,7 @@ public final class Diagram implements DiagramData
 			Node parent = pNode.getParent();
 			// Move the child node to the top of all other children
 			parent.placeLast(pNode);
+			recordModification(parent);
 			// Recursively reorder the node's parent
 			placeOnTop(parent);
 		}
@@ -361,4 +820,15 @@ public final class Diagram implements DiagramData
 			addRootNode(pNode);
 		}
 	}
-}
\ No newline at end of file
+	
+	/*
+	 * The edges incident to a node. Edges that start and end at the same node 
+	 * are only listed once in aConnected.
+	 */
+	private static final class Adjacency
+	{
+		private final List<Edge> aOutgoing = new ArrayList<>();
+		private final List<Edge> aIncoming = new ArrayList<>();
+		private final List<Edge> aConnected = new ArrayList<>();
+	}
+}
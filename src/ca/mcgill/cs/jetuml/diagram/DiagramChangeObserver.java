@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.diagram;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An object that is notified of the changes made to a diagram, 
+ * element by element. See Diagram.addChangeObserver.
+ */
+public interface DiagramChangeObserver
+{
+	/**
+	 * Called when the position, a property, the children, or 
+	 * the end points of pElement have changed.
+	 * 
+	 * @param pElement The element that changed.
+	 */
+	void elementChanged(DiagramElement pElement);
+	
+	/**
+	 * Called when root nodes were added to the diagram. Inserting each node 
+	 * in pNodes at the index at the same position in pIndices, in order, 
+	 * reproduces the change to the list of root nodes.
+	 * 
+	 * @param pIndices The indices of the nodes once inserted, in increasing order.
+	 * @param pNodes The nodes that were added.
+	 */
+	void rootNodesAdded(int[] pIndices, List<Node> pNodes);
+	
+	/**
+	 * Called when root nodes were removed from the diagram.
+	 * 
+	 * @param pNodes The nodes that were removed.
+	 */
+	void rootNodesRemoved(Collection<Node> pNodes);
+	
+	/**
+	 * Called when edges were added to the diagram. Inserting each edge 
+	 * in pEdges at the index at the same position in pIndices, in order, 
+	 * reproduces the change to the list of edges.
+	 * 
+	 * @param pIndices The indices of the edges once inserted, in increasing order.
+	 * @param pEdges The edges that were added.
+	 */
+	void edgesAdded(int[] pIndices, List<Edge> pEdges);
+	
+	/**
+	 * Called when edges were removed from the diagram.
+	 * 
+	 * @param pEdges The edges that were removed.
+	 */
+	void edgesRemoved(Collection<Edge> pEdges);
+}
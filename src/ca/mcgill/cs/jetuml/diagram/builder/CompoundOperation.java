@@ -21,7 +21,6 @@
 package ca.mcgill.cs.jetuml.diagram.builder;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -32,6 +31,10 @@ import java.util.List;
  * in the order they were added. Undoing a compound operation
  * undoes all the sub-operation in the reverse order in which 
  * they were added.
+ * 
+ * A sub-operation can itself apply many changes at once, for example
+ * with the bulk mutation methods of Diagram, so that adding or removing
+ * many elements does not require one sub-operation per element.
  */
 public class CompoundOperation implements DiagramOperation
 {
@@ -60,12 +63,21 @@ public class CompoundOperation implements DiagramOperation
 	@Override
 	public void undo()
 	{
-		ArrayList<DiagramOperation> reverse = new ArrayList<>(aOperations);
-		Collections.reverse(reverse);
-		for( DiagramOperation operation : reverse)
+		for( int i = aOperations.size() - 1; i >= 0; i-- )
+		{
+			aOperations.get(i).undo();
+		}
+	}
+	
+	@Override
+	public int estimatedSize()
+	{
+		int size = 0;
+		for( DiagramOperation operation : aOperations )
 		{
-			operation.undo();
+			size += operation.estimatedSize();
 		}
+		return size;
 	}
 	
 	/**
@@ -28,6 +28,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -103,11 +104,16 @@ public abstract class DiagramBuilder
 	private static List<Node> getNodeAndAllChildren(Node pNode)
 	{
 		List<Node> result = new ArrayList<>();
-		result.add(pNode);
-		pNode.getChildren().forEach(node -> result.addAll(getNodeAndAllChildren(node)));
+		addNodeAndAllChildren(pNode, result);
 		return result;
 	}
 	
+	private static void addNodeAndAllChildren(Node pNode, List<Node> pResult)
+	{
+		pResult.add(pNode);
+		pNode.getChildren().forEach(node -> addNodeAndAllChildren(node, pResult));
+	}
+	
 	/**
 	 * Returns whether adding pEdge between pStart and pEnd
 	 * is a valid operation on the diagram. 
@@ -189,32 +195,40 @@ public abstract class DiagramBuilder
 	 */
 	public final DiagramOperation createAddElementsOperation(Iterable<DiagramElement> pElements)
 	{
-		CompoundOperation operation = new CompoundOperation();
+		List<Node> nodes = new ArrayList<>();
+		List<Edge> edges = new ArrayList<>();
 		for( DiagramElement element : pElements)
 		{
 			if( element instanceof Node )
 			{
-				operation.add(new SimpleOperation(
-						()-> aDiagram.addRootNode((Node)element),
-						()-> aDiagram.removeRootNode((Node)element)));
+				nodes.add((Node)element);
 			}
 			else if( element instanceof Edge)
 			{
-				/* We need to re-connect the edge to set the correct value for the
-				 * reference to the diagram, to cover the cases where elements might 
-				 * be added by being copied from one diagram and pasted into another.
-				 */
-				operation.add(new SimpleOperation(
-						()-> 
-						{ 
-							Edge edge = (Edge) element;
-							aDiagram.addEdge(edge); 
-							edge.connect(edge.getStart(), edge.getEnd(), aDiagram);	
-						},
-						()-> aDiagram.removeEdge((Edge)element)));
+				edges.add((Edge)element);
 			}
 		}
-		
+		CompoundOperation operation = new CompoundOperation();
+		if( !nodes.isEmpty() )
+		{
+			operation.add(new SimpleOperation(
+					()-> aDiagram.addRootNodes(nodes),
+					()-> aDiagram.removeRootNodes(nodes), nodes.size()));
+		}
+		if( !edges.isEmpty() )
+		{
+			/* We need to re-connect the edges to set the correct value for the
+			 * reference to the diagram, to cover the cases where elements might 
+			 * be added by being copied from one diagram and pasted into another.
+			 */
+			operation.add(new SimpleOperation(
+					()-> 
+					{ 
+						edges.forEach(edge -> edge.connect(edge.getStart(), edge.getEnd(), aDiagram));
+						aDiagram.addEdges(edges); 
+					},
+					()-> aDiagram.removeEdges(edges), edges.size()));
+		}
 		return operation;
 	}
 	
@@ -252,22 +266,36 @@ public abstract class DiagramBuilder
 		}
 		if( pElement instanceof Node )
 		{
-			List<Node> descendants = getNodeAndAllChildren((Node)pElement);
-			for(Edge edge : aDiagram.edges())
+			result.addAll(getEdgesConnectedToAll(getNodeAndAllChildren((Node)pElement)));
+		}
+		return result;
+	}
+	
+	/*
+	 * Returns the edges connected to any node in pNodes, once each and in the order
+	 * in which they appear in the diagram. Only the edges connected to the nodes
+	 * are visited, instead of all the edges of the diagram.
+	 */
+	private List<Edge> getEdgesConnectedToAll(List<Node> pNodes)
+	{
+		Set<Edge> edges = Collections.newSetFromMap(new IdentityHashMap<>());
+		for( Node node : pNodes )
+		{
+			for( Edge edge : aDiagram.edgesConnectedTo(node) )
 			{
-				if(descendants.contains(edge.getStart() ) || descendants.contains(edge.getEnd()))
-				{
-					result.add(edge);
-				}
+				edges.add(edge);
 			}
 		}
+		List<Edge> result = new ArrayList<>(edges);
+		result.sort(Comparator.comparingInt(aDiagram::indexOf));
 		return result;
 	}
 	
 	/*
-	 * Organize the elements to delete so that they can be reinserted properly
+	 * Organize the child nodes to delete so that they can be reinserted properly. 
+	 * Root nodes and edges are removed and reinserted in bulk.
 	 */
-	private List<DiagramElement> tweakOrder(Set<DiagramElement> pElements)
+	private List<Node> tweakOrder(Set<DiagramElement> pElements)
 	{
 		List<DiagramElement> result = new ArrayList<>();
 		Map<ObjectNode, List<FieldNode>> fields = new HashMap<>();
@@ -304,25 +332,19 @@ public abstract class DiagramBuilder
 				result.add(node);
 			}
 		}
-		ArrayList<DiagramElement> result2 = new ArrayList<>();
-		ArrayList<Edge> edges = new ArrayList<>();
 		ArrayList<Node> nodes = new ArrayList<>();
 		for( DiagramElement element : result )
 		{
-			if( element instanceof Edge )
-			{
-				edges.add((Edge)element);
-			}
-			else if( element instanceof Node && ((Node)element).hasParent() )
+			if( element instanceof Node && ((Node)element).hasParent() )
 			{
 				nodes.add((Node)element);
 			}
-			else
-			{
-				result2.add(element);
-			}
 		}
-		Collections.sort(edges, (pEdge1, pEdge2) -> aDiagram.indexOf(pEdge2) - aDiagram.indexOf(pEdge1));
+		Map<Node, Integer> rootIndices = new IdentityHashMap<>();
+		for( int i = 0; i < aDiagram.rootNodes().size(); i++ )
+		{
+			rootIndices.put(aDiagram.rootNodes().get(i), i);
+		}
 		Collections.sort(nodes, new Comparator<Node>() 
 		{
 			@Override
@@ -336,13 +358,30 @@ public abstract class DiagramBuilder
 				}
 				else 
 				{
-					return aDiagram.rootNodes().indexOf(parent2) - aDiagram.rootNodes().indexOf(parent1);
+					return rootIndices.getOrDefault(parent2, -1) - rootIndices.getOrDefault(parent1, -1);
 				}
 			}
 		});
-		result2.addAll(edges);
-		result2.addAll(nodes);
-		return result2;
+		return nodes;
+	}
+	
+	/*
+	 * Adds to pSelectedInOrder the elements of pAll that are in pSelected, in the order 
+	 * in which they appear in pAll, and returns their indices in pAll. 
+	 */
+	private static <T extends DiagramElement> int[] selectInOrder(List<T> pAll, Set<DiagramElement> pSelected, 
+			List<T> pSelectedInOrder)
+	{
+		List<Integer> indices = new ArrayList<>();
+		for( int i = 0; i < pAll.size(); i++ )
+		{
+			if( pSelected.contains(pAll.get(i)) )
+			{
+				pSelectedInOrder.add(pAll.get(i));
+				indices.add(i);
+			}
+		}
+		return indices.stream().mapToInt(Integer::intValue).toArray();
 	}
 	
 	/**
@@ -362,30 +401,27 @@ public abstract class DiagramBuilder
 		}
 		CompoundOperation result = new CompoundOperation();
 		
-		for( DiagramElement element : tweakOrder(toDelete))
+		List<Node> rootNodes = new ArrayList<>();
+		int[] rootNodeIndices = selectInOrder(aDiagram.rootNodes(), toDelete, rootNodes);
+		if( !rootNodes.isEmpty() )
 		{
-			if( element instanceof Edge )
-			{
-				int index = aDiagram.indexOf((Edge)element);
-				result.add(new SimpleOperation(
-						()-> aDiagram.removeEdge((Edge)element),
-						()-> aDiagram.addEdge(index, (Edge)element)));
-			}
-			else if( element instanceof Node )
-			{
-				if(((Node) element).hasParent())
-				{
-					result.add(new SimpleOperation(
-						createDetachOperation((Node)element),
-						createReinsertOperation((Node)element)));
-				}
-				else
-				{
-					result.add(new SimpleOperation(
-						()-> aDiagram.removeRootNode((Node)element),
-						()-> aDiagram.addRootNode((Node)element)));
-				}
-			}
+			result.add(new SimpleOperation(
+					()-> aDiagram.removeRootNodes(rootNodes),
+					()-> aDiagram.addRootNodes(rootNodeIndices, rootNodes), rootNodes.size()));
+		}
+		List<Edge> edges = new ArrayList<>();
+		int[] edgeIndices = selectInOrder(aDiagram.edges(), toDelete, edges);
+		if( !edges.isEmpty() )
+		{
+			result.add(new SimpleOperation(
+					()-> aDiagram.removeEdges(edges),
+					()-> aDiagram.addEdges(edgeIndices, edges), edges.size()));
+		}
+		for( Node node : tweakOrder(toDelete))
+		{
+			result.add(new SimpleOperation(
+				createDetachOperation(node),
+				createReinsertOperation(node)));
 		}
 		return result;
 	}
@@ -36,4 +36,14 @@ public interface DiagramOperation
 	 * Undoes the operation.
 	 */
 	void undo();
+	
+	/**
+	 * @return An estimate of the number of diagram elements that this operation 
+	 *     keeps reachable, used to bound the memory taken by the history of 
+	 *     operations. By default, one element.
+	 */
+	default int estimatedSize()
+	{
+		return 1;
+	}
 }
@@ -21,20 +21,84 @@
 
 package ca.mcgill.cs.jetuml.diagram.builder;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Optional;
+import java.util.Set;
+
+import ca.mcgill.cs.jetuml.diagram.Node;
 
 /**
  * Responsible for executing and undoing operations, and managing the collection 
  * of previously executed and undone operations. Can also compute whether a 
  * diagram has unsaved modifications.
+ * 
+ * An optional handler can be notified every time an operation is executed, 
+ * stored, undone, or redone, for example to record the changes to the diagram.
+ * 
+ * The history of operations can be bounded by a number of operations and by the 
+ * total estimated size of the operations, because each operation keeps the elements 
+ * it changes reachable. Once the history exceeds either bound, the oldest executed 
+ * operations, then the undone operations furthest from the current state, are 
+ * forgotten. The most recent operation is always kept.
  */
 public class DiagramOperationProcessor
 {
-	private final List<DiagramOperation> aExecutedOperations = new ArrayList<>();
-	private final List<DiagramOperation> aUndoneOperations = new ArrayList<>();
+	/* Stands for the unknown operations that led to a diagram that was modified 
+	 * without this processor, so that the diagram is reported as unsaved. */
+	private static final DiagramOperation UNKNOWN_OPERATION = new SimpleOperation(() -> {}, () -> {});
+	
+	private final Deque<DiagramOperation> aExecutedOperations = new ArrayDeque<>();
+	private final Deque<DiagramOperation> aUndoneOperations = new ArrayDeque<>();
+	/* The last executed operation that was forgotten. It identifies the state of the 
+	 * diagram once all the remaining executed operations are undone. */
+	private Optional<DiagramOperation> aForgottenOperation = Optional.empty();
 	private Optional<DiagramOperation> aLastSavedOperation = Optional.empty();
+	private Runnable aOperationHandler = () -> {};
+	private final int aMaxOperations;
+	private final int aMaxSize;
+	private int aSize = 0;
+	/* The last move stored with storeAlreadyExecutedMove, and the nodes it moved. */
+	private Optional<DiagramOperation> aLastMove = Optional.empty();
+	private Set<Node> aLastMovedNodes = Collections.emptySet();
+	
+	/**
+	 * Creates a processor with an unbounded history.
+	 */
+	public DiagramOperationProcessor()
+	{
+		this(Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Creates a processor whose history holds at most pMaxOperations operations,
+	 * of a total estimated size of at most pMaxSize, except for the most recent 
+	 * operation which is always kept.
+	 * 
+	 * @param pMaxOperations The maximum number of executed and undone operations.
+	 * @param pMaxSize The maximum total estimated size of the executed and undone operations.
+	 * @pre pMaxOperations > 0 && pMaxSize >= 0
+	 */
+	public DiagramOperationProcessor(int pMaxOperations, int pMaxSize)
+	{
+		assert pMaxOperations > 0 && pMaxSize >= 0;
+		aMaxOperations = pMaxOperations;
+		aMaxSize = pMaxSize;
+	}
+	
+	/**
+	 * @param pHandler Called after every operation executed, stored, undone, or redone 
+	 *     by this processor. Replaces the previous handler.
+	 * @pre pHandler != null
+	 */
+	public void setOperationHandler(Runnable pHandler)
+	{
+		assert pHandler != null;
+		aOperationHandler = pHandler;
+	}
 	
 	/**
 	 * Executes pOperation and adds it to the list of executed
@@ -47,7 +111,8 @@ public class DiagramOperationProcessor
 	{
 		assert pOperation != null;
 		pOperation.execute();
-		aExecutedOperations.add(pOperation);
+		pushExecuted(pOperation);
+		aOperationHandler.run();
 	}
 	
 	/**
@@ -55,26 +120,22 @@ public class DiagramOperationProcessor
 	 */
 	public boolean hasUnsavedOperations()
 	{
-		if( aLastSavedOperation.isPresent() )
-		{
-			if( aExecutedOperations.isEmpty() )
-			{
-				return true;
-			}
-			else
-			{
-				return aLastSavedOperation.get() != peek();
-			}
-		}
-		else
-		{
-			return !aExecutedOperations.isEmpty();
-		}
+		return lastExecutedOperation().orElse(null) != aLastSavedOperation.orElse(null);
 	}
 	
-	private DiagramOperation peek()
+	/**
+	 * @return The last executed operation, which identifies the current state
+	 *     of the diagram, or empty if no operation was executed. If all the 
+	 *     executed operations that are still in the history were undone, the 
+	 *     last operation that was forgotten.
+	 */
+	public Optional<DiagramOperation> lastExecutedOperation()
 	{
-		return aExecutedOperations.get(aExecutedOperations.size()-1);
+		if( aExecutedOperations.isEmpty() )
+		{
+			return aForgottenOperation;
+		}
+		return Optional.of(aExecutedOperations.peekLast());
 	}
 	
 	/**
@@ -82,11 +143,34 @@ public class DiagramOperationProcessor
 	 */
 	public void diagramSaved()
 	{
-		aLastSavedOperation = Optional.empty();
-		if( aExecutedOperations.size() > 0 )
-		{
-			aLastSavedOperation = Optional.of(peek());
-		}
+		diagramSaved(lastExecutedOperation());
+	}
+	
+	/**
+	 * Indicates that the diagram managed by this processor has been saved
+	 * in the state it had when pLastExecutedOperation was the last executed 
+	 * operation. Operations executed while the diagram was being saved 
+	 * remain unsaved.
+	 * 
+	 * @param pLastExecutedOperation The value of lastExecutedOperation() when 
+	 *     the diagram was saved.
+	 * @pre pLastExecutedOperation != null
+	 */
+	public void diagramSaved(Optional<DiagramOperation> pLastExecutedOperation)
+	{
+		assert pLastExecutedOperation != null;
+		aLastSavedOperation = pLastExecutedOperation;
+	}
+	
+	/**
+	 * Indicates that the diagram managed by this processor differs from its saved
+	 * version even though this processor did not execute any operation, for example 
+	 * because it was recovered after a crash. The diagram has unsaved operations
+	 * until it is saved again.
+	 */
+	public void diagramModified()
+	{
+		aLastSavedOperation = Optional.of(UNKNOWN_OPERATION);
 	}
 	
 	/**
@@ -99,7 +183,80 @@ public class DiagramOperationProcessor
 	public void storeAlreadyExecutedOperation(DiagramOperation pOperation)
 	{
 		assert pOperation != null;
-		aExecutedOperations.add(pOperation);
+		pushExecuted(pOperation);
+		aOperationHandler.run();
+	}
+	
+	/**
+	 * Adds pOperation, which moved pNodes and was already executed, to the list of 
+	 * executed operations. If the last executed operation is a move of the same nodes 
+	 * stored with this method, the two moves are replaced by a single operation, so 
+	 * that a sequence of moves of the same selection takes a single place in the 
+	 * history and is undone at once. A move that was saved is not merged, so that the 
+	 * saved state can still be reached by undoing.
+	 * 
+	 * @param pOperation The move to store.
+	 * @param pNodes The nodes moved by pOperation.
+	 * @pre pOperation != null && pNodes != null
+	 */
+	public void storeAlreadyExecutedMove(DiagramOperation pOperation, Collection<Node> pNodes)
+	{
+		assert pOperation != null && pNodes != null;
+		Set<Node> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		nodes.addAll(pNodes);
+		DiagramOperation last = aExecutedOperations.peekLast();
+		if( last != null && last == aLastMove.orElse(null) && last != aLastSavedOperation.orElse(null) && 
+				nodes.equals(aLastMovedNodes) )
+		{
+			aExecutedOperations.removeLast();
+			aSize -= last.estimatedSize();
+			CompoundOperation merged = new CompoundOperation();
+			merged.add(last);
+			merged.add(pOperation);
+			pushExecuted(merged);
+			aLastMove = Optional.of(merged);
+		}
+		else
+		{
+			pushExecuted(pOperation);
+			aLastMove = Optional.of(pOperation);
+		}
+		aLastMovedNodes = nodes;
+		aOperationHandler.run();
+	}
+	
+	private void pushExecuted(DiagramOperation pOperation)
+	{
+		aExecutedOperations.addLast(pOperation);
+		aSize += pOperation.estimatedSize();
+		forgetOldOperations();
+	}
+	
+	/*
+	 * Forgets the oldest executed operations, then the undone operations furthest 
+	 * from the current state, until the history fits its bounds.
+	 */
+	private void forgetOldOperations()
+	{
+		while( numberOfOperations() > 1 && (numberOfOperations() > aMaxOperations || aSize > aMaxSize) )
+		{
+			DiagramOperation forgotten;
+			if( aExecutedOperations.size() > 1 || aUndoneOperations.isEmpty() )
+			{
+				forgotten = aExecutedOperations.removeFirst();
+				aForgottenOperation = Optional.of(forgotten);
+			}
+			else
+			{
+				forgotten = aUndoneOperations.removeFirst();
+			}
+			aSize -= forgotten.estimatedSize();
+		}
+	}
+	
+	private int numberOfOperations()
+	{
+		return aExecutedOperations.size() + aUndoneOperations.size();
 	}
 	
 	/**
@@ -110,9 +267,10 @@ public class DiagramOperationProcessor
 	public void undoLastExecutedOperation()
 	{
 		assert canUndo();
-		DiagramOperation operation = aExecutedOperations.remove(aExecutedOperations.size() - 1);
+		DiagramOperation operation = aExecutedOperations.removeLast();
 		operation.undo();
-		aUndoneOperations.add(operation);
+		aUndoneOperations.addLast(operation);
+		aOperationHandler.run();
 	}
 	
 	/**
@@ -123,9 +281,10 @@ public class DiagramOperationProcessor
 	public void redoLastUndoneOperation()
 	{
 		assert canRedo();
-		DiagramOperation operation = aUndoneOperations.remove(aUndoneOperations.size() - 1);
+		DiagramOperation operation = aUndoneOperations.removeLast();
 		operation.execute();
-		aExecutedOperations.add(operation);
+		aExecutedOperations.addLast(operation);
+		aOperationHandler.run();
 	}
 
 	/**
@@ -30,9 +30,10 @@ public class SimpleOperation implements DiagramOperation
 {
 	private final Runnable aOperation;
 	private final Runnable aReverse;
+	private final int aEstimatedSize;
 	
 	/**
-	 * Creates an operation.
+	 * Creates an operation on a single element.
 	 * 
 	 * @param pOperation The code to run when the operation is executed.
 	 * @param pReverse The code to run when the operation is undone.
@@ -41,9 +42,25 @@ public class SimpleOperation implements DiagramOperation
 	 */
 	public SimpleOperation(Runnable pOperation, Runnable pReverse)
 	{
-		assert pOperation != null && pReverse != null;
+		this(pOperation, pReverse, 1);
+	}
+	
+	/**
+	 * Creates an operation on pEstimatedSize elements.
+	 * 
+	 * @param pOperation The code to run when the operation is executed.
+	 * @param pReverse The code to run when the operation is undone.
+	 * @param pEstimatedSize The number of elements that the operation keeps reachable.
+	 * @pre pOperation != null
+	 * @pre pReverse != null
+	 * @pre pEstimatedSize >= 0
+	 */
+	public SimpleOperation(Runnable pOperation, Runnable pReverse, int pEstimatedSize)
+	{
+		assert pOperation != null && pReverse != null && pEstimatedSize >= 0;
 		aOperation = pOperation;
 		aReverse = pReverse;
+		aEstimatedSize = pEstimatedSize;
 	}
 
 	@Override
@@ -57,4 +74,10 @@ public class SimpleOperation implements DiagramOperation
 	{
 		aReverse.run();
 	}
+	
+	@Override
+	public int estimatedSize()
+	{
+		return aEstimatedSize;
+	}
 }
@@ -38,9 +38,26 @@ public abstract class AbstractEdge extends AbstractDiagramElement implements Edg
 	public void connect(Node pStart, Node pEnd, Diagram pDiagram)
 	{
 		assert pStart != null && pEnd != null;
+		boolean reconnected = aStart != pStart || aEnd != pEnd;
 		aStart = pStart;
 		aEnd = pEnd;
 		aDiagram = pDiagram;
+		if( reconnected && pDiagram != null )
+		{
+			pDiagram.recordReconnection(this);
+		}
+	}
+
+	/*
+	 * The value of a property can change the geometry of the edge.
+	 */
+	@Override
+	protected void propertyChanged()
+	{
+		if( aDiagram != null )
+		{
+			aDiagram.recordModification(this);
+		}
 	}
 
 	@Override
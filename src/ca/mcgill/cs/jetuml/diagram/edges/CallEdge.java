@@ -43,7 +43,7 @@ public class CallEdge extends SingleLabelEdge
 	protected void buildProperties()
 	{
 		super.buildProperties();
-		properties().add(PropertyName.SIGNAL, () -> aSignal, pSignal -> aSignal = (boolean) pSignal);
+		properties().add(PropertyName.SIGNAL, () -> aSignal, pSignal -> setSignal((boolean) pSignal));
 	}
 	
 	/**
@@ -59,7 +59,8 @@ public class CallEdge extends SingleLabelEdge
      */      
 	public void setSignal(boolean pNewValue) 
 	{ 
-		aSignal = pNewValue; 
+		aSignal = pNewValue;
+		propertyChanged();
 	}
 	
 	/**
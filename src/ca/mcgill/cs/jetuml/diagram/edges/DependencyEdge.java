@@ -47,6 +47,7 @@ public final class DependencyEdge extends SingleLabelEdge
 	{
 		assert pDirectionality != null;
 		aDirectionality = pDirectionality;
+		propertyChanged();
 	}
 
 	/**
@@ -62,6 +63,6 @@ public final class DependencyEdge extends SingleLabelEdge
 	{
 		super.buildProperties();
 		properties().add(PropertyName.DIRECTIONALITY, () -> aDirectionality,
-				directionality -> aDirectionality = Directionality.valueOf((String) directionality));
+				directionality -> setDirectionality(Directionality.valueOf((String) directionality)));
 	}
 }
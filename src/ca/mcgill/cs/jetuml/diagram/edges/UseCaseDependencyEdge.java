@@ -69,10 +69,20 @@ public final class UseCaseDependencyEdge extends AbstractEdge
 		return aType;
 	}
 	
+	/**
+	 * Sets the type of dependency.
+	 * @param pType The desired type of dependency.
+	 */
+	public void setType(Type pType)
+	{
+		aType = pType;
+		propertyChanged();
+	}
+	
 	@Override
 	protected void buildProperties()
 	{
 		super.buildProperties();
-		properties().add(PropertyName.USE_CASE_DEPENDENCY_TYPE, () -> aType, pType -> aType = Type.valueOf((String)pType));
+		properties().add(PropertyName.USE_CASE_DEPENDENCY_TYPE, () -> aType, pType -> setType(Type.valueOf((String)pType)));
 	}
 }
@@ -42,6 +42,7 @@ public abstract class AbstractNode extends AbstractDiagramElement implements Nod
 	public void translate(int pDeltaX, int pDeltaY)
 	{
 		aPosition = new Point( aPosition.getX() + pDeltaX, aPosition.getY() + pDeltaY );
+		recordModification();
 	}
 	
 	@Override
@@ -54,6 +55,7 @@ public abstract class AbstractNode extends AbstractDiagramElement implements Nod
 	public final void moveTo(Point pPoint)
 	{
 		aPosition = pPoint;
+		recordModification();
 	}
 
 	@Override
@@ -64,6 +66,24 @@ public abstract class AbstractNode extends AbstractDiagramElement implements Nod
 		return clone;
 	}
 	
+	/*
+	 * The value of a property can change the geometry of the node.
+	 */
+	@Override
+	protected void propertyChanged()
+	{
+		recordModification();
+	}
+	
+	/**
+	 * Records, in the diagram this node belongs to if any, a change 
+	 * that can affect the geometry of this node.
+	 */
+	protected final void recordModification()
+	{
+		aDiagram.ifPresent(diagram -> diagram.recordModification(this));
+	}
+	
 	@Override
 	public final String toString()
 	{
@@ -75,11 +95,13 @@ public abstract class AbstractNode extends AbstractDiagramElement implements Nod
 	{
 		assert pDiagram != null;
 		aDiagram = Optional.of(pDiagram);
+		pDiagram.recordModification();
 	}
 
 	@Override
 	public final void detach()
 	{
+		aDiagram.ifPresent(Diagram::recordModification);
 		aDiagram = Optional.empty();
 	}
 
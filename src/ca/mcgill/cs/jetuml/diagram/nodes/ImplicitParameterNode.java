@@ -75,6 +75,7 @@ public final class ImplicitParameterNode extends NamedNode
 		}
 		aCallNodes.add(pNode);
 		pNode.link(this);
+		recordModification();
 	}
 
 	@Override
@@ -84,6 +85,7 @@ public final class ImplicitParameterNode extends NamedNode
 		assert pNode.getParent() == this;
 		aCallNodes.remove(pNode);
 		pNode.unlink();
+		recordModification();
 	}
 	
 	@Override
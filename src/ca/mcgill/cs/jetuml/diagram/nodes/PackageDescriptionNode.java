@@ -39,6 +39,7 @@ public final class PackageDescriptionNode extends AbstractPackageNode
 	{
 		assert pContents != null;
 		aContents = pContents;
+		propertyChanged();
 	}
 	
 	/**
@@ -60,6 +61,6 @@ public final class PackageDescriptionNode extends AbstractPackageNode
 	protected void buildProperties()
 	{
 		super.buildProperties();
-		properties().add(PropertyName.CONTENTS, () -> aContents, pContents -> aContents = (String)pContents);
+		properties().add(PropertyName.CONTENTS, () -> aContents, pContents -> setContents((String)pContents));
 	}
 }
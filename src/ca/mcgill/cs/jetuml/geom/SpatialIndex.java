@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.geom;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * A uniform grid that indexes elements by their bounding rectangle, 
+ * so that the elements whose bounds contain a point, or intersect an
+ * area, can be found without visiting every element. The index is built in one pass
+ * and must be rebuilt, after being invalidated, whenever the bounds 
+ * of the indexed elements change, unless the elements whose bounds changed are
+ * known, in which case only these elements can be updated. Queries return 
+ * elements in the order in which they were supplied to the index.
+ *
+ * @param <T> The type of the indexed elements.
+ */
+public class SpatialIndex<T>
+{
+	private static final int CELL_SIZE = 128;
+	
+	private final Map<Long, List<Entry<T>>> aCells = new HashMap<>();
+	private final Map<T, Entry<T>> aEntries = new IdentityHashMap<>();
+	private boolean aIsValid = false;
+	
+	/**
+	 * @return True if the index was built and was not invalidated since.
+	 */
+	public boolean isValid()
+	{
+		return aIsValid;
+	}
+	
+	/**
+	 * Marks the index as out of date. Its content is kept until the 
+	 * index is rebuilt, so that it can be brought up to date with update.
+	 */
+	public void invalidate()
+	{
+		aIsValid = false;
+	}
+	
+	/**
+	 * Replaces the content of the index with pElements.
+	 * 
+	 * @param pElements The elements to index, in the order in which they should be returned.
+	 * @param pBounds A function that returns the area covered by an element.
+	 * @pre pElements != null && pBounds != null
+	 */
+	public void build(Collection<? extends T> pElements, Function<? super T, Rectangle> pBounds)
+	{
+		assert pElements != null && pBounds != null;
+		aCells.clear();
+		aEntries.clear();
+		int order = 0;
+		for( T element : pElements )
+		{
+			Entry<T> entry = new Entry<>(element, pBounds.apply(element), order);
+			order++;
+			aEntries.put(element, entry);
+			forEachCell(entry.aBounds, key -> aCells.computeIfAbsent(key, newKey -> new ArrayList<>()).add(entry));
+		}
+		aIsValid = true;
+	}
+	
+	/**
+	 * Moves each element in pElements to its current bounds, without changing the 
+	 * order in which the elements are returned, and marks the index as valid. 
+	 * This is only correct if the bounds of the other indexed elements did not change 
+	 * since the index was last valid.
+	 * 
+	 * @param pElements The elements whose bounds changed.
+	 * @param pBounds A function that returns the area covered by an element.
+	 * @pre pElements != null && pBounds != null
+	 * @pre all the elements in pElements are indexed.
+	 */
+	public void update(Collection<? extends T> pElements, Function<? super T, Rectangle> pBounds)
+	{
+		assert pElements != null && pBounds != null;
+		for( T element : pElements )
+		{
+			assert aEntries.containsKey(element);
+			Entry<T> previous = aEntries.get(element);
+			forEachCell(previous.aBounds, key -> 
+			{
+				List<Entry<T>> cell = aCells.get(key);
+				cell.remove(previous);
+				if( cell.isEmpty() )
+				{
+					aCells.remove(key);
+				}
+			});
+			Entry<T> entry = new Entry<>(element, pBounds.apply(element), previous.aOrder);
+			aEntries.put(element, entry);
+			forEachCell(entry.aBounds, key -> insert(aCells.computeIfAbsent(key, newKey -> new ArrayList<>()), entry));
+		}
+		aIsValid = true;
+	}
+	
+	private static void forEachCell(Rectangle pBounds, LongConsumer pAction)
+	{
+		for( int column = cellOf(pBounds.getX()); column <= cellOf(pBounds.getMaxX()); column++ )
+		{
+			for( int row = cellOf(pBounds.getY()); row <= cellOf(pBounds.getMaxY()); row++ )
+			{
+				pAction.accept(key(column, row));
+			}
+		}
+	}
+	
+	/*
+	 * Inserts pEntry in pCell so that the entries of the cell remain in increasing order.
+	 */
+	private static <T> void insert(List<Entry<T>> pCell, Entry<T> pEntry)
+	{
+		int low = 0;
+		int high = pCell.size();
+		while( low < high )
+		{
+			int middle = (low + high) >>> 1;
+			if( pCell.get(middle).aOrder < pEntry.aOrder )
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		pCell.add(low, pEntry);
+	}
+	
+	/**
+	 * Returns the elements whose bounds contain pPoint, in the 
+	 * order in which they were indexed.
+	 * 
+	 * @param pPoint The point to query.
+	 * @return The elements whose bounds contain pPoint. 
+	 * @pre pPoint != null && isValid()
+	 */
+	public List<T> elementsAt(Point pPoint)
+	{
+		assert pPoint != null && isValid();
+		List<T> result = new ArrayList<>();
+		// Entries in a cell are stored in increasing order.
+		for( Entry<T> entry : aCells.getOrDefault(key(cellOf(pPoint.getX()), cellOf(pPoint.getY())), List.of()) )
+		{
+			if( entry.aBounds.contains(pPoint) )
+			{
+				result.add(entry.aElement);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the elements whose bounds intersect pArea, in the 
+	 * order in which they were indexed.
+	 * 
+	 * @param pArea The area to query.
+	 * @return The elements whose bounds intersect pArea. 
+	 * @pre pArea != null && isValid()
+	 */
+	public List<T> elementsIn(Rectangle pArea)
+	{
+		assert pArea != null && isValid();
+		// Elements that span many cells are found many times
+		LinkedHashSet<Entry<T>> entries = new LinkedHashSet<>();
+		for( int column = cellOf(pArea.getX()); column <= cellOf(pArea.getMaxX()); column++ )
+		{
+			for( int row = cellOf(pArea.getY()); row <= cellOf(pArea.getMaxY()); row++ )
+			{
+				for( Entry<T> entry : aCells.getOrDefault(key(column, row), List.of()) )
+				{
+					if( entry.aBounds.intersects(pArea) )
+					{
+						entries.add(entry);
+					}
+				}
+			}
+		}
+		List<T> result = new ArrayList<>(entries.size());
+		entries.stream()
+			.sorted(Comparator.comparingInt(entry -> entry.aOrder))
+			.forEach(entry -> result.add(entry.aElement));
+		return result;
+	}
+	
+	private static int cellOf(int pCoordinate)
+	{
+		return Math.floorDiv(pCoordinate, CELL_SIZE);
+	}
+	
+	private static long key(int pColumn, int pRow)
+	{
+		return ((long) pColumn << Integer.SIZE) | (pRow & 0xFFFFFFFFL);
+	}
+	
+	private static final class Entry<T>
+	{
+		private final T aElement;
+		private final Rectangle aBounds;
+		private final int aOrder;
+		
+		Entry(T pElement, Rectangle pBounds, int pOrder)
+		{
+			aElement = pElement;
+			aBounds = pBounds;
+			aOrder = pOrder;
+		}
+	}
+}
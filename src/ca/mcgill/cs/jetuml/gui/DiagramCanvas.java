@@ -20,14 +20,19 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.gui;
 
+import java.util.Optional;
+
 import ca.mcgill.cs.jetuml.application.UserPreferences;
 import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
 import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreferenceChangeHandler;
 import ca.mcgill.cs.jetuml.application.UserPreferences.IntegerPreference;
 import ca.mcgill.cs.jetuml.application.UserPreferences.IntegerPreferenceChangeHandler;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
 import ca.mcgill.cs.jetuml.diagram.DiagramType;
 import ca.mcgill.cs.jetuml.geom.Dimension;
+import ca.mcgill.cs.jetuml.geom.Line;
+import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.viewers.DiagramViewer;
 import ca.mcgill.cs.jetuml.viewers.Grid;
@@ -47,9 +52,18 @@ public class DiagramCanvas extends Canvas implements SelectionObserver, BooleanP
 	 * is automatically increased to accommodate a diagram larger than the 
 	 * preferred size. */
 	private static final int DIMENSION_BUFFER = 20;
+	/* The number of pixels painted around the visible area, to absorb the imprecision
+	 * of the projection of the viewport on the canvas. */
+	private static final int VISIBLE_AREA_MARGIN = 50;
+	/* The number of pixels repainted around a damaged region, to cover
+	 * selection handles and strokes drawn just outside the bounds of elements. */
+	private static final int DAMAGE_MARGIN = 10;
 	
 	private final Diagram aDiagram;
 	private DiagramCanvasController aController;
+	private Optional<Rectangle> aVisibleArea = Optional.empty();
+	/* The area covered by the selection handles, rubberband, and lasso, when they were last painted. */
+	private Optional<Rectangle> aPaintedSelection = Optional.empty();
 	
 	/**
 	 * Constructs the canvas, assigns the diagram to it.
@@ -92,30 +106,180 @@ public class DiagramCanvas extends Canvas implements SelectionObserver, BooleanP
 		return aDiagram;
 	}
 	
+	/**
+	 * Restricts the painting of the canvas to the part that is visible to the
+	 * user, and repaints the canvas if this part changed. Elements that are 
+	 * completely outside of the visible area are not painted.
+	 * 
+	 * @param pVisibleArea The area of the canvas visible to the user.
+	 * @pre pVisibleArea != null
+	 */
+	public void setVisibleArea(Rectangle pVisibleArea)
+	{
+		assert pVisibleArea != null;
+		Optional<Rectangle> visibleArea = Optional.of(pVisibleArea);
+		if( !visibleArea.equals(aVisibleArea) )
+		{
+			aVisibleArea = visibleArea;
+			paintPanel();
+		}
+	}
+	
 	/**
 	 * Paints the panel and all the graph elements in aDiagramView.
-	 * Called after the panel is resized.
+	 * Called after the panel is resized. If a visible area is set, 
+	 * only paints the elements that appear in this area.
 	 */
 	public void paintPanel()
 	{
 		GraphicsContext context = getGraphicsContext2D();
+		Rectangle area = getPaintedArea();
 		context.setFill(Color.WHITE); 
-		context.fillRect(0, 0, getWidth(), getHeight());
+		context.fillRect(area.getX(), area.getY(), area.getWidth(), area.getHeight());
 		if(UserPreferences.instance().getBoolean(BooleanPreference.showGrid)) 
 		{
-			Grid.draw(context, new Rectangle(0, 0, (int) getWidth(), (int) getHeight()));
+			Grid.draw(context, area);
+		}
+		if( aVisibleArea.isPresent() )
+		{
+			DiagramType.viewerFor(aDiagram).draw(aDiagram, context, area);
+		}
+		else
+		{
+			DiagramType.viewerFor(aDiagram).draw(aDiagram, context);
 		}
-		DiagramType.viewerFor(aDiagram).draw(aDiagram, context);
 		aController.synchronizeSelectionModel();
 		aController.getSelectionModel().forEach( selected -> ViewerUtils.drawSelectionHandles(selected, context));
 		aController.getSelectionModel().getRubberband().ifPresent( rubberband -> ToolGraphics.drawRubberband(context, rubberband));
 		aController.getSelectionModel().getLasso().ifPresent( lasso -> ToolGraphics.drawLasso(context, lasso));
+		aPaintedSelection = getSelectionArea();
+	}
+	
+	/**
+	 * Repaints only the part of the canvas within pRegion. This is sufficient
+	 * when all the changes since the last paint, including the changes
+	 * to the selection, took place in pRegion.
+	 * 
+	 * @param pRegion The damaged region of the canvas.
+	 * @pre pRegion != null
+	 */
+	public void paintRegion(Rectangle pRegion)
+	{
+		assert pRegion != null;
+		Rectangle region = limitToPaintedArea(grow(pRegion, DAMAGE_MARGIN));
+		if( region.getWidth() == 0 || region.getHeight() == 0 )
+		{
+			return;
+		}
+		GraphicsContext context = getGraphicsContext2D();
+		context.save();
+		context.beginPath();
+		context.rect(region.getX(), region.getY(), region.getWidth(), region.getHeight());
+		context.clip();
+		context.setFill(Color.WHITE); 
+		context.fillRect(region.getX(), region.getY(), region.getWidth(), region.getHeight());
+		if(UserPreferences.instance().getBoolean(BooleanPreference.showGrid)) 
+		{
+			Grid.draw(context, region);
+		}
+		DiagramType.viewerFor(aDiagram).draw(aDiagram, context, region);
+		for( DiagramElement selected : aController.getSelectionModel() )
+		{
+			if( aDiagram.contains(selected) && grow(DiagramViewer.getBounds(selected), DAMAGE_MARGIN).intersects(region))
+			{
+				ViewerUtils.drawSelectionHandles(selected, context);
+			}
+		}
+		aController.getSelectionModel().getRubberband().ifPresent( rubberband -> ToolGraphics.drawRubberband(context, rubberband));
+		aController.getSelectionModel().getLasso().ifPresent( lasso -> ToolGraphics.drawLasso(context, lasso));
+		context.restore();
+		aPaintedSelection = getSelectionArea();
+	}
+	
+	/*
+	 * The area covered by the handles of the selected elements, the rubberband, and the lasso,
+	 * or empty if there is no selection.
+	 */
+	private Optional<Rectangle> getSelectionArea()
+	{
+		Optional<Rectangle> area = Optional.empty();
+		for( DiagramElement selected : aController.getSelectionModel() )
+		{
+			if( aDiagram.contains(selected) )
+			{
+				area = union(area, DiagramViewer.getBounds(selected));
+			}
+		}
+		Optional<Line> rubberband = aController.getSelectionModel().getRubberband();
+		if( rubberband.isPresent() )
+		{
+			Point start = rubberband.get().getPoint1();
+			area = union(area, new Rectangle(start.getX(), start.getY(), 0, 0).add(rubberband.get().getPoint2()));
+		}
+		Optional<Rectangle> lasso = aController.getSelectionModel().getLasso();
+		if( lasso.isPresent() )
+		{
+			area = union(area, lasso.get());
+		}
+		return area;
+	}
+	
+	private static Optional<Rectangle> union(Optional<Rectangle> pArea, Rectangle pRectangle)
+	{
+		return Optional.of(pArea.map(area -> area.add(pRectangle)).orElse(pRectangle));
+	}
+	
+	private static Rectangle grow(Rectangle pRectangle, int pMargin)
+	{
+		return new Rectangle(pRectangle.getX() - pMargin, pRectangle.getY() - pMargin, 
+				pRectangle.getWidth() + 2 * pMargin, pRectangle.getHeight() + 2 * pMargin);
+	}
+	
+	/*
+	 * The visible area extended by a margin and limited to the canvas, 
+	 * or the entire canvas if no visible area is set.
+	 */
+	private Rectangle getPaintedArea()
+	{
+		Rectangle canvas = new Rectangle(0, 0, (int) getWidth(), (int) getHeight());
+		if( aVisibleArea.isEmpty() )
+		{
+			return canvas;
+		}
+		return intersection(canvas, grow(aVisibleArea.get(), VISIBLE_AREA_MARGIN));
 	}
 	
+	private Rectangle limitToPaintedArea(Rectangle pRegion)
+	{
+		return intersection(getPaintedArea(), pRegion);
+	}
+	
+	/*
+	 * The part of pRectangle within pLimits, possibly with an empty dimension.
+	 */
+	private static Rectangle intersection(Rectangle pLimits, Rectangle pRectangle)
+	{
+		int x = Math.max(pLimits.getX(), pRectangle.getX());
+		int y = Math.max(pLimits.getY(), pRectangle.getY());
+		int maxX = Math.min(pLimits.getMaxX(), pRectangle.getMaxX());
+		int maxY = Math.min(pLimits.getMaxY(), pRectangle.getMaxY());
+		return new Rectangle(x, y, Math.max(0, maxX - x), Math.max(0, maxY - y));
+	}
+	
+	/*
+	 * A change to the selection only affects the selection handles, rubberband, and 
+	 * lasso, so only the area they covered before and after the change is repainted.
+	 */
 	@Override
 	public void selectionModelChanged()
 	{
-		paintPanel();		
+		Optional<Rectangle> damage = aPaintedSelection;
+		Optional<Rectangle> selection = getSelectionArea();
+		if( selection.isPresent() )
+		{
+			damage = union(damage, selection.get());
+		}
+		damage.ifPresent(this::paintRegion);
 	}
 
 	@Override
@@ -132,6 +296,8 @@ public class DiagramCanvas extends Canvas implements SelectionObserver, BooleanP
 	{
 		if ( pPreference == IntegerPreference.fontSize )
 		{
+			// The size of the font changes the geometry of the diagram
+			aDiagram.recordModification();
 			paintPanel();
 		}
 
@@ -23,7 +23,9 @@ package ca.mcgill.cs.jetuml.gui;
 import static ca.mcgill.cs.jetuml.diagram.DiagramType.viewerFor;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
@@ -32,6 +34,8 @@ import java.util.Set;
 import ca.mcgill.cs.jetuml.application.Clipboard;
 import ca.mcgill.cs.jetuml.application.UserPreferences;
 import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
+import ca.mcgill.cs.jetuml.application.UserPreferences.IntegerPreference;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.DiagramElement;
 import ca.mcgill.cs.jetuml.diagram.DiagramType;
 import ca.mcgill.cs.jetuml.diagram.Edge;
@@ -39,6 +43,7 @@ import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.builder.ClassDiagramBuilder;
 import ca.mcgill.cs.jetuml.diagram.builder.CompoundOperation;
 import ca.mcgill.cs.jetuml.diagram.builder.DiagramBuilder;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
 import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperationProcessor;
 import ca.mcgill.cs.jetuml.diagram.nodes.FieldNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
@@ -48,6 +53,7 @@ import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.viewers.DiagramViewer;
 import ca.mcgill.cs.jetuml.viewers.Grid;
+import ca.mcgill.cs.jetuml.viewers.edges.EdgeViewerRegistry;
 import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
@@ -72,7 +78,9 @@ public class DiagramCanvasController
 	private DragMode aDragMode;
 	private Point aLastMousePoint;
 	private Point aMouseDownPoint;  
-	private DiagramOperationProcessor aProcessor = new DiagramOperationProcessor();
+	private DiagramOperationProcessor aProcessor = new DiagramOperationProcessor(
+			UserPreferences.instance().getInteger(IntegerPreference.undoHistoryLength),
+			UserPreferences.instance().getInteger(IntegerPreference.undoHistorySize));
 	private MouseDraggedGestureHandler aHandler;
 	
 	/**
@@ -128,6 +136,42 @@ public class DiagramCanvasController
 		aProcessor.diagramSaved();
 	}
 	
+	/**
+	 * @return The last operation executed on the diagram, or empty if there are none.
+	 */
+	public Optional<DiagramOperation> lastExecutedOperation()
+	{
+		return aProcessor.lastExecutedOperation();
+	}
+	
+	/**
+	 * Notify the controller that its diagram has been saved in the state it
+	 * had when pLastExecutedOperation was the last executed operation.
+	 * 
+	 * @param pLastExecutedOperation The last operation executed before the save.
+	 */
+	public void diagramSaved(Optional<DiagramOperation> pLastExecutedOperation)
+	{
+		aProcessor.diagramSaved(pLastExecutedOperation);
+	}
+	
+	/**
+	 * Notify the controller that its diagram differs from its saved version, 
+	 * for example because it was recovered.
+	 */
+	public void diagramModified()
+	{
+		aProcessor.diagramModified();
+	}
+	
+	/**
+	 * @param pHandler Called after every operation executed, undone, or redone on the diagram.
+	 */
+	public void setOperationHandler(Runnable pHandler)
+	{
+		aProcessor.setOperationHandler(pHandler);
+	}
+	
 	/**
 	 * @return True if the diagram controlled by this controller 
 	 *     has unsaved changes.
@@ -513,7 +557,7 @@ public class DiagramCanvasController
 		CompoundOperation operation = aMoveTracker.endTrackingMove(aDiagramBuilder);
 		if(!operation.isEmpty())
 		{
-			aProcessor.storeAlreadyExecutedOperation(operation);
+			aProcessor.storeAlreadyExecutedMove(operation, aMoveTracker.getTrackedNodes());
 		}
 		aCanvas.paintPanel();
 	}
@@ -568,6 +612,15 @@ public class DiagramCanvasController
 	private void moveSelection(Point pMousePoint)
 	{
 		assert !aSelectionModel.isEmpty();
+		Diagram diagram = aCanvas.getDiagram();
+		// In sequence diagrams the layout is global, so moving a node can affect the entire diagram
+		boolean isLocal = diagram.getType() != DiagramType.SEQUENCE;
+		Set<Node> roots = isLocal ? movedRoots() : Set.of();
+		Set<Node> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+		roots.forEach(root -> addTree(root, moved));
+		Set<Edge> edges = isLocal ? affectedEdges(diagram, moved) : Set.of();
+		boolean indexesValid = diagram.getNodeIndex().isValid() && diagram.getEdgeIndex().isValid();
+		Optional<Rectangle> damageBefore = computeMoveDamage(moved, edges);
 		
 		int dx = pMousePoint.getX() - aLastMousePoint.getX();
 		int dy = pMousePoint.getY() - aLastMousePoint.getY();
@@ -584,7 +637,96 @@ public class DiagramCanvasController
 		aSelectionModel.getSelectedNodes().forEach(selected -> selected.translate(dxCorrection, dyCorrection));
 		
 		aLastMousePoint = pMousePoint; 
-		aCanvas.paintPanel();
+		Optional<Rectangle> damageAfter = computeMoveDamage(moved, edges);
+		if( isLocal && indexesValid )
+		{
+			// Only the moved elements need to be reindexed
+			DiagramViewer.updateIndexes(diagram, roots, edges);
+		}
+		if( damageBefore.isPresent() && damageAfter.isPresent() )
+		{
+			aCanvas.paintRegion(damageBefore.get().add(damageAfter.get()));
+		}
+		else
+		{
+			aCanvas.paintPanel();
+		}
+	}
+	
+	/*
+	 * Returns the root nodes of the trees of nodes that contain the selected nodes.
+	 */
+	private Set<Node> movedRoots()
+	{
+		Set<Node> roots = Collections.newSetFromMap(new IdentityHashMap<>());
+		for( Node node : aSelectionModel.getSelectedNodes() )
+		{
+			Node root = node;
+			while( root.hasParent() )
+			{
+				root = root.getParent();
+			}
+			roots.add(root);
+		}
+		return roots;
+	}
+	
+	/*
+	 * Returns the edges whose geometry can depend on the position of the nodes in pMoved: 
+	 * the edges connected to these nodes, and the edges that share an end node with the 
+	 * former, because edges can be distributed along the side of a node.
+	 */
+	private static Set<Edge> affectedEdges(Diagram pDiagram, Set<Node> pMoved)
+	{
+		Set<Node> neighbors = Collections.newSetFromMap(new IdentityHashMap<>());
+		for( Node node : pMoved )
+		{
+			for( Edge edge : pDiagram.edgesConnectedTo(node) )
+			{
+				neighbors.add(edge.getStart());
+				neighbors.add(edge.getEnd());
+			}
+		}
+		Set<Edge> edges = Collections.newSetFromMap(new IdentityHashMap<>());
+		neighbors.forEach(node -> pDiagram.edgesConnectedTo(node).forEach(edges::add));
+		return edges;
+	}
+	
+	/*
+	 * Returns the area covered by the nodes in pMoved and the edges in pEdges, 
+	 * or empty if there are no such nodes, as when the entire diagram can be affected.
+	 */
+	private static Optional<Rectangle> computeMoveDamage(Set<Node> pMoved, Set<Edge> pEdges)
+	{
+		Rectangle damage = null;
+		for( Node node : pMoved )
+		{
+			damage = add(damage, NodeViewerRegistry.getBounds(node));
+		}
+		if( damage == null )
+		{
+			return Optional.empty();
+		}
+		for( Edge edge : pEdges )
+		{
+			damage = add(damage, EdgeViewerRegistry.getBounds(edge));
+		}
+		return Optional.of(damage);
+	}
+	
+	private static void addTree(Node pNode, Set<Node> pNodes)
+	{
+		pNodes.add(pNode);
+		pNode.getChildren().forEach(child -> addTree(child, pNodes));
+	}
+	
+	private static Rectangle add(Rectangle pDamage, Rectangle pBounds)
+	{
+		if( pDamage == null )
+		{
+			return pBounds;
+		}
+		return pDamage.add(pBounds);
 	}
 	
 	/**
@@ -642,6 +784,14 @@ public class DiagramCanvasController
 			}
 		}
 
+		/**
+		 * @return The nodes being moved.
+		 */
+		List<Node> getTrackedNodes()
+		{
+			return Collections.unmodifiableList(aTrackedNodes);
+		}
+
 		/**
 		 * Creates and returns a CompoundOperation that represents the movement
 		 * of all tracked nodes between the time where startTrackingMove was 
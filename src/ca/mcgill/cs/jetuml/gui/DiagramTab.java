@@ -30,7 +30,9 @@ import java.util.Optional;
 
 import ca.mcgill.cs.jetuml.application.UserPreferences;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
 import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.persistence.OperationJournal;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.geometry.Bounds;
@@ -55,6 +57,7 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 	private DiagramCanvas aDiagramCanvas;
 	private final DiagramCanvasController aDiagramCanvasController;
 	private Optional<File> aFile = Optional.empty(); // The file associated with this diagram
+	private Optional<OperationJournal> aJournal = Optional.empty(); // Records the unsaved changes to the file
 	
 	/**
      * Constructs a diagram tab initialized with pDiagram.
@@ -70,6 +73,7 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 		UserPreferences.instance().addIntegerPreferenceChangeHandler(aDiagramCanvas);
 		aDiagramCanvasController = new DiagramCanvasController(aDiagramCanvas, sideBar, this);
 		aDiagramCanvas.setController(aDiagramCanvasController);
+		aDiagramCanvasController.setOperationHandler(() -> aJournal.ifPresent(OperationJournal::recordOperation));
 		aDiagramCanvas.paintPanel();
 		
 		BorderPane layout = new BorderPane();
@@ -103,6 +107,12 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 		scroll.setFitToHeight(true);
 		layout.setCenter(scroll);
 		
+		// Only the part of the canvas visible in the viewport is painted 
+		scroll.hvalueProperty().addListener(pObservable -> updateVisibleArea());
+		scroll.vvalueProperty().addListener(pObservable -> updateVisibleArea());
+		scroll.viewportBoundsProperty().addListener(pObservable -> updateVisibleArea());
+		aZoom.addListener(pObservable -> updateVisibleArea());
+		
 		setTitle();
 		setContent(layout);
 
@@ -125,6 +135,7 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 	 */
 	public void close()
 	{
+		aJournal.ifPresent(OperationJournal::close);
 		UserPreferences.instance().removeBooleanPreferenceChangeHandler(aDiagramCanvas);
 		UserPreferences.instance().removeBooleanPreferenceChangeHandler((DiagramTabToolBar)((BorderPane)getContent()).getRight());
 		UserPreferences.instance().removeIntegerPreferenceChangeHandler(aDiagramCanvas);
@@ -250,6 +261,43 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 	public void diagramSaved()
 	{
 		aDiagramCanvasController.diagramSaved();
+		aJournal.ifPresent(OperationJournal::discard);
+	}
+	
+	/**
+	 * @return The last operation executed on the diagram of this tab, or empty if there are none.
+	 */
+	public Optional<DiagramOperation> lastExecutedOperation()
+	{
+		return aDiagramCanvasController.lastExecutedOperation();
+	}
+	
+	/**
+	 * Notify the tab that its diagram has been saved in the state it
+	 * had when pLastExecutedOperation was the last executed operation.
+	 * 
+	 * @param pLastExecutedOperation The last operation executed before the save.
+	 */
+	public void diagramSaved(Optional<DiagramOperation> pLastExecutedOperation)
+	{
+		aDiagramCanvasController.diagramSaved(pLastExecutedOperation);
+		if( !hasUnsavedChanges() )
+		{
+			aJournal.ifPresent(OperationJournal::discard);
+		}
+		else
+		{
+			aJournal.ifPresent(OperationJournal::fileReplaced);
+		}
+	}
+	
+	/**
+	 * Notify the tab that its diagram was recovered from a journal, 
+	 * and thus differs from the saved diagram.
+	 */
+	public void diagramRecovered()
+	{
+		aDiagramCanvasController.diagramModified();
 	}
 	
 	/**
@@ -271,13 +319,16 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 	}
 
 	/**
-     * Sets the file property.
+     * Sets the file property. From then on, the changes to the diagram
+     * are recorded in a journal next to the file until the diagram is saved.
      * @param pFile The file associated with this graph
 	 */
 	public void setFile(File pFile)
 	{
 		assert pFile != null;
 		aFile = Optional.of(pFile);
+		aJournal.ifPresent(OperationJournal::close);
+		aJournal = Optional.of(new OperationJournal(aDiagram, pFile, !hasUnsavedChanges()));
 		setTitle();
 	}
 
@@ -303,6 +354,25 @@ public class DiagramTab extends Tab implements MouseDraggedGestureHandler, KeyEv
 				scrollPane.getHvalue(), scrollPane.getVvalue());
 	}
 
+	/*
+	 * Informs the canvas of the area visible in the viewport. Unlike getViewportProjection(), 
+	 * the dimensions of the viewport are converted to the scale of the canvas.
+	 */
+	private void updateVisibleArea()
+	{
+		ScrollPane scrollPane = (ScrollPane)((BorderPane)getContent()).getCenter();
+		Bounds bounds = scrollPane.getViewportBounds();
+		if( bounds.getWidth() <= 0 || bounds.getHeight() <= 0 )
+		{
+			return; // Not laid out yet
+		}
+		int viewportWidth = Math.min((int) Math.ceil(bounds.getWidth() / aZoom.get()), (int) aDiagramCanvas.getWidth());
+		int viewportHeight = Math.min((int) Math.ceil(bounds.getHeight() / aZoom.get()), (int) aDiagramCanvas.getHeight());
+		aDiagramCanvas.setVisibleArea(new ViewportProjection(viewportWidth, viewportHeight, 
+				(int) aDiagramCanvas.getWidth(), (int) aDiagramCanvas.getHeight(), 
+				scrollPane.getHvalue(), scrollPane.getVvalue()).getVisibleArea());
+	}
+
 	@Override
 	public void shiftKeyPressed() 
 	{
@@ -48,11 +48,14 @@ import ca.mcgill.cs.jetuml.application.UserPreferences;
 import ca.mcgill.cs.jetuml.application.UserPreferences.BooleanPreference;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.builder.DiagramOperation;
 import ca.mcgill.cs.jetuml.gui.tips.TipDialog;
+import ca.mcgill.cs.jetuml.persistence.BackgroundSaver;
 import ca.mcgill.cs.jetuml.persistence.DeserializationException;
-import ca.mcgill.cs.jetuml.persistence.PersistenceService;
+import ca.mcgill.cs.jetuml.persistence.OperationJournal;
 import ca.mcgill.cs.jetuml.persistence.VersionedDiagram;
 import ca.mcgill.cs.jetuml.viewers.ImageCreator;
+import javafx.application.Platform;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
@@ -88,6 +91,8 @@ public class EditorFrame extends BorderPane
 	private RecentFilesQueue aRecentFiles = new RecentFilesQueue();
 	private Menu aRecentFilesMenu;
 	private WelcomeTab aWelcomeTab;
+	private final BackgroundSaver aSaver = new BackgroundSaver(Platform::runLater);
+	private boolean aExitPending = false; // True while the exit waits for the saves to complete
 	
 	/**
 	 * Constructs a blank frame with a desktop pane but no diagram window.
@@ -122,14 +127,14 @@ public class EditorFrame extends BorderPane
 		
 		setOnKeyPressed(e -> 
 		{
-			if( !isWelcomeTabShowing() && e.isShiftDown() )
+			if( isDiagramTabSelected() && e.isShiftDown() )
 			{
 				getSelectedDiagramTab().shiftKeyPressed();
 			}
 		});
 		setOnKeyTyped(e -> 
 		{
-			if( !isWelcomeTabShowing() && !e.isShortcutDown())
+			if( isDiagramTabSelected() && !e.isShortcutDown())
 			{
 				getSelectedDiagramTab().keyTyped(e.getCharacter());
 			}
@@ -157,7 +162,7 @@ public class EditorFrame extends BorderPane
 	 * menus and their immediate sub-menus), that have "true" in their user data,
 	 * indicating that they should only be enabled if there is a diagram 
 	 * present. Then, sets their visibility to the boolean value that
-	 * indicates whether there is a diagram present.
+	 * indicates whether a diagram is selected.
 	 * 
 	 * This method assumes that any sub-menu beyond the second level (sub-menus of
 	 * top menus) will NOT be diagram-specific.
@@ -167,7 +172,7 @@ public class EditorFrame extends BorderPane
 			((MenuBar)getTop()).getMenus().stream() // All top level menus
 				.flatMap(menu -> Stream.concat(Stream.of(menu), menu.getItems().stream())) // All menus and immediate sub-menus
 				.filter( item -> Boolean.TRUE.equals(item.getUserData())) // Retain only diagram-relevant menu items
-				.forEach( item -> item.setDisable(isWelcomeTabShowing()));
+				.forEach( item -> item.setDisable(!isDiagramTabSelected()));
 	}
 	
 	// Returns the new menu
@@ -275,9 +280,27 @@ public class EditorFrame extends BorderPane
 		return Optional.empty();
 	}
 	
+	/*
+	 * @return The tab in which pFile is being opened, or empty if there are none.
+	 */
+	private Optional<OpenFileTab> findOpenFileTabFor(File pFile)
+	{
+		for( Tab tab : tabs() )
+		{
+			if( tab instanceof OpenFileTab && 
+					((OpenFileTab) tab).getFile().getAbsoluteFile().equals(pFile.getAbsoluteFile()) )
+			{
+				return Optional.of((OpenFileTab) tab);
+			}
+		}
+		return Optional.empty();
+	}
+	
 	/*
 	 * Opens a file with the given name, or switches to the frame if it is already
-	 * open.
+	 * open. The file is read on a background thread, and a tab showing the progress
+	 * stands in for the diagram until it is decoded. Several files can be opened
+	 * at the same time.
 	 * 
 	 * @param pName the file to open. Not null.
 	 */
@@ -291,25 +314,97 @@ public class EditorFrame extends BorderPane
 			addRecentFile(pFile.getPath());
 			return;
 		}
+		Optional<OpenFileTab> openFileTab = findOpenFileTabFor(pFile);
+		if( openFileTab.isPresent() )
+		{
+			tabPane().getSelectionModel().select(openFileTab.get());
+			return;
+		}
 		
-		try 
+		OpenFileTab newTab = new OpenFileTab(pFile);
+		insertGraphFrameIntoTabbedPane(newTab);
+		newTab.start(pDiagram -> fileOpened(newTab, pDiagram), 
+				pException -> fileNotOpened(newTab, true), 
+				() -> fileNotOpened(newTab, false));
+	}
+	
+	/*
+	 * Replaces pTab with a diagram tab for pVersionedDiagram.
+	 */
+	private void fileOpened(OpenFileTab pTab, VersionedDiagram pVersionedDiagram)
+	{
+		int index = tabs().indexOf(pTab);
+		if( index < 0 )
 		{
-			VersionedDiagram versionedDiagram = PersistenceService.read(pFile); 
-			DiagramTab frame = new DiagramTab(versionedDiagram.diagram());
-			frame.setFile(pFile.getAbsoluteFile());
-			addRecentFile(pFile.getPath());
-			insertGraphFrameIntoTabbedPane(frame);
-			if( versionedDiagram.wasMigrated())
+			return;
+		}
+		boolean selected = tabPane().getSelectionModel().getSelectedItem() == pTab;
+		Optional<Diagram> recovered = recover(pTab.getFile());
+		DiagramTab frame = new DiagramTab(recovered.orElse(pVersionedDiagram.diagram()));
+		if( recovered.isPresent() )
+		{
+			frame.diagramRecovered();
+		}
+		frame.setFile(pTab.getFile().getAbsoluteFile());
+		tabs().set(index, frame);
+		if( selected )
+		{
+			tabPane().getSelectionModel().select(frame);
+		}
+		addRecentFile(pTab.getFile().getPath());
+		if( pVersionedDiagram.wasMigrated())
+		{
+			String message = String.format(RESOURCES.getString("warning.version.message"), 
+					pVersionedDiagram.version().toString());
+			Alert alert = new Alert(AlertType.WARNING, message, ButtonType.OK);
+			alert.setTitle(RESOURCES.getString("warning.version.title"));
+			alert.initOwner(aMainStage);
+			alert.showAndWait();
+		}
+	}
+	
+	/*
+	 * If pFile has a journal of unsaved changes, left by a previous session that did
+	 * not end normally, offers to recover the diagram from the journal. 
+	 */
+	private Optional<Diagram> recover(File pFile)
+	{
+		File journal = OperationJournal.journalFor(pFile);
+		if( !journal.exists() )
+		{
+			return Optional.empty();
+		}
+		Alert alert = new Alert(AlertType.CONFIRMATION, RESOURCES.getString("dialog.recover.ok"), ButtonType.YES, ButtonType.NO);
+		alert.initOwner(aMainStage);
+		alert.setTitle(RESOURCES.getString("dialog.recover.title"));
+		alert.setHeaderText(RESOURCES.getString("dialog.recover.title"));
+		alert.showAndWait();
+		if( alert.getResult() == ButtonType.YES )
+		{
+			try
+			{
+				return OperationJournal.recover(pFile);
+			}
+			catch( IOException | DeserializationException exception )
 			{
-				String message = String.format(RESOURCES.getString("warning.version.message"), 
-						versionedDiagram.version().toString());
-				Alert alert = new Alert(AlertType.WARNING, message, ButtonType.OK);
-				alert.setTitle(RESOURCES.getString("warning.version.title"));
-				alert.initOwner(aMainStage);
-				alert.showAndWait();
+				Alert error = new Alert(AlertType.ERROR, RESOURCES.getString("error.recover_file"), ButtonType.OK);
+				error.initOwner(aMainStage);
+				error.showAndWait();
 			}
 		}
-		catch(IOException | DeserializationException exception) 
+		journal.delete();
+		return Optional.empty();
+	}
+	
+	/*
+	 * Removes pTab after its file could not be opened, and reports 
+	 * the error if pError is true.
+	 */
+	private void fileNotOpened(OpenFileTab pTab, boolean pError)
+	{
+		tabs().remove(pTab);
+		showWelcomeTabIfNecessary();
+		if( pError )
 		{
 			Alert alert = new Alert(AlertType.ERROR, RESOURCES.getString("error.open_file"), ButtonType.OK);
 			alert.initOwner(aMainStage);
@@ -478,17 +573,29 @@ public class EditorFrame extends BorderPane
 			saveAs();
 			return;
 		}
-		try 
-		{
-			PersistenceService.save(diagramTab.getDiagram(), file.get());
-			diagramTab.diagramSaved();
-		} 
-		catch(IOException exception) 
-		{
-			Alert alert = new Alert(AlertType.ERROR, RESOURCES.getString("error.save_file"), ButtonType.OK);
-			alert.initOwner(aMainStage);
-			alert.showAndWait();
-		}
+		saveInBackground(diagramTab, file.get(), () -> {});
+	}
+	
+	/*
+	 * Saves a snapshot of the diagram in pDiagramTab on a background thread. 
+	 * The tab is notified once the snapshot is written, so that operations executed 
+	 * in the meantime remain unsaved. pOnSaved is then run, but not if the save fails.
+	 */
+	private void saveInBackground(DiagramTab pDiagramTab, File pFile, Runnable pOnSaved)
+	{
+		Optional<DiagramOperation> lastExecutedOperation = pDiagramTab.lastExecutedOperation();
+		aSaver.save(pDiagramTab.getDiagram().duplicate(), pFile, 
+				() -> 
+				{
+					pDiagramTab.diagramSaved(lastExecutedOperation);
+					pOnSaved.run();
+				}, 
+				pException -> 
+				{
+					Alert alert = new Alert(AlertType.ERROR, RESOURCES.getString("error.save_file"), ButtonType.OK);
+					alert.initOwner(aMainStage);
+					alert.showAndWait();
+				});
 	}
 
 	private void saveAs() 
@@ -511,28 +618,20 @@ public class EditorFrame extends BorderPane
 			fileChooser.setInitialFileName("");
 		}
 
-		try 
+		File result = fileChooser.showSaveDialog(aMainStage);
+		if( result != null )
 		{
-			File result = fileChooser.showSaveDialog(aMainStage);
-			if( result != null )
+			saveInBackground(diagramTab, result, () -> 
 			{
-				PersistenceService.save(diagram, result);
 				addRecentFile(result.getAbsolutePath());
 				diagramTab.setFile(result);
-				diagramTab.setText(diagramTab.getFile().get().getName());
-				diagramTab.diagramSaved();
-				File dir = result.getParentFile();
-				if( dir != null )
-				{
-					setLastDir(KEY_LAST_SAVEAS_DIR, dir);
-				}
+				diagramTab.setText(result.getName());
+			});
+			File dir = result.getParentFile();
+			if( dir != null )
+			{
+				setLastDir(KEY_LAST_SAVEAS_DIR, dir);
 			}
-		} 
-		catch (IOException exception) 
-		{
-			Alert alert = new Alert(AlertType.ERROR, RESOURCES.getString("error.save_file"), ButtonType.OK);
-			alert.initOwner(aMainStage);
-			alert.showAndWait();
 		}
 	}
 
@@ -662,6 +761,20 @@ public class EditorFrame extends BorderPane
 	 */
 	public void exit() 
 	{
+		if( aSaver.isSaving() )
+		{
+			// Exit once the diagrams being saved are written and their tabs are notified.
+			if( !aExitPending )
+			{
+				aExitPending = true;
+				aSaver.whenIdle(() -> 
+				{
+					aExitPending = false;
+					exit();
+				});
+			}
+			return;
+		}
 		final int modcount = getNumberOfUsavedDiagrams();
 		if (modcount > 0) 
 		{
@@ -677,16 +790,28 @@ public class EditorFrame extends BorderPane
 			if (alert.getResult() == ButtonType.YES) 
 			{
 				Preferences.userNodeForPackage(JetUML.class).put("recent", aRecentFiles.serialize());
+				closeDiagramTabs();
 				System.exit(0);
 			}
 		}
 		else 
 		{
 			Preferences.userNodeForPackage(JetUML.class).put("recent", aRecentFiles.serialize());
+			closeDiagramTabs();
 			System.exit(0);
 		}
 	}		
 	
+	/*
+	 * Closes the diagram tabs, which discards their journals of unsaved changes.
+	 */
+	private void closeDiagramTabs()
+	{
+		tabs().stream()
+			.filter( tab -> tab instanceof DiagramTab )
+			.forEach( tab -> ((DiagramTab) tab).close());
+	}
+	
 	private List<Tab> tabs()
 	{
 		return ((TabPane) getCenter()).getTabs();
@@ -697,6 +822,11 @@ public class EditorFrame extends BorderPane
 		return (TabPane) getCenter();
 	}
 	
+	private boolean isDiagramTabSelected()
+	{
+		return tabPane().getSelectionModel().getSelectedItem() instanceof DiagramTab;
+	}
+	
 	private boolean isWelcomeTabShowing()
 	{
 		return aWelcomeTab != null && 
@@ -705,7 +835,7 @@ public class EditorFrame extends BorderPane
 	}
 	
 	/* Insert a graph frame into the tabbedpane */ 
-	private void insertGraphFrameIntoTabbedPane(DiagramTab pGraphFrame) 
+	private void insertGraphFrameIntoTabbedPane(Tab pGraphFrame) 
 	{
 		if( isWelcomeTabShowing() )
 		{
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.gui;
+
+import static ca.mcgill.cs.jetuml.application.ApplicationResources.RESOURCES;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import ca.mcgill.cs.jetuml.persistence.PersistenceService;
+import ca.mcgill.cs.jetuml.persistence.VersionedDiagram;
+import javafx.concurrent.Task;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.Tab;
+import javafx.scene.layout.VBox;
+
+/**
+ * A tab that stands in for a diagram while its file is read and decoded 
+ * on a background thread. The tab shows the progress of the reading and
+ * allows the user to cancel it, either with a button or by closing the tab.
+ * 
+ * Files are read by a pool of daemon threads, so that several files can be
+ * opened at the same time and that an ongoing read does not prevent the 
+ * application from exiting.
+ */
+public class OpenFileTab extends Tab
+{
+	private static final int SPACING = 10;
+	private static final double PROGRESS_BAR_WIDTH = 300;
+	
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(pRunnable -> 
+	{
+		Thread thread = new Thread(pRunnable, "JetUML file reader");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private final File aFile;
+	private final Task<VersionedDiagram> aTask;
+	
+	/**
+	 * Creates a tab for reading pFile. The reading starts
+	 * with a call to start().
+	 * 
+	 * @param pFile The file to read.
+	 * @pre pFile != null
+	 */
+	public OpenFileTab(File pFile)
+	{
+		super(pFile.getName());
+		assert pFile != null;
+		aFile = pFile;
+		aTask = new Task<>()
+		{
+			@Override
+			protected VersionedDiagram call() throws Exception
+			{
+				return PersistenceService.read(pFile, pProgress -> updateProgress(pProgress, 1));
+			}
+		};
+		
+		ProgressBar progressBar = new ProgressBar();
+		progressBar.setPrefWidth(PROGRESS_BAR_WIDTH);
+		progressBar.progressProperty().bind(aTask.progressProperty());
+		Button cancel = new Button(RESOURCES.getString("dialog.open.cancel"));
+		cancel.setOnAction(pEvent -> cancel());
+		
+		VBox layout = new VBox(SPACING);
+		layout.setAlignment(Pos.CENTER);
+		layout.getChildren().addAll(new Label(String.format(RESOURCES.getString("dialog.open.message"), pFile.getName())), 
+				progressBar, cancel);
+		setContent(layout);
+		
+		setOnClosed(pEvent -> cancel());
+	}
+	
+	/**
+	 * @return The file read in this tab.
+	 */
+	public File getFile()
+	{
+		return aFile;
+	}
+	
+	/**
+	 * Starts reading the file on a background thread. The handlers
+	 * are always called on the JavaFX application thread. 
+	 * 
+	 * @param pOnSucceeded Receives the diagram once it is decoded.
+	 * @param pOnFailed Receives the exception that prevented reading the diagram.
+	 * @param pOnCancelled Called if the reading is cancelled.
+	 * @pre pOnSucceeded != null && pOnFailed != null && pOnCancelled != null
+	 */
+	public void start(Consumer<VersionedDiagram> pOnSucceeded, Consumer<Throwable> pOnFailed, Runnable pOnCancelled)
+	{
+		assert pOnSucceeded != null && pOnFailed != null && pOnCancelled != null;
+		aTask.setOnSucceeded(pEvent -> pOnSucceeded.accept(aTask.getValue()));
+		aTask.setOnFailed(pEvent -> pOnFailed.accept(aTask.getException()));
+		aTask.setOnCancelled(pEvent -> pOnCancelled.run());
+		EXECUTOR.execute(aTask);
+	}
+	
+	/**
+	 * Cancels the reading of the file, if it is not finished.
+	 */
+	public void cancel()
+	{
+		aTask.cancel(true);
+	}
+}
@@ -71,6 +71,14 @@ public abstract class AbstractContext implements Iterable<Node>
 		return aNodes.get(pNode);
 	}
 	
+	/**
+	 * @return The number of nodes in this context.
+	 */
+	public int size()
+	{
+		return aNodes.size();
+	}
+	
 	@Override
 	public Iterator<Node> iterator()
 	{
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+
+/**
+ * Saves diagrams with PersistenceService on background threads. 
+ * 
+ * The diagrams passed to this saver must be snapshots that are no longer 
+ * modified, typically obtained with Diagram.duplicate(), so that they can be 
+ * encoded while the original diagram is being edited.
+ * 
+ * Saves to the same file are written one after the other. If several saves to a 
+ * file are requested while that file is being written, only the last one is 
+ * written next, since it supersedes the others. The handlers of the superseded 
+ * saves are never called.
+ */
+public final class BackgroundSaver
+{
+	private final ExecutorService aExecutor = Executors.newCachedThreadPool(pRunnable -> 
+	{
+		Thread thread = new Thread(pRunnable, "JetUML file writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Executor aHandlerExecutor;
+	private final Map<File, SaveRequest> aRequests = new HashMap<>();
+	private final Set<File> aFilesBeingWritten = new HashSet<>();
+	private final List<Runnable> aIdleActions = new ArrayList<>();
+	
+	/**
+	 * @param pHandlerExecutor Executes the handlers that report the completion
+	 *     of a save, for example on the thread of the user interface.
+	 * @pre pHandlerExecutor != null
+	 */
+	public BackgroundSaver(Executor pHandlerExecutor)
+	{
+		assert pHandlerExecutor != null;
+		aHandlerExecutor = pHandlerExecutor;
+	}
+	
+	/**
+	 * Requests that pSnapshot be saved in pFile, and returns immediately.
+	 * 
+	 * @param pSnapshot The diagram to save. Must not be modified afterwards.
+	 * @param pFile The file in which to save the diagram.
+	 * @param pOnSaved Called once the diagram is saved.
+	 * @param pOnFailed Called with the exception that prevented saving the diagram.
+	 * @pre pSnapshot != null && pFile != null && pOnSaved != null && pOnFailed != null
+	 */
+	public void save(Diagram pSnapshot, File pFile, Runnable pOnSaved, Consumer<IOException> pOnFailed)
+	{
+		assert pSnapshot != null && pFile != null && pOnSaved != null && pOnFailed != null;
+		File file = pFile.getAbsoluteFile();
+		synchronized( this )
+		{
+			aRequests.put(file, new SaveRequest(pSnapshot, pOnSaved, pOnFailed));
+			if( !aFilesBeingWritten.add(file) )
+			{
+				return;
+			}
+		}
+		aExecutor.execute(() -> writeRequests(file));
+	}
+	
+	/**
+	 * @return True if some saves are not completed.
+	 */
+	public synchronized boolean isSaving()
+	{
+		return !aFilesBeingWritten.isEmpty();
+	}
+	
+	/**
+	 * Blocks until all the requested saves are completed. The handlers of these
+	 * saves might not have been executed yet when this method returns.
+	 * 
+	 * @throws InterruptedException If the calling thread is interrupted while waiting.
+	 */
+	public synchronized void awaitCompletion() throws InterruptedException
+	{
+		while( !aFilesBeingWritten.isEmpty() )
+		{
+			wait();
+		}
+	}
+	
+	/**
+	 * Executes pAction with the handler executor once all the requested saves are
+	 * completed, or right away if there are none. The action is executed after the 
+	 * handlers of these saves, if the handler executor preserves the order of its tasks.
+	 * 
+	 * @param pAction The action to execute.
+	 * @pre pAction != null
+	 */
+	public void whenIdle(Runnable pAction)
+	{
+		assert pAction != null;
+		synchronized( this )
+		{
+			if( !aFilesBeingWritten.isEmpty() )
+			{
+				aIdleActions.add(pAction);
+				return;
+			}
+		}
+		aHandlerExecutor.execute(pAction);
+	}
+	
+	/*
+	 * Writes the latest request for pFile until there are none left.
+	 */
+	private void writeRequests(File pFile)
+	{
+		while( true )
+		{
+			SaveRequest request;
+			List<Runnable> idleActions = List.of();
+			synchronized( this )
+			{
+				request = aRequests.remove(pFile);
+				if( request == null )
+				{
+					aFilesBeingWritten.remove(pFile);
+					if( aFilesBeingWritten.isEmpty() )
+					{
+						idleActions = new ArrayList<>(aIdleActions);
+						aIdleActions.clear();
+					}
+					notifyAll();
+				}
+			}
+			if( request == null )
+			{
+				idleActions.forEach(aHandlerExecutor::execute);
+				return;
+			}
+			try
+			{
+				PersistenceService.save(request.aSnapshot, pFile);
+				aHandlerExecutor.execute(request.aOnSaved);
+			}
+			catch( IOException exception )
+			{
+				aHandlerExecutor.execute(() -> request.aOnFailed.accept(exception));
+			}
+			catch( RuntimeException exception )
+			{
+				IOException wrapped = new IOException("Cannot save the diagram", exception);
+				aHandlerExecutor.execute(() -> request.aOnFailed.accept(wrapped));
+			}
+		}
+	}
+	
+	private static final class SaveRequest
+	{
+		private final Diagram aSnapshot;
+		private final Runnable aOnSaved;
+		private final Consumer<IOException> aOnFailed;
+		
+		SaveRequest(Diagram pSnapshot, Runnable pOnSaved, Consumer<IOException> pOnFailed)
+		{
+			aSnapshot = pSnapshot;
+			aOnSaved = pOnSaved;
+			aOnFailed = pOnFailed;
+		}
+	}
+}
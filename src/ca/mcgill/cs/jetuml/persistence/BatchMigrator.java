@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import ca.mcgill.cs.jetuml.JetUML;
+import ca.mcgill.cs.jetuml.application.FileExtensions;
+import ca.mcgill.cs.jetuml.application.Version;
+import javafx.application.Platform;
+
+/**
+ * Migrates or validates all the diagram files in a directory tree, without
+ * a user interface. The directory tree is walked by a fork-join pool, and each 
+ * file is read, migrated if needed, and saved by a task of its own, so the files
+ * are processed in parallel over all the available cores.
+ * 
+ * In validation mode, the files are only decoded. Otherwise, the files saved 
+ * with an earlier version of JetUML are saved again with the current version. 
+ * For each file, the tool reports the time taken, the migration passes that 
+ * changed the diagram, and the reason of a failure, if any.
+ * 
+ * Usage: BatchMigrator [--validate] directory
+ */
+public final class BatchMigrator
+{
+	private static final String OPTION_VALIDATE = "--validate";
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+	
+	private final boolean aValidateOnly;
+	
+	/**
+	 * @param pValidateOnly True if the files must only be decoded, without being saved again.
+	 */
+	public BatchMigrator(boolean pValidateOnly)
+	{
+		aValidateOnly = pValidateOnly;
+	}
+	
+	/**
+	 * Processes the diagram files of a directory tree and prints a report.
+	 * The process exits with a non-zero status if any file could not be processed.
+	 * 
+	 * @param pArgs The --validate option, if the files must not be saved again,
+	 *     followed by the root of the directory tree.
+	 */
+	public static void main(String[] pArgs)
+	{
+		boolean validateOnly = pArgs.length == 2 && pArgs[0].equals(OPTION_VALIDATE);
+		if( pArgs.length != 1 && !validateOnly )
+		{
+			System.err.println("Usage: BatchMigrator [" + OPTION_VALIDATE + "] directory");
+			System.exit(2);
+		}
+		// The nodes and edges can only be created once the JavaFX toolkit is initialized.
+		Platform.startup(() -> {});
+		List<Result> results;
+		try
+		{
+			results = new BatchMigrator(validateOnly).process(Path.of(pArgs[pArgs.length - 1]), ForkJoinPool.commonPool());
+		}
+		finally
+		{
+			Platform.exit();
+		}
+		report(results, System.out);
+		System.exit(results.stream().anyMatch(Result::hasFailed) ? 1 : 0);
+	}
+	
+	/**
+	 * Processes all the diagram files in the directory tree rooted at pDirectory.
+	 * 
+	 * @param pDirectory The root of the directory tree.
+	 * @param pPool The pool that runs the tasks.
+	 * @return The result for each file, and for each directory that could not be listed,
+	 *     in the order of a depth-first walk of the directory tree.
+	 * @pre pDirectory != null && pPool != null
+	 */
+	public List<Result> process(Path pDirectory, ForkJoinPool pPool)
+	{
+		assert pDirectory != null && pPool != null;
+		return pPool.invoke(new DirectoryTask(pDirectory));
+	}
+	
+	private Result processFile(Path pFile)
+	{
+		long start = System.nanoTime();
+		VersionMigrator migrator = new VersionMigrator();
+		try
+		{
+			VersionedDiagram diagram = PersistenceService.read(pFile.toFile(), pProgress -> {}, migrator);
+			boolean write = !aValidateOnly && diagram.version().compareTo(JetUML.VERSION) < 0;
+			if( write )
+			{
+				PersistenceService.save(diagram.diagram(), pFile.toFile());
+			}
+			return new Result(pFile, Optional.of(diagram.version()), migrator.firedPasses(), write, 
+					System.nanoTime() - start, Optional.empty());
+		}
+		catch( IOException | RuntimeException exception )
+		{
+			return failure(pFile, System.nanoTime() - start, exception);
+		}
+	}
+	
+	private static Result failure(Path pFile, long pNanos, Exception pException)
+	{
+		String message = pException.getClass().getSimpleName();
+		if( pException.getMessage() != null )
+		{
+			message += ": " + pException.getMessage();
+		}
+		return new Result(pFile, Optional.empty(), List.of(), false, pNanos, Optional.of(message));
+	}
+	
+	/**
+	 * Prints one line for each result, followed by a summary.
+	 * 
+	 * @param pResults The results to report.
+	 * @param pOut The stream to print to.
+	 * @pre pResults != null && pOut != null
+	 */
+	public static void report(List<Result> pResults, PrintStream pOut)
+	{
+		assert pResults != null && pOut != null;
+		long totalNanos = 0;
+		int written = 0;
+		int failed = 0;
+		Map<String, Integer> passes = new TreeMap<>();
+		for( Result result : pResults )
+		{
+			totalNanos += result.nanos();
+			String status = "OK";
+			String details = String.join(", ", result.firedPasses());
+			if( result.hasFailed() )
+			{
+				failed++;
+				status = "FAILED";
+				details = result.failure().get();
+			}
+			else if( result.wasWritten() )
+			{
+				written++;
+				status = "MIGRATED";
+			}
+			for( String pass : result.firedPasses() )
+			{
+				passes.merge(pass, 1, Integer::sum);
+			}
+			pOut.println(String.format("%10.1f ms  %-8s %s %s", result.nanos() / NANOS_PER_MILLI, status, 
+					result.file(), details.isEmpty() ? "" : "[" + details + "]").trim());
+		}
+		pOut.println(String.format("%d files, %d migrated, %d failed, %.1f ms of processing", 
+				pResults.size(), written, failed, totalNanos / NANOS_PER_MILLI));
+		for( Map.Entry<String, Integer> pass : passes.entrySet() )
+		{
+			pOut.println(String.format("%6d %s", pass.getValue(), pass.getKey()));
+		}
+	}
+	
+	/**
+	 * The outcome of processing one file.
+	 */
+	public static final class Result
+	{
+		private final Path aFile;
+		private final Optional<Version> aVersion;
+		private final List<String> aFiredPasses;
+		private final boolean aWritten;
+		private final long aNanos;
+		private final Optional<String> aFailure;
+		
+		private Result(Path pFile, Optional<Version> pVersion, List<String> pFiredPasses, boolean pWritten, 
+				long pNanos, Optional<String> pFailure)
+		{
+			aFile = pFile;
+			aVersion = pVersion;
+			aFiredPasses = pFiredPasses;
+			aWritten = pWritten;
+			aNanos = pNanos;
+			aFailure = pFailure;
+		}
+		
+		/**
+		 * @return The file or directory processed.
+		 */
+		public Path file()
+		{
+			return aFile;
+		}
+		
+		/**
+		 * @return The version of JetUML with which the file was saved, if it could be read.
+		 */
+		public Optional<Version> version()
+		{
+			return aVersion;
+		}
+		
+		/**
+		 * @return The names of the migration passes that changed the diagram.
+		 */
+		public List<String> firedPasses()
+		{
+			return aFiredPasses;
+		}
+		
+		/**
+		 * @return True if the file was saved again with the current version.
+		 */
+		public boolean wasWritten()
+		{
+			return aWritten;
+		}
+		
+		/**
+		 * @return The time taken to process the file, in nanoseconds.
+		 */
+		public long nanos()
+		{
+			return aNanos;
+		}
+		
+		/**
+		 * @return A description of the reason why the file could not be processed, if any.
+		 */
+		public Optional<String> failure()
+		{
+			return aFailure;
+		}
+		
+		/**
+		 * @return True if the file could not be processed.
+		 */
+		public boolean hasFailed()
+		{
+			return aFailure.isPresent();
+		}
+	}
+	
+	/*
+	 * Forks one task for each subdirectory and each diagram file of a directory.
+	 */
+	@SuppressWarnings("serial")
+	private final class DirectoryTask extends RecursiveTask<List<Result>>
+	{
+		private final Path aDirectory;
+		
+		DirectoryTask(Path pDirectory)
+		{
+			aDirectory = pDirectory;
+		}
+		
+		@Override
+		protected List<Result> compute()
+		{
+			List<Path> entries;
+			long start = System.nanoTime();
+			try( Stream<Path> stream = Files.list(aDirectory) )
+			{
+				entries = stream.sorted().collect(Collectors.toList());
+			}
+			catch( IOException | RuntimeException exception )
+			{
+				return List.of(failure(aDirectory, System.nanoTime() - start, exception));
+			}
+			List<RecursiveTask<List<Result>>> tasks = new ArrayList<>();
+			for( Path entry : entries )
+			{
+				if( Files.isDirectory(entry) )
+				{
+					tasks.add(new DirectoryTask(entry));
+				}
+				else if( FileExtensions.isDiagramFile(entry.toFile()) )
+				{
+					tasks.add(new FileTask(entry));
+				}
+			}
+			invokeAll(tasks);
+			List<Result> results = new ArrayList<>();
+			for( RecursiveTask<List<Result>> task : tasks )
+			{
+				results.addAll(task.join());
+			}
+			return results;
+		}
+	}
+	
+	@SuppressWarnings("serial")
+	private final class FileTask extends RecursiveTask<List<Result>>
+	{
+		private final Path aFile;
+		
+		FileTask(Path pFile)
+		{
+			aFile = pFile;
+		}
+		
+		@Override
+		protected List<Result> compute()
+		{
+			return List.of(processFile(aFile));
+		}
+	}
+}
@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static ca.mcgill.cs.jetuml.persistence.BinaryFormat.readByte;
+import static ca.mcgill.cs.jetuml.persistence.BinaryFormat.readSigned;
+import static ca.mcgill.cs.jetuml.persistence.BinaryFormat.readUnsigned;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.mcgill.cs.jetuml.application.Version;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.Property;
+import ca.mcgill.cs.jetuml.geom.Point;
+
+/**
+ * Converts the binary encoding produced by BinaryEncoder to a versioned diagram.
+ */
+public final class BinaryDecoder
+{
+	private static final String PREFIX_NODES = "ca.mcgill.cs.jetuml.diagram.nodes.";
+	private static final String PREFIX_EDGES = "ca.mcgill.cs.jetuml.diagram.edges.";
+	
+	private final CountingInputStream aIn;
+	private final long aLength;
+	private final List<String> aStrings = new ArrayList<>();
+	private final Map<String, Constructor<?>> aConstructors = new HashMap<>();
+	private final Map<String, Object> aValues = new HashMap<>();
+	
+	private BinaryDecoder(InputStream pIn, long pLength)
+	{
+		aIn = new CountingInputStream(pIn);
+		aLength = pLength;
+	}
+	
+	/**
+	 * @param pIn A stream positioned at the start of a binary encoding.
+	 * @param pLength The number of bytes of the encoding.
+	 * @return The decoded diagram.
+	 * @throws IOException If there is a problem reading from pIn.
+	 * @throws DeserializationException If it's not possible to decode the encoding into a valid diagram.
+	 * @pre pIn != null
+	 */
+	public static VersionedDiagram decode(InputStream pIn, long pLength) throws IOException
+	{
+		assert pIn != null;
+		try
+		{
+			return new BinaryDecoder(pIn, pLength).decodeDiagram();
+		}
+		catch( EOFException exception )
+		{
+			throw new DeserializationException("Unexpected end of the binary encoding", exception);
+		}
+		catch( IllegalArgumentException | ClassCastException exception )
+		{
+			throw new DeserializationException("Cannot decode serialized object", exception);
+		}
+	}
+	
+	private VersionedDiagram decodeDiagram() throws IOException
+	{
+		byte[] magic = aIn.readNBytes(BinaryFormat.MAGIC.length);
+		if( !BinaryFormat.isBinary(magic, magic.length) )
+		{
+			throw new DeserializationException("Not a binary diagram encoding");
+		}
+		if( readByte(aIn) != BinaryFormat.FORMAT_VERSION )
+		{
+			throw new DeserializationException("Unsupported binary format version");
+		}
+		Version version = Version.parse(readString());
+		Diagram diagram = new Diagram(DiagramType.fromName(readString()));
+		DeserializationContext context = new DeserializationContext(diagram);
+		
+		int numberOfNodes = readCount();
+		List<Node> nodes = new ArrayList<>();
+		List<int[]> children = new ArrayList<>();
+		for( int i = 0; i < numberOfNodes; i++ )
+		{
+			int id = readUnsigned(aIn);
+			Node node = (Node) instantiate(PREFIX_NODES + readString());
+			node.moveTo(new Point(readSigned(aIn), readSigned(aIn)));
+			readProperties(node);
+			int[] childIds = new int[readCount()];
+			for( int j = 0; j < childIds.length; j++ )
+			{
+				childIds[j] = readUnsigned(aIn);
+			}
+			context.addNode(node, id);
+			nodes.add(node);
+			children.add(childIds);
+		}
+		for( int i = 0; i < nodes.size(); i++ )
+		{
+			for( int childId : children.get(i) )
+			{
+				nodes.get(i).addChild(getNode(context, childId));
+			}
+		}
+		JsonDecoder.restoreRootNodes(context);
+		
+		int numberOfEdges = readCount();
+		for( int i = 0; i < numberOfEdges; i++ )
+		{
+			Edge edge = (Edge) instantiate(PREFIX_EDGES + readString());
+			Node start = getNode(context, readUnsigned(aIn));
+			Node end = getNode(context, readUnsigned(aIn));
+			readProperties(edge);
+			edge.connect(start, end, diagram);
+			diagram.addEdge(edge);
+		}
+		context.attachNodes();
+		return new VersionedDiagram(diagram, version, false);
+	}
+	
+	/*
+	 * Reads the number of elements or bytes that follow. Each of them takes at least 
+	 * one byte, so a count larger than the number of bytes left comes from a corrupted 
+	 * or truncated encoding, and is rejected before anything is allocated for it.
+	 */
+	private int readCount() throws IOException
+	{
+		int count = readUnsigned(aIn);
+		if( count < 0 || count > aLength - aIn.position() )
+		{
+			throw new DeserializationException("Invalid count " + Integer.toUnsignedString(count));
+		}
+		return count;
+	}
+	
+	private static Node getNode(DeserializationContext pContext, int pId)
+	{
+		Node node = pContext.getNode(pId);
+		if( node == null )
+		{
+			throw new DeserializationException("Unknown node identifier " + pId);
+		}
+		return node;
+	}
+	
+	/*
+	 * Creates an instance of pClassName with its default constructor. The constructors
+	 * are looked up only once per type.
+	 */
+	private Object instantiate(String pClassName)
+	{
+		try
+		{
+			Constructor<?> constructor = aConstructors.get(pClassName);
+			if( constructor == null )
+			{
+				constructor = Class.forName(pClassName).getDeclaredConstructor();
+				aConstructors.put(pClassName, constructor);
+			}
+			return constructor.newInstance();
+		}
+		catch( ReflectiveOperationException exception )
+		{
+			throw new DeserializationException("Cannot instantiate serialized object", exception);
+		}
+	}
+	
+	/*
+	 * Reads the encoded properties and assigns them to the properties of pElement.
+	 * As with JsonDecoder, every property of the element must be encoded.
+	 */
+	private void readProperties(DiagramElement pElement) throws IOException
+	{
+		aValues.clear();
+		int numberOfProperties = readCount();
+		for( int i = 0; i < numberOfProperties; i++ )
+		{
+			String name = readString();
+			aValues.put(name, readValue());
+		}
+		for( Property property : pElement.properties() )
+		{
+			Object value = aValues.get(property.name().external());
+			if( value == null )
+			{
+				throw new DeserializationException("Missing property " + property.name().external());
+			}
+			property.set(value);
+		}
+	}
+	
+	private Object readValue() throws IOException
+	{
+		int tag = readByte(aIn);
+		if( tag == BinaryFormat.TAG_STRING )
+		{
+			return readString();
+		}
+		else if( tag == BinaryFormat.TAG_INTEGER )
+		{
+			return readSigned(aIn);
+		}
+		else if( tag == BinaryFormat.TAG_FALSE )
+		{
+			return false;
+		}
+		else if( tag == BinaryFormat.TAG_TRUE )
+		{
+			return true;
+		}
+		throw new DeserializationException("Unknown value tag " + tag);
+	}
+	
+	private String readString() throws IOException
+	{
+		int reference = readUnsigned(aIn);
+		if( reference > 0 )
+		{
+			if( reference > aStrings.size() )
+			{
+				throw new DeserializationException("Unknown string reference " + reference);
+			}
+			return aStrings.get(reference - 1);
+		}
+		int length = readCount();
+		byte[] bytes = aIn.readNBytes(length);
+		if( bytes.length < length )
+		{
+			throw new EOFException();
+		}
+		String string = new String(bytes, StandardCharsets.UTF_8);
+		aStrings.add(string);
+		return string;
+	}
+	
+	/*
+	 * Keeps track of the number of bytes read, to bound the counts read from the stream.
+	 */
+	private static final class CountingInputStream extends FilterInputStream
+	{
+		private long aPosition = 0;
+		
+		CountingInputStream(InputStream pIn)
+		{
+			super(pIn);
+		}
+		
+		long position()
+		{
+			return aPosition;
+		}
+		
+		@Override
+		public int read() throws IOException
+		{
+			int result = super.read();
+			if( result >= 0 )
+			{
+				aPosition++;
+			}
+			return result;
+		}
+		
+		@Override
+		public int read(byte[] pBuffer, int pOffset, int pLength) throws IOException
+		{
+			int result = super.read(pBuffer, pOffset, pLength);
+			if( result > 0 )
+			{
+				aPosition += result;
+			}
+			return result;
+		}
+		
+		@Override
+		public long skip(long pNumber) throws IOException
+		{
+			long result = super.skip(pNumber);
+			aPosition += result;
+			return result;
+		}
+		
+		@Override
+		public boolean markSupported()
+		{
+			return false;
+		}
+	}
+}
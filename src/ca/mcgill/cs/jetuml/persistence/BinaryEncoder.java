@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static ca.mcgill.cs.jetuml.persistence.BinaryFormat.writeSigned;
+import static ca.mcgill.cs.jetuml.persistence.BinaryFormat.writeUnsigned;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.mcgill.cs.jetuml.JetUML;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.Properties;
+import ca.mcgill.cs.jetuml.diagram.Property;
+
+/**
+ * Converts a diagram to the compact binary format described in BinaryFormat. 
+ * The encoding holds the same information as the one produced by JsonEncoder:
+ * * The JetUML version
+ * * The diagram type
+ * * The nodes, each with its identifier, type, position, properties, and children
+ * * The edges, each with its type, start and end nodes, and properties
+ */
+public final class BinaryEncoder
+{
+	private final OutputStream aOut;
+	private final Map<String, Integer> aStrings = new HashMap<>();
+	
+	private BinaryEncoder(OutputStream pOut)
+	{
+		aOut = pOut;
+	}
+	
+	/**
+	 * Writes the binary encoding of pDiagram to pOut.
+	 * 
+	 * @param pDiagram The diagram to serialize.
+	 * @param pOut The stream to write the encoding to.
+	 * @throws IOException If there is a problem writing to pOut.
+	 * @pre pDiagram != null && pOut != null
+	 */
+	public static void encode(Diagram pDiagram, OutputStream pOut) throws IOException
+	{
+		assert pDiagram != null && pOut != null;
+		new BinaryEncoder(pOut).encodeDiagram(pDiagram);
+	}
+	
+	private void encodeDiagram(Diagram pDiagram) throws IOException
+	{
+		aOut.write(BinaryFormat.MAGIC);
+		aOut.write(BinaryFormat.FORMAT_VERSION);
+		writeString(JetUML.VERSION.toString());
+		writeString(pDiagram.getName());
+		
+		SerializationContext context = new SerializationContext(pDiagram);
+		writeUnsigned(aOut, context.size());
+		for( Node node : context )
+		{
+			writeUnsigned(aOut, context.getId(node));
+			writeString(node.getClass().getSimpleName());
+			writeSigned(aOut, node.position().getX());
+			writeSigned(aOut, node.position().getY());
+			writeProperties(node.properties());
+			writeUnsigned(aOut, node.getChildren().size());
+			for( Node child : node.getChildren() )
+			{
+				writeUnsigned(aOut, context.getId(child));
+			}
+		}
+		
+		List<Edge> edges = pDiagram.edges();
+		writeUnsigned(aOut, edges.size());
+		for( Edge edge : edges )
+		{
+			writeString(edge.getClass().getSimpleName());
+			writeUnsigned(aOut, context.getId(edge.getStart()));
+			writeUnsigned(aOut, context.getId(edge.getEnd()));
+			writeProperties(edge.properties());
+		}
+	}
+	
+	/*
+	 * Writes the properties with a value that JsonEncoder would encode, 
+	 * that is, strings, enumerated values, integers, and booleans.
+	 */
+	private void writeProperties(Properties pProperties) throws IOException
+	{
+		List<Property> properties = new ArrayList<>();
+		for( Property property : pProperties )
+		{
+			Object value = property.get();
+			if( value instanceof String || value instanceof Enum || value instanceof Integer || value instanceof Boolean )
+			{
+				properties.add(property);
+			}
+		}
+		writeUnsigned(aOut, properties.size());
+		for( Property property : properties )
+		{
+			writeString(property.name().external());
+			Object value = property.get();
+			if( value instanceof Integer )
+			{
+				aOut.write(BinaryFormat.TAG_INTEGER);
+				writeSigned(aOut, (int) value);
+			}
+			else if( value instanceof Boolean )
+			{
+				aOut.write((boolean) value ? BinaryFormat.TAG_TRUE : BinaryFormat.TAG_FALSE);
+			}
+			else
+			{
+				aOut.write(BinaryFormat.TAG_STRING);
+				writeString(value.toString());
+			}
+		}
+	}
+	
+	private void writeString(String pString) throws IOException
+	{
+		Integer index = aStrings.get(pString);
+		if( index != null )
+		{
+			writeUnsigned(aOut, index + 1);
+			return;
+		}
+		aStrings.put(pString, aStrings.size());
+		byte[] bytes = pString.getBytes(StandardCharsets.UTF_8);
+		writeUnsigned(aOut, 0);
+		writeUnsigned(aOut, bytes.length);
+		aOut.write(bytes);
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Constants and primitive encodings shared by BinaryEncoder and BinaryDecoder.
+ * 
+ * A binary encoding starts with MAGIC followed by FORMAT_VERSION. Integers are
+ * written as variable-length quantities of 7 bits per byte, least significant 
+ * group first, so that the small identifiers that make up most of a diagram take 
+ * a single byte. Signed values, such as coordinates, are first zigzag-encoded 
+ * so that small negative values are also short.
+ * 
+ * Strings are interned: the first occurrence of a string is written as 0 followed 
+ * by its length and UTF-8 bytes, and implicitly receives the next index in the 
+ * string table. Later occurrences are written as their index plus one. Type 
+ * names and property names are thus written only once per file.
+ */
+final class BinaryFormat
+{
+	static final byte[] MAGIC = {'J', 'E', 'T', 'B'};
+	static final int FORMAT_VERSION = 1;
+	
+	static final int TAG_STRING = 0;
+	static final int TAG_INTEGER = 1;
+	static final int TAG_FALSE = 2;
+	static final int TAG_TRUE = 3;
+	
+	private static final int BITS_PER_BYTE = 7;
+	private static final int LOW_BITS = 0x7f;
+	private static final int CONTINUATION = 0x80;
+	
+	private BinaryFormat() {}
+	
+	/**
+	 * @param pBytes The first bytes of a file.
+	 * @param pLength The number of valid bytes in pBytes.
+	 * @return True if pBytes start with the magic number of the binary format.
+	 */
+	static boolean isBinary(byte[] pBytes, int pLength)
+	{
+		if( pLength < MAGIC.length )
+		{
+			return false;
+		}
+		for( int i = 0; i < MAGIC.length; i++ )
+		{
+			if( pBytes[i] != MAGIC[i] )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	static void writeUnsigned(OutputStream pOut, int pValue) throws IOException
+	{
+		int value = pValue;
+		while( (value & ~LOW_BITS) != 0 )
+		{
+			pOut.write((value & LOW_BITS) | CONTINUATION);
+			value >>>= BITS_PER_BYTE;
+		}
+		pOut.write(value);
+	}
+	
+	static void writeSigned(OutputStream pOut, int pValue) throws IOException
+	{
+		writeUnsigned(pOut, (pValue << 1) ^ (pValue >> (Integer.SIZE - 1)));
+	}
+	
+	/*
+	 * Reads an integer of at most 32 bits. The last of the five bytes that a 32-bit 
+	 * integer can take only holds its four high bits: any other bit set in this byte
+	 * indicates a corrupted encoding.
+	 */
+	static int readUnsigned(InputStream pIn) throws IOException
+	{
+		int result = 0;
+		for( int shift = 0; shift < Integer.SIZE; shift += BITS_PER_BYTE )
+		{
+			int next = readByte(pIn);
+			if( shift + BITS_PER_BYTE > Integer.SIZE && next >>> (Integer.SIZE - shift) != 0 )
+			{
+				throw new DeserializationException("Integer overflow");
+			}
+			result |= (next & LOW_BITS) << shift;
+			if( (next & CONTINUATION) == 0 )
+			{
+				return result;
+			}
+		}
+		throw new DeserializationException("Malformed integer");
+	}
+	
+	static int readSigned(InputStream pIn) throws IOException
+	{
+		int value = readUnsigned(pIn);
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+	static int readByte(InputStream pIn) throws IOException
+	{
+		int next = pIn.read();
+		if( next < 0 )
+		{
+			throw new EOFException();
+		}
+		return next;
+	}
+}
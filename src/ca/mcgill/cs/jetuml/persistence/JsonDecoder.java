@@ -76,29 +76,38 @@ public final class JsonDecoder
 		JSONArray nodes = pObject.getJSONArray("nodes");
 		for( int i = 0; i < nodes.length(); i++ )
 		{
-			try
-			{
-				JSONObject object = nodes.getJSONObject(i);
-				Class<?> nodeClass = Class.forName(PREFIX_NODES + object.getString("type"));
-				Node node = (Node) nodeClass.getDeclaredConstructor().newInstance();
-				node.moveTo(new Point(object.getInt("x"), object.getInt("y")));
-				for( Property property : node.properties() )
-				{
-					property.set(object.get(property.name().external()));
-				}
-				pContext.addNode(node, object.getInt("id"));
-			}
-			catch( ReflectiveOperationException exception )
+			JSONObject object = nodes.getJSONObject(i);
+			pContext.addNode(decodeNode(object), object.getInt("id"));
+		}
+	}
+	
+	/*
+	 * Creates the node encoded by pObject, without its children.
+	 * throws Deserialization Exception
+	 */
+	static Node decodeNode(JSONObject pObject)
+	{
+		try
+		{
+			Class<?> nodeClass = Class.forName(PREFIX_NODES + pObject.getString("type"));
+			Node node = (Node) nodeClass.getDeclaredConstructor().newInstance();
+			node.moveTo(new Point(pObject.getInt("x"), pObject.getInt("y")));
+			for( Property property : node.properties() )
 			{
-				throw new DeserializationException("Cannot instantiate serialized object", exception);
+				property.set(pObject.get(property.name().external()));
 			}
+			return node;
+		}
+		catch( ReflectiveOperationException exception )
+		{
+			throw new DeserializationException("Cannot instantiate serialized object", exception);
 		}
 	}
 	
 	/* 
 	 * Discovers the root nodes and stores them in the diagram.
 	 */
-	private static void restoreRootNodes(DeserializationContext pContext)
+	static void restoreRootNodes(DeserializationContext pContext)
 	{
 		for( Node node : pContext )
 		{
@@ -141,23 +150,32 @@ public final class JsonDecoder
 		JSONArray edges = pObject.getJSONArray("edges");
 		for( int i = 0; i < edges.length(); i++ )
 		{
-			try
-			{
-				JSONObject object = edges.getJSONObject(i);
-				Class<?> edgeClass = Class.forName(PREFIX_EDGES + object.getString("type"));
-				Edge edge = (Edge) edgeClass.getDeclaredConstructor().newInstance();
-				
-				for( Property property : edge.properties())
-				{
-					property.set(object.get(property.name().external()));
-				}
-				edge.connect(pContext.getNode(object.getInt("start")), pContext.getNode(object.getInt("end")), pContext.pDiagram());
-				pContext.pDiagram().addEdge(edge);
-			}
-			catch( ReflectiveOperationException exception )
+			decodeEdge(pContext, edges.getJSONObject(i));
+		}
+	}
+	
+	/*
+	 * Creates the edge encoded by pObject and adds it to the diagram of pContext.
+	 * Assumes the context has been initialized with all the nodes.
+	 * throws Deserialization Exception
+	 */
+	static void decodeEdge(DeserializationContext pContext, JSONObject pObject)
+	{
+		try
+		{
+			Class<?> edgeClass = Class.forName(PREFIX_EDGES + pObject.getString("type"));
+			Edge edge = (Edge) edgeClass.getDeclaredConstructor().newInstance();
+			
+			for( Property property : edge.properties())
 			{
-				throw new DeserializationException("Cannot instantiate serialized object", exception);
+				property.set(pObject.get(property.name().external()));
 			}
+			edge.connect(pContext.getNode(pObject.getInt("start")), pContext.getNode(pObject.getInt("end")), pContext.pDiagram());
+			pContext.pDiagram().addEdge(edge);
+		}
+		catch( ReflectiveOperationException exception )
+		{
+			throw new DeserializationException("Cannot instantiate serialized object", exception);
 		}
 	}
 }
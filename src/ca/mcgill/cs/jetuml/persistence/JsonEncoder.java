@@ -20,7 +20,11 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.persistence;
 
+import java.io.IOException;
+import java.io.Writer;
+
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import ca.mcgill.cs.jetuml.JetUML;
@@ -58,9 +62,75 @@ public final class JsonEncoder
 		return object;
 	}
 	
+	/**
+	 * Writes the JSON encoding of a diagram to pWriter, one element at a 
+	 * time, without building the JSON object of the whole diagram. The text
+	 * written encodes the same object as encode(pDiagram). The version is written
+	 * first so that StreamingJsonDecoder can decode each element as soon as it is read.
+	 * 
+	 * @param pDiagram The diagram to serialize.
+	 * @param pWriter The writer to write the encoding to.
+	 * @throws IOException If there is a problem writing to pWriter.
+	 * @pre pDiagram != null && pWriter != null
+	 */
+	public static void encode(Diagram pDiagram, Writer pWriter) throws IOException
+	{
+		assert pDiagram != null && pWriter != null;
+		
+		SerializationContext context = new SerializationContext(pDiagram);
+		try
+		{
+			pWriter.write("{\"version\":");
+			pWriter.write(JSONObject.quote(JetUML.VERSION.toString()));
+			pWriter.write(",\"diagram\":");
+			pWriter.write(JSONObject.quote(pDiagram.getName()));
+			pWriter.write(",\"nodes\":");
+			writeNodes(context, pWriter);
+			pWriter.write(",\"edges\":");
+			writeEdges(context, pWriter);
+			pWriter.write('}');
+		}
+		catch(JSONException exception)
+		{
+			throw new IOException("Cannot write the diagram", exception);
+		}
+	}
+	
+	private static void writeNodes(SerializationContext pContext, Writer pWriter) throws IOException
+	{
+		pWriter.write('[');
+		boolean first = true;
+		for( Node node : pContext ) 
+		{
+			if( !first )
+			{
+				pWriter.write(',');
+			}
+			first = false;
+			encodeNode(node, pContext).write(pWriter, 0, 0);
+		}
+		pWriter.write(']');
+	}
+	
+	private static void writeEdges(AbstractContext pContext, Writer pWriter) throws IOException
+	{
+		pWriter.write('[');
+		boolean first = true;
+		for( Edge edge : pContext.pDiagram().edges() ) 
+		{
+			if( !first )
+			{
+				pWriter.write(',');
+			}
+			first = false;
+			encodeEdge(edge, pContext).write(pWriter, 0, 0);
+		}
+		pWriter.write(']');
+	}
+	
 	private static JSONArray encodeNodes(SerializationContext pContext)
 	{
-		JSONArray nodes = new JSONArray();
+		JSONArray nodes = new JSONArray(pContext.size());
 		for( Node node : pContext ) 
 		{
 			nodes.put(encodeNode(node, pContext));
@@ -68,7 +138,10 @@ public final class JsonEncoder
 		return nodes;
 	}
 	
-	private static JSONObject encodeNode(Node pNode, SerializationContext pContext)
+	/*
+	 * Encodes pNode and the identifiers of its children, which must all be in pContext.
+	 */
+	static JSONObject encodeNode(Node pNode, AbstractContext pContext)
 	{
 		JSONObject object = toJSONObject(pNode.properties());
 		object.put("id", pContext.getId(pNode));
@@ -82,28 +155,32 @@ public final class JsonEncoder
 		return object;
 	}
 	
-	private static JSONArray encodeChildren(Node pNode, SerializationContext pContext)
+	private static JSONArray encodeChildren(Node pNode, AbstractContext pContext)
 	{
-		JSONArray children = new JSONArray();
+		JSONArray children = new JSONArray(pNode.getChildren().size());
 		pNode.getChildren().forEach(child -> children.put(pContext.getId(child)));
 		return children;
 	}
 	
 	private static JSONArray encodeEdges(AbstractContext pContext)
 	{
-		JSONArray edges = new JSONArray();
+		JSONArray edges = new JSONArray(pContext.pDiagram().edges().size());
 		for( Edge edge : pContext.pDiagram().edges() ) 
 		{
-			JSONObject object = toJSONObject(edge.properties());
-			object.put("type", edge.getClass().getSimpleName());
-			object.put("start", pContext.getId(edge.getStart()));
-			object.put("end", pContext.getId(edge.getEnd()));
-			
-			edges.put(object);
+			edges.put(encodeEdge(edge, pContext));
 		}
 		return edges;
 	}
 	
+	static JSONObject encodeEdge(Edge pEdge, AbstractContext pContext)
+	{
+		JSONObject object = toJSONObject(pEdge.properties());
+		object.put("type", pEdge.getClass().getSimpleName());
+		object.put("start", pContext.getId(pEdge.getStart()));
+		object.put("end", pContext.getId(pEdge.getEnd()));
+		return object;
+	}
+	
 	private static JSONObject toJSONObject(Properties pProperties)
 	{
 		JSONObject object = new JSONObject();
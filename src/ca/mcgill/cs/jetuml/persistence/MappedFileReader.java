@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A reader for a UTF-8 file that is mapped into memory. The bytes of the file 
+ * are decoded directly into the array passed to read, so the content of the 
+ * file is never copied into the heap as a whole, neither as bytes nor as a string.
+ * 
+ * Like ProgressInputStream, the reader reports the fraction of the file read 
+ * so far, and reading fails with an InterruptedIOException as soon as the 
+ * reading thread is interrupted.
+ */
+final class MappedFileReader extends Reader
+{
+	/*
+	 * On Windows, a file cannot be replaced as long as it is mapped, and a mapping
+	 * is only released once it is garbage-collected. Saving a diagram to the file
+	 * it was read from would then fail.
+	 */
+	private static final boolean MAPPING_RELEASES_FILE = !System.getProperty("os.name", "").startsWith("Windows");
+	
+	private final ByteBuffer aBytes;
+	private final CharsetDecoder aDecoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final DoubleConsumer aProgress;
+	private final CharBuffer aPending = CharBuffer.allocate(2);
+	private boolean aFlushed = false;
+	
+	/**
+	 * @param pFile The file to read.
+	 * @param pProgress Receives the fraction of pFile read, between 0 and 1.
+	 * @throws IOException If pFile cannot be mapped.
+	 * @pre canMap(pFile) && pProgress != null
+	 */
+	MappedFileReader(File pFile, DoubleConsumer pProgress) throws IOException
+	{
+		assert canMap(pFile) && pProgress != null;
+		try( FileChannel channel = FileChannel.open(pFile.toPath(), StandardOpenOption.READ) )
+		{
+			// The mapping remains valid once the channel is closed.
+			aBytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		aProgress = pProgress;
+		aPending.flip();
+	}
+	
+	/**
+	 * @param pFile A file.
+	 * @return True if pFile can be read with a MappedFileReader.
+	 * @pre pFile != null
+	 */
+	static boolean canMap(File pFile)
+	{
+		assert pFile != null;
+		return MAPPING_RELEASES_FILE && pFile.length() <= Integer.MAX_VALUE;
+	}
+	
+	/**
+	 * @param pPrefix Some bytes.
+	 * @return True if the file starts with pPrefix.
+	 */
+	boolean startsWith(byte[] pPrefix)
+	{
+		if( aBytes.limit() < pPrefix.length )
+		{
+			return false;
+		}
+		for( int i = 0; i < pPrefix.length; i++ )
+		{
+			if( aBytes.get(i) != pPrefix[i] )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public int read(char[] pChars, int pOffset, int pLength) throws IOException
+	{
+		if( Thread.currentThread().isInterrupted() )
+		{
+			throw new InterruptedIOException();
+		}
+		if( pLength == 0 )
+		{
+			return 0;
+		}
+		CharBuffer out = CharBuffer.wrap(pChars, pOffset, pLength);
+		while( aPending.hasRemaining() && out.hasRemaining() )
+		{
+			out.put(aPending.get());
+		}
+		if( out.hasRemaining() && !aFlushed )
+		{
+			decode(out);
+		}
+		int read = out.position() - pOffset;
+		if( read == 0 )
+		{
+			return -1;
+		}
+		if( aBytes.limit() > 0 )
+		{
+			aProgress.accept((double) aBytes.position() / aBytes.limit());
+		}
+		return read;
+	}
+	
+	/*
+	 * Decodes as many characters as fit in pOut. If pOut is too small for the 
+	 * next character, which happens for surrogate pairs, the character is 
+	 * decoded in aPending instead, and its first half is moved to pOut.
+	 */
+	private void decode(CharBuffer pOut) throws IOException
+	{
+		int start = pOut.position();
+		CoderResult result = aDecoder.decode(aBytes, pOut, true);
+		if( result.isOverflow() && pOut.position() == start )
+		{
+			aPending.clear();
+			result = aDecoder.decode(aBytes, aPending, true);
+			aPending.flip();
+			pOut.put(aPending.get());
+		}
+		if( result.isError() )
+		{
+			result.throwException();
+		}
+		if( !aBytes.hasRemaining() && !aFlushed && pOut.hasRemaining() )
+		{
+			aDecoder.flush(pOut);
+			aFlushed = true;
+		}
+	}
+	
+	@Override
+	public void close()
+	{
+		// There is no way to release a mapping other than letting it be garbage-collected.
+	}
+}
@@ -0,0 +1,801 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramChangeObserver;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+
+/**
+ * An append-only record of the changes made to a diagram since it was last 
+ * saved, kept in a file next to the file of the diagram. If the application 
+ * stops before the diagram is saved, the diagram can be recovered from the
+ * journal with recover(File).
+ * 
+ * The journal is a sequence of JSON objects, one per line. The first object is 
+ * a checkpoint. When the file of the diagram holds the diagram as it was when the 
+ * journal started, for example because the diagram was just opened or saved, the 
+ * checkpoint only refers to this file, which is read again when the journal is 
+ * replayed. Otherwise, the checkpoint encodes the whole diagram. Every following 
+ * object only encodes the elements that changed during one operation, with the same
+ * encoding as JsonEncoder but with identifiers that remain valid from one object to 
+ * the next. The identifiers are assigned in the same order for the diagram and
+ * for the diagram read from its file.
+ * When root nodes or edges are added or removed, the object also lists, in order, 
+ * the identifiers of the elements that were removed, and those of the elements that 
+ * were added with the indices at which they were inserted. The lists of root nodes 
+ * and edges are rebuilt from these changes when the journal is replayed, so that 
+ * the size of an object only depends on the size of the operation.
+ * 
+ * The checkpoint is written to a temporary file that then replaces the journal,
+ * so that a failure leaves the previous journal intact. The journal is discarded 
+ * when the diagram is saved. If the journal cannot be written, it stops recording 
+ * changes: it is a best-effort safeguard that must not prevent editing the diagram.
+ */
+public final class OperationJournal implements DiagramChangeObserver
+{
+	private static final String EXTENSION = ".journal";
+	private static final System.Logger LOGGER = System.getLogger(OperationJournal.class.getName());
+	
+	private static final String KEY_CHECKPOINT = "checkpoint";
+	private static final String KEY_DIAGRAM = "diagram";
+	private static final String KEY_BASE = "base";
+	private static final String KEY_MODIFIED = "modified";
+	private static final String KEY_LENGTH = "length";
+	private static final String KEY_NODES = "nodes";
+	private static final String KEY_EDGES = "edges";
+	private static final String KEY_ID = "id";
+	private static final String KEY_ROOT_NODES = "rootNodes";
+	private static final String KEY_EDGE_ORDER = "edgeOrder";
+	private static final String KEY_ROOT_NODE_CHANGES = "rootNodeChanges";
+	private static final String KEY_EDGE_CHANGES = "edgeChanges";
+	private static final String KEY_ADDED = "added";
+	private static final String KEY_INDICES = "indices";
+	private static final String KEY_REMOVED = "removed";
+	
+	private final Diagram aDiagram;
+	private final File aDiagramFile;
+	private final File aFile;
+	private JournalContext aContext;
+	private Map<Edge, Integer> aEdgeIds;
+	// The last modification time and size of the diagram file, if it is the base of the journal
+	private Optional<JSONObject> aBase = Optional.empty();
+	private final Set<DiagramElement> aChangedElements = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final List<ListChange<Node>> aRootNodeChanges = new ArrayList<>();
+	private final List<ListChange<Edge>> aEdgeChanges = new ArrayList<>();
+	private Optional<Writer> aWriter = Optional.empty();
+	private boolean aEnabled = true;
+	
+	/**
+	 * Creates a journal for pDiagram, which is saved in pDiagramFile, and starts
+	 * observing the changes to pDiagram. The journal file is only created once the 
+	 * first operation is recorded.
+	 * 
+	 * @param pDiagram The diagram to record the changes of.
+	 * @param pDiagramFile The file in which pDiagram is saved.
+	 * @param pSaved True if pDiagramFile holds pDiagram as it is now.
+	 * @pre pDiagram != null && pDiagramFile != null
+	 */
+	public OperationJournal(Diagram pDiagram, File pDiagramFile, boolean pSaved)
+	{
+		assert pDiagram != null && pDiagramFile != null;
+		aDiagram = pDiagram;
+		aDiagramFile = pDiagramFile.getAbsoluteFile();
+		aFile = journalFor(pDiagramFile);
+		aDiagram.addChangeObserver(this);
+		if( pSaved )
+		{
+			useFileAsBase();
+		}
+	}
+	
+	/**
+	 * @param pDiagramFile The file of a diagram.
+	 * @return The file of the journal of the diagram in pDiagramFile.
+	 * @pre pDiagramFile != null
+	 */
+	public static File journalFor(File pDiagramFile)
+	{
+		assert pDiagramFile != null;
+		return new File(pDiagramFile.getAbsolutePath() + EXTENSION);
+	}
+	
+	@Override
+	public void elementChanged(DiagramElement pElement)
+	{
+		aChangedElements.add(pElement);
+	}
+	
+	@Override
+	public void rootNodesAdded(int[] pIndices, List<Node> pNodes)
+	{
+		aRootNodeChanges.add(new ListChange<>(pIndices, pNodes));
+	}
+	
+	@Override
+	public void rootNodesRemoved(Collection<Node> pNodes)
+	{
+		aRootNodeChanges.add(new ListChange<>(null, pNodes));
+	}
+	
+	@Override
+	public void edgesAdded(int[] pIndices, List<Edge> pEdges)
+	{
+		aEdgeChanges.add(new ListChange<>(pIndices, pEdges));
+	}
+	
+	@Override
+	public void edgesRemoved(Collection<Edge> pEdges)
+	{
+		aEdgeChanges.add(new ListChange<>(null, pEdges));
+	}
+	
+	/**
+	 * Appends to the journal the changes made to the diagram since the previous
+	 * call to this method. Rewrites the journal as a checkpoint if it is new or
+	 * if it holds too many records.
+	 */
+	public void recordOperation()
+	{
+		if( !aEnabled || (aChangedElements.isEmpty() && aRootNodeChanges.isEmpty() && aEdgeChanges.isEmpty()) )
+		{
+			return;
+		}
+		try
+		{
+			if( aWriter.isPresent() )
+			{
+				append(encodeChanges());
+			}
+			else if( aBase.isPresent() )
+			{
+				start(baseReference(aBase.get()));
+				append(encodeChanges());
+			}
+			else
+			{
+				writeCheckpoint();
+			}
+		}
+		catch( IOException | JSONException exception )
+		{
+			stop(exception);
+		}
+		clearChanges();
+	}
+	
+	/**
+	 * Discards the content of the journal because the diagram was saved
+	 * to its file, which becomes the checkpoint of the next journal. 
+	 */
+	public void discard()
+	{
+		closeWriter();
+		aFile.delete();
+		clearChanges();
+		useFileAsBase();
+	}
+	
+	/**
+	 * Signals that the file of the diagram was replaced by a version of the 
+	 * diagram that is not the current one, for example because the diagram 
+	 * was changed while it was saved. If the journal refers to the previous 
+	 * content of the file, it is replaced with a checkpoint of the whole diagram.
+	 */
+	public void fileReplaced()
+	{
+		boolean refersToFile = aBase.isPresent() && aWriter.isPresent();
+		aBase = Optional.empty();
+		if( !aEnabled || !refersToFile )
+		{
+			return;
+		}
+		try
+		{
+			writeCheckpoint();
+		}
+		catch( IOException | JSONException exception )
+		{
+			stop(exception);
+		}
+		clearChanges();
+	}
+	
+	/**
+	 * Stops observing the diagram and deletes the journal.
+	 */
+	public void close()
+	{
+		aDiagram.removeChangeObserver(this);
+		closeWriter();
+		aFile.delete();
+		clearChanges();
+		aEnabled = false;
+	}
+	
+	private void stop(Exception pException)
+	{
+		LOGGER.log(Level.WARNING, "Stopped recording the changes to " + aDiagramFile + " in " + aFile, pException);
+		aEnabled = false;
+		aDiagram.removeChangeObserver(this);
+		closeWriter();
+	}
+	
+	private void clearChanges()
+	{
+		aChangedElements.clear();
+		aRootNodeChanges.clear();
+		aEdgeChanges.clear();
+	}
+	
+	private void closeWriter()
+	{
+		aWriter.ifPresent(writer -> 
+		{
+			try
+			{
+				writer.close();
+			}
+			catch( IOException exception )
+			{
+				// The journal is discarded or abandoned
+			}
+		});
+		aWriter = Optional.empty();
+	}
+	
+	/*
+	 * Assigns identifiers to the elements of the diagram, as they will be assigned to
+	 * the diagram read from its file, and remembers the state of the file. Only the 
+	 * identifiers are computed: nothing is encoded or written.
+	 */
+	private void useFileAsBase()
+	{
+		aContext = new JournalContext(aDiagram);
+		aEdgeIds = new IdentityHashMap<>();
+		registerAll(aDiagram, aContext, aEdgeIds);
+		aBase = Optional.empty();
+		if( aDiagramFile.isFile() )
+		{
+			JSONObject base = new JSONObject();
+			base.put(KEY_MODIFIED, Long.toString(aDiagramFile.lastModified()));
+			base.put(KEY_LENGTH, Long.toString(aDiagramFile.length()));
+			aBase = Optional.of(base);
+		}
+	}
+	
+	private JSONObject baseReference(JSONObject pBase)
+	{
+		JSONObject checkpoint = new JSONObject();
+		checkpoint.put(KEY_CHECKPOINT, true);
+		checkpoint.put(KEY_DIAGRAM, aDiagram.getName());
+		checkpoint.put(KEY_BASE, pBase);
+		return checkpoint;
+	}
+	
+	/*
+	 * Replaces the journal with a checkpoint of the whole diagram, with new identifiers.
+	 */
+	private void writeCheckpoint() throws IOException
+	{
+		closeWriter();
+		aContext = new JournalContext(aDiagram);
+		aEdgeIds = new IdentityHashMap<>();
+		start(checkpointOf(aDiagram, aContext, aEdgeIds));
+	}
+	
+	/*
+	 * Replaces the journal with a new one that holds pCheckpoint, and opens it 
+	 * for appending. The checkpoint is written to a temporary file first, so that 
+	 * a failure leaves the previous journal intact.
+	 */
+	private void start(JSONObject pCheckpoint) throws IOException
+	{
+		Path target = aFile.getAbsoluteFile().toPath();
+		Path temporary = PersistenceService.createTemporaryFile(target);
+		try
+		{
+			try( Writer writer = new BufferedWriter(
+					new OutputStreamWriter(Files.newOutputStream(temporary), StandardCharsets.UTF_8)))
+			{
+				pCheckpoint.write(writer, 0, 0);
+				writer.write(System.lineSeparator());
+			}
+			PersistenceService.move(temporary, target);
+		}
+		finally
+		{
+			Files.deleteIfExists(temporary);
+		}
+		aWriter = Optional.of(new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(aFile, true), StandardCharsets.UTF_8)));
+	}
+	
+	/*
+	 * Encodes the whole of pDiagram, assigning identifiers to its elements in pContext 
+	 * and pEdgeIds in the order of registerAll.
+	 */
+	private static JSONObject checkpointOf(Diagram pDiagram, JournalContext pContext, Map<Edge, Integer> pEdgeIds)
+	{
+		List<Node> nodes = registerAll(pDiagram, pContext, pEdgeIds);
+		JSONObject checkpoint = new JSONObject();
+		checkpoint.put(KEY_CHECKPOINT, true);
+		checkpoint.put(KEY_DIAGRAM, pDiagram.getName());
+		checkpoint.put(KEY_NODES, encodeNodes(nodes, pContext));
+		checkpoint.put(KEY_EDGES, encodeEdges(pDiagram.edges(), pContext, pEdgeIds));
+		JSONArray rootNodeIds = new JSONArray();
+		pDiagram.rootNodes().forEach(node -> rootNodeIds.put(pContext.getId(node)));
+		checkpoint.put(KEY_ROOT_NODES, rootNodeIds);
+		JSONArray edgeIds = new JSONArray();
+		pDiagram.edges().forEach(edge -> edgeIds.put(edgeId(edge, pEdgeIds)));
+		checkpoint.put(KEY_EDGE_ORDER, edgeIds);
+		return checkpoint;
+	}
+	
+	/*
+	 * Assigns identifiers to the nodes of pDiagram, depth first from the root nodes, 
+	 * and then to its edges, in order. Returns the nodes in the order of their identifiers.
+	 */
+	private static List<Node> registerAll(Diagram pDiagram, JournalContext pContext, Map<Edge, Integer> pEdgeIds)
+	{
+		List<Node> nodes = new ArrayList<>();
+		pDiagram.rootNodes().forEach(node -> register(node, pContext, nodes));
+		pDiagram.edges().forEach(edge -> edgeId(edge, pEdgeIds));
+		return nodes;
+	}
+	
+	private JSONObject encodeChanges()
+	{
+		// Nodes seen for the first time are encoded with their new descendants
+		Set<Node> nodesToEncode = new LinkedHashSet<>();
+		List<Edge> edgesToEncode = new ArrayList<>();
+		for( DiagramElement element : aChangedElements )
+		{
+			if( element instanceof Node )
+			{
+				Node node = (Node) element;
+				if( aContext.contains(node) )
+				{
+					nodesToEncode.add(node);
+				}
+				register(node, aContext, nodesToEncode);
+			}
+			else if( element instanceof Edge )
+			{
+				edgesToEncode.add((Edge) element);
+			}
+		}
+		
+		JSONArray rootNodeChanges = new JSONArray();
+		for( ListChange<Node> change : aRootNodeChanges )
+		{
+			change.aElements.forEach(node -> register(node, aContext, nodesToEncode));
+			rootNodeChanges.put(change.encode(aContext::getId));
+		}
+		JSONArray edgeChanges = new JSONArray();
+		for( ListChange<Edge> change : aEdgeChanges )
+		{
+			if( change.isAddition() )
+			{
+				change.aElements.stream()
+					.filter(edge -> !aEdgeIds.containsKey(edge) && !aChangedElements.contains(edge))
+					.forEach(edgesToEncode::add);
+			}
+			edgeChanges.put(change.encode(edge -> edgeId(edge, aEdgeIds)));
+		}
+		for( Edge edge : edgesToEncode )
+		{
+			register(edge.getStart(), aContext, nodesToEncode);
+			register(edge.getEnd(), aContext, nodesToEncode);
+		}
+		
+		JSONObject record = new JSONObject();
+		record.put(KEY_NODES, encodeNodes(nodesToEncode, aContext));
+		record.put(KEY_EDGES, encodeEdges(edgesToEncode, aContext, aEdgeIds));
+		if( !aRootNodeChanges.isEmpty() )
+		{
+			record.put(KEY_ROOT_NODE_CHANGES, rootNodeChanges);
+		}
+		if( !aEdgeChanges.isEmpty() )
+		{
+			record.put(KEY_EDGE_CHANGES, edgeChanges);
+		}
+		return record;
+	}
+	
+	/*
+	 * Assigns an identifier to pNode and its descendants that do not have one yet, 
+	 * and adds these nodes to pNewNodes. The descendants of a new node are registered 
+	 * even if the node itself was already registered, since its children can be new.
+	 */
+	private static void register(Node pNode, JournalContext pContext, Collection<Node> pNewNodes)
+	{
+		if( !pContext.contains(pNode) )
+		{
+			pContext.add(pNode);
+			pNewNodes.add(pNode);
+		}
+		pNode.getChildren().forEach(child -> register(child, pContext, pNewNodes));
+	}
+	
+	private static JSONArray encodeNodes(Collection<Node> pNodes, JournalContext pContext)
+	{
+		JSONArray nodes = new JSONArray();
+		for( Node node : pNodes )
+		{
+			nodes.put(JsonEncoder.encodeNode(node, pContext));
+		}
+		return nodes;
+	}
+	
+	private static JSONArray encodeEdges(List<Edge> pEdges, JournalContext pContext, Map<Edge, Integer> pEdgeIds)
+	{
+		JSONArray edges = new JSONArray();
+		for( Edge edge : pEdges )
+		{
+			JSONObject object = JsonEncoder.encodeEdge(edge, pContext);
+			object.put(KEY_ID, edgeId(edge, pEdgeIds));
+			edges.put(object);
+		}
+		return edges;
+	}
+	
+	private static int edgeId(Edge pEdge, Map<Edge, Integer> pEdgeIds)
+	{
+		Integer id = pEdgeIds.get(pEdge);
+		if( id == null )
+		{
+			id = pEdgeIds.size();
+			pEdgeIds.put(pEdge, id);
+		}
+		return id;
+	}
+	
+	private void append(JSONObject pRecord) throws IOException
+	{
+		assert aWriter.isPresent();
+		Writer writer = aWriter.get();
+		pRecord.write(writer, 0, 0);
+		writer.write(System.lineSeparator());
+		writer.flush();
+	}
+	
+	/**
+	 * Recovers the diagram recorded in the journal of pDiagramFile, as it was after 
+	 * the last operation completely written to the journal.
+	 * 
+	 * @param pDiagramFile The file of a diagram.
+	 * @return The recovered diagram, or empty if the diagram has no journal.
+	 * @throws IOException If the journal cannot be read.
+	 * @throws DeserializationException If the journal does not start with a valid checkpoint,
+	 *     or if it refers to a file of the diagram that changed since.
+	 * @pre pDiagramFile != null
+	 */
+	public static Optional<Diagram> recover(File pDiagramFile) throws IOException
+	{
+		assert pDiagramFile != null;
+		File journal = journalFor(pDiagramFile);
+		if( !journal.exists() )
+		{
+			return Optional.empty();
+		}
+		Replay replay = new Replay();
+		try( BufferedReader in = new BufferedReader(
+				new InputStreamReader(new FileInputStream(journal), StandardCharsets.UTF_8)))
+		{
+			String line = in.readLine();
+			while( line != null )
+			{
+				JSONObject record;
+				try
+				{
+					record = new JSONObject(line);
+				}
+				catch( JSONException exception )
+				{
+					// The last record was not completely written
+					break;
+				}
+				if( record.has(KEY_BASE) )
+				{
+					record = readBase(pDiagramFile, record.get(KEY_BASE));
+				}
+				replay.apply(record);
+				line = in.readLine();
+			}
+		}
+		if( !replay.hasCheckpoint() )
+		{
+			return Optional.empty();
+		}
+		return Optional.of(JsonDecoder.decode(replay.toJSONObject()));
+	}
+	
+	/*
+	 * Reads the file of the diagram that serves as the checkpoint of the journal, 
+	 * and encodes it with the identifiers it had when the journal was recorded.
+	 */
+	private static JSONObject readBase(File pDiagramFile, Object pBase) throws IOException
+	{
+		if( !(pBase instanceof JSONObject) || !((JSONObject) pBase).has(KEY_MODIFIED) || !((JSONObject) pBase).has(KEY_LENGTH) )
+		{
+			throw new DeserializationException("The journal refers to its checkpoint incorrectly");
+		}
+		JSONObject base = (JSONObject) pBase;
+		if( !base.getString(KEY_MODIFIED).equals(Long.toString(pDiagramFile.lastModified())) || 
+				!base.getString(KEY_LENGTH).equals(Long.toString(pDiagramFile.length())) )
+		{
+			throw new DeserializationException("The file of the diagram changed after the journal was started");
+		}
+		Diagram diagram = PersistenceService.read(pDiagramFile).diagram();
+		return checkpointOf(diagram, new JournalContext(diagram), new IdentityHashMap<>());
+	}
+	
+	/*
+	 * The state of the diagram while the journal is replayed: the latest encoding 
+	 * of every node and edge, and the identifiers of the root nodes and edges.
+	 */
+	private static final class Replay
+	{
+		private String aDiagramName;
+		private final Map<Integer, JSONObject> aNodes = new HashMap<>();
+		private final Map<Integer, JSONObject> aEdges = new HashMap<>();
+		private List<Integer> aRootNodes = new ArrayList<>();
+		private List<Integer> aEdgeOrder = new ArrayList<>();
+		
+		boolean hasCheckpoint()
+		{
+			return aDiagramName != null;
+		}
+		
+		void apply(JSONObject pRecord)
+		{
+			if( pRecord.has(KEY_CHECKPOINT) )
+			{
+				aDiagramName = pRecord.getString(KEY_DIAGRAM);
+				aNodes.clear();
+				aEdges.clear();
+			}
+			else if( !hasCheckpoint() )
+			{
+				throw new DeserializationException("The journal does not start with a checkpoint");
+			}
+			JSONArray nodes = pRecord.getJSONArray(KEY_NODES);
+			for( int i = 0; i < nodes.length(); i++ )
+			{
+				aNodes.put(nodes.getJSONObject(i).getInt(KEY_ID), nodes.getJSONObject(i));
+			}
+			JSONArray edges = pRecord.getJSONArray(KEY_EDGES);
+			for( int i = 0; i < edges.length(); i++ )
+			{
+				aEdges.put(edges.getJSONObject(i).getInt(KEY_ID), edges.getJSONObject(i));
+			}
+			if( pRecord.has(KEY_ROOT_NODES) )
+			{
+				aRootNodes = toList(pRecord.getJSONArray(KEY_ROOT_NODES));
+			}
+			if( pRecord.has(KEY_EDGE_ORDER) )
+			{
+				aEdgeOrder = toList(pRecord.getJSONArray(KEY_EDGE_ORDER));
+			}
+			if( pRecord.has(KEY_ROOT_NODE_CHANGES) )
+			{
+				aRootNodes = applyChanges(aRootNodes, pRecord.getJSONArray(KEY_ROOT_NODE_CHANGES));
+			}
+			if( pRecord.has(KEY_EDGE_CHANGES) )
+			{
+				aEdgeOrder = applyChanges(aEdgeOrder, pRecord.getJSONArray(KEY_EDGE_CHANGES));
+			}
+		}
+		
+		private static List<Integer> toList(JSONArray pIds)
+		{
+			List<Integer> ids = new ArrayList<>(pIds.length());
+			for( int i = 0; i < pIds.length(); i++ )
+			{
+				ids.add(pIds.getInt(i));
+			}
+			return ids;
+		}
+		
+		private static List<Integer> applyChanges(List<Integer> pIds, JSONArray pChanges)
+		{
+			List<Integer> ids = pIds;
+			for( int i = 0; i < pChanges.length(); i++ )
+			{
+				JSONObject change = pChanges.getJSONObject(i);
+				if( change.has(KEY_REMOVED) )
+				{
+					Set<Integer> removed = new HashSet<>(toList(change.getJSONArray(KEY_REMOVED)));
+					ids.removeIf(removed::contains);
+				}
+				else
+				{
+					ids = insert(ids, change.getJSONArray(KEY_ADDED), change.getJSONArray(KEY_INDICES));
+				}
+			}
+			return ids;
+		}
+		
+		/*
+		 * Merges pAdded into pIds in a single pass, so that each added identifier 
+		 * ends up at the index at the same position in pIndices.
+		 */
+		private static List<Integer> insert(List<Integer> pIds, JSONArray pAdded, JSONArray pIndices)
+		{
+			List<Integer> result = new ArrayList<>(pIds.size() + pAdded.length());
+			int next = 0;
+			for( int i = 0; i < pAdded.length(); i++ )
+			{
+				while( result.size() < pIndices.getInt(i) && next < pIds.size() )
+				{
+					result.add(pIds.get(next++));
+				}
+				result.add(pAdded.getInt(i));
+			}
+			result.addAll(pIds.subList(next, pIds.size()));
+			return result;
+		}
+		
+		/*
+		 * Encodes the nodes reachable from the root nodes, and the edges
+		 * between them, in the format of JsonEncoder.
+		 */
+		JSONObject toJSONObject()
+		{
+			Set<Integer> reachable = new HashSet<>();
+			JSONArray nodes = new JSONArray();
+			for( int id : aRootNodes )
+			{
+				addReachable(id, reachable, nodes);
+			}
+			JSONArray edges = new JSONArray();
+			for( int id : aEdgeOrder )
+			{
+				JSONObject edge = aEdges.get(id);
+				if( edge != null && reachable.contains(edge.getInt("start")) && reachable.contains(edge.getInt("end")) )
+				{
+					edges.put(edge);
+				}
+			}
+			JSONObject object = new JSONObject();
+			object.put(KEY_DIAGRAM, aDiagramName);
+			object.put(KEY_NODES, nodes);
+			object.put(KEY_EDGES, edges);
+			return object;
+		}
+		
+		private void addReachable(int pId, Set<Integer> pReachable, JSONArray pNodes)
+		{
+			JSONObject node = aNodes.get(pId);
+			if( node == null || !pReachable.add(pId) )
+			{
+				return;
+			}
+			pNodes.put(node);
+			if( node.has("children") )
+			{
+				JSONArray children = node.getJSONArray("children");
+				for( int i = 0; i < children.length(); i++ )
+				{
+					addReachable(children.getInt(i), pReachable, pNodes);
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Elements added to or removed from the list of root nodes or of edges of the diagram,
+	 * with the indices at which they were added. The indices are null for a removal.
+	 */
+	private static final class ListChange<T>
+	{
+		private final int[] aIndices;
+		private final List<T> aElements;
+		
+		ListChange(int[] pIndices, Collection<T> pElements)
+		{
+			aIndices = pIndices == null ? null : pIndices.clone();
+			aElements = new ArrayList<>(pElements);
+		}
+		
+		boolean isAddition()
+		{
+			return aIndices != null;
+		}
+		
+		JSONObject encode(ToIntFunction<T> pIds)
+		{
+			JSONArray ids = new JSONArray();
+			aElements.forEach(element -> ids.put(pIds.applyAsInt(element)));
+			JSONObject object = new JSONObject();
+			if( isAddition() )
+			{
+				object.put(KEY_ADDED, ids);
+				JSONArray indices = new JSONArray();
+				for( int index : aIndices )
+				{
+					indices.put(index);
+				}
+				object.put(KEY_INDICES, indices);
+			}
+			else
+			{
+				object.put(KEY_REMOVED, ids);
+			}
+			return object;
+		}
+	}
+	
+	/*
+	 * Identifiers of the nodes of the journal, which remain valid until the next checkpoint.
+	 */
+	private static final class JournalContext extends AbstractContext
+	{
+		JournalContext(Diagram pDiagram)
+		{
+			super(pDiagram);
+		}
+		
+		boolean contains(Node pNode)
+		{
+			return aNodes.containsKey(pNode);
+		}
+		
+		void add(Node pNode)
+		{
+			assert !contains(pNode);
+			aNodes.put(pNode, aNodes.size());
+		}
+	}
+}
@@ -20,31 +20,54 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.persistence;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Optional;
+import java.util.function.DoubleConsumer;
 
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
+import ca.mcgill.cs.jetuml.application.FileExtensions;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
 
 /**
  * Services for saving and loading Diagram objects. The files are encoded
- * in UTF-8.
+ * in UTF-8 JSON, unless their name has the binary extension (see FileExtensions),
+ * in which case they are encoded with BinaryEncoder.
  */
 public final class PersistenceService
 {
 	private PersistenceService() {}
 	
 	/**
-     * Saves the current diagram in a file. 
+     * Saves the current diagram in a file. The diagram is encoded
+     * directly into the buffered output stream, one element at a time.
+     * The binary format is used if pFile has the binary extension.
+     * 
+     * The diagram is first written to a temporary file in the same directory,
+     * which then replaces pFile in a single move. A failure while writing
+     * thus leaves the previous content of pFile intact. If pFile exists, 
+     * it keeps its permissions.
      * 
      * @param pDiagram The diagram to save
      * @param pFile The file in which to save the diagram
@@ -55,15 +78,84 @@ public final class PersistenceService
 	public static void save(Diagram pDiagram, File pFile) throws IOException
 	{
 		assert pDiagram != null && pFile != null;
-		try( PrintWriter out = new PrintWriter(
+		Path target = pFile.getAbsoluteFile().toPath();
+		Path temporary = createTemporaryFile(target);
+		try
+		{
+			write(pDiagram, temporary.toFile(), FileExtensions.isBinary(pFile));
+			move(temporary, target);
+		}
+		finally
+		{
+			Files.deleteIfExists(temporary);
+		}
+	}
+	
+	private static void write(Diagram pDiagram, File pFile, boolean pBinary) throws IOException
+	{
+		if( pBinary )
+		{
+			try( OutputStream out = new BufferedOutputStream(new FileOutputStream(pFile)) )
+			{
+				BinaryEncoder.encode(pDiagram, out);
+			}
+			return;
+		}
+		try( Writer out = new BufferedWriter(
 				new OutputStreamWriter(new FileOutputStream(pFile), StandardCharsets.UTF_8)))
 		{
-			out.println(JsonEncoder.encode(pDiagram).toString());
+			JsonEncoder.encode(pDiagram, out);
+			out.write(System.lineSeparator());
+		}
+	}
+	
+	/*
+	 * Creates an empty file next to pTarget, with the permissions of pTarget if it exists.
+	 * Files.createTempFile only gives access to the owner, and the move would keep these
+	 * permissions. For a new target, the temporary file is recreated with the default 
+	 * permissions of a new file.
+	 */
+	static Path createTemporaryFile(Path pTarget) throws IOException
+	{
+		Path temporary = Files.createTempFile(pTarget.getParent(), pTarget.getFileName().toString(), ".tmp");
+		if( Files.getFileAttributeView(temporary, PosixFileAttributeView.class) == null )
+		{
+			return temporary;
+		}
+		if( Files.exists(pTarget) )
+		{
+			Files.setPosixFilePermissions(temporary, Files.getPosixFilePermissions(pTarget));
+		}
+		else
+		{
+			// Fails if another file was created with the same name in between
+			Files.delete(temporary);
+			Files.createFile(temporary);
+		}
+		return temporary;
+	}
+	
+	/*
+	 * Replaces pTarget with pSource, atomically if the file system supports it.
+	 */
+	static void move(Path pSource, Path pTarget) throws IOException
+	{
+		try
+		{
+			Files.move(pSource, pTarget, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch( AtomicMoveNotSupportedException exception )
+		{
+			Files.move(pSource, pTarget, StandardCopyOption.REPLACE_EXISTING);
 		}
 	}
 	
 	/**
-	 * Reads a diagram from a file.
+	 * Reads a diagram from a file. The nodes and edges are created while
+	 * the file is read. Only files that need to be migrated are parsed in full
+	 * before being decoded. Files in the binary format are recognized by their 
+	 * content, whatever their name. JSON files are mapped into memory when the
+	 * platform allows it (see MappedFileReader), and decoded from the mapping.
 	 * 
 	 * @param pFile The file to read the diagram from.
 	 * @return The diagram that is read in
@@ -73,13 +165,112 @@ public final class PersistenceService
 	 */
 	public static VersionedDiagram read(File pFile) throws IOException, DeserializationException
 	{
-		assert pFile != null;
-		try( BufferedReader in = new BufferedReader(
-				new InputStreamReader(new FileInputStream(pFile), StandardCharsets.UTF_8)))
+		return read(pFile, pProgress -> {});
+	}
+	
+	/**
+	 * Reads a diagram from a file and reports the progress of the reading. The
+	 * reading stops with an IOException if the calling thread is interrupted.
+	 * 
+	 * @param pFile The file to read the diagram from.
+	 * @param pProgress Receives the fraction of the file read so far, between 0 and 1. 
+	 *     Files that need to be migrated are read twice, so the progress can start over.
+	 * @return The diagram that is read in
+	 * @throws IOException if the diagram cannot be read.
+	 * @throws DeserializationException if there is a problem decoding the file.
+	 * @pre pFile != null && pProgress != null
+	 */
+	public static VersionedDiagram read(File pFile, DoubleConsumer pProgress) throws IOException, DeserializationException
+	{
+		return read(pFile, pProgress, new VersionMigrator());
+	}
+	
+	/*
+	 * Reads a diagram from a file, and migrates it with pMigrator if needed, so that
+	 * pMigrator can then tell which of its passes changed the diagram.
+	 */
+	static VersionedDiagram read(File pFile, DoubleConsumer pProgress, VersionMigrator pMigrator) 
+			throws IOException, DeserializationException
+	{
+		assert pFile != null && pProgress != null && pMigrator != null;
+		if( MappedFileReader.canMap(pFile) )
+		{
+			return readMapped(pFile, pProgress, pMigrator);
+		}
+		try( InputStream input = new BufferedInputStream(open(pFile, pProgress)) )
+		{
+			if( isBinary(input) )
+			{
+				return BinaryDecoder.decode(input, pFile.length());
+			}
+			BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+			Optional<VersionedDiagram> diagram = StreamingJsonDecoder.decode(in);
+			if( diagram.isPresent() )
+			{
+				return diagram.get();
+			}
+		}
+		try( Reader in = new BufferedReader(new InputStreamReader(open(pFile, pProgress), StandardCharsets.UTF_8)) )
+		{
+			return migrate(in, pMigrator);
+		}
+	}
+	
+	/*
+	 * Reads a JSON diagram from a file mapped into memory. Binary diagrams are
+	 * read as a stream.
+	 */
+	private static VersionedDiagram readMapped(File pFile, DoubleConsumer pProgress, VersionMigrator pMigrator) 
+			throws IOException, DeserializationException
+	{
+		try( MappedFileReader in = new MappedFileReader(pFile, pProgress) )
+		{
+			if( in.startsWith(BinaryFormat.MAGIC) )
+			{
+				try( InputStream input = new BufferedInputStream(open(pFile, pProgress)) )
+				{
+					return BinaryDecoder.decode(input, pFile.length());
+				}
+			}
+			Optional<VersionedDiagram> diagram = StreamingJsonDecoder.decode(in);
+			if( diagram.isPresent() )
+			{
+				return diagram.get();
+			}
+		}
+		try( MappedFileReader in = new MappedFileReader(pFile, pProgress) )
+		{
+			return migrate(in, pMigrator);
+		}
+	}
+	
+	private static InputStream open(File pFile, DoubleConsumer pProgress) throws IOException
+	{
+		return new ProgressInputStream(new FileInputStream(pFile), pFile.length(), pProgress);
+	}
+	
+	/*
+	 * Checks the magic number at the start of pInput without consuming it.
+	 */
+	private static boolean isBinary(InputStream pInput) throws IOException
+	{
+		pInput.mark(BinaryFormat.MAGIC.length);
+		byte[] start = pInput.readNBytes(BinaryFormat.MAGIC.length);
+		pInput.reset();
+		return BinaryFormat.isBinary(start, start.length);
+	}
+	
+	/*
+	 * Parses the whole JSON object read from pIn, and migrates it. The object is
+	 * parsed directly from pIn rather than from a string of the whole file.
+	 */
+	private static VersionedDiagram migrate(Reader pIn, VersionMigrator pMigrator) throws DeserializationException
+	{
+		try
 		{
 			// Extra wrapper to support backward compatibility. Eventually take down the migrator.
 			// Replace VersionMigrator.migrate with JSonDecoder.decode
-			return new VersionMigrator().migrate(new JSONObject(in.readLine())); 
+			return pMigrator.migrate(new JSONObject(new JSONTokener(pIn))); 
 		}
 		catch( JSONException e )
 		{
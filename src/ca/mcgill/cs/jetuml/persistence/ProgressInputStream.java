@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.function.DoubleConsumer;
+
+/**
+ * An input stream that reports the fraction of its expected length 
+ * that has been read so far. Reading fails with an InterruptedIOException
+ * as soon as the reading thread is interrupted, so that a long read can
+ * be cancelled.
+ */
+final class ProgressInputStream extends FilterInputStream
+{
+	private final long aLength;
+	private final DoubleConsumer aProgress;
+	private long aRead = 0;
+	
+	/**
+	 * @param pIn The stream to read from.
+	 * @param pLength The expected number of bytes in pIn.
+	 * @param pProgress Receives the fraction of pLength read, between 0 and 1.
+	 * @pre pIn != null && pProgress != null
+	 */
+	ProgressInputStream(InputStream pIn, long pLength, DoubleConsumer pProgress)
+	{
+		super(pIn);
+		assert pIn != null && pProgress != null;
+		aLength = pLength;
+		aProgress = pProgress;
+	}
+	
+	@Override
+	public int read() throws IOException
+	{
+		checkInterrupted();
+		int next = super.read();
+		if( next >= 0 )
+		{
+			advance(1);
+		}
+		return next;
+	}
+	
+	@Override
+	public int read(byte[] pBytes, int pOffset, int pLength) throws IOException
+	{
+		checkInterrupted();
+		int read = super.read(pBytes, pOffset, pLength);
+		if( read > 0 )
+		{
+			advance(read);
+		}
+		return read;
+	}
+	
+	@Override
+	public long skip(long pNumberOfBytes) throws IOException
+	{
+		checkInterrupted();
+		long skipped = super.skip(pNumberOfBytes);
+		advance(skipped);
+		return skipped;
+	}
+	
+	@Override
+	public boolean markSupported()
+	{
+		return false;
+	}
+	
+	private void advance(long pNumberOfBytes)
+	{
+		aRead += pNumberOfBytes;
+		if( aLength > 0 )
+		{
+			aProgress.accept(Math.min(1.0, (double) aRead / aLength));
+		}
+	}
+	
+	private static void checkInterrupted() throws InterruptedIOException
+	{
+		if( Thread.currentThread().isInterrupted() )
+		{
+			throw new InterruptedIOException();
+		}
+	}
+}
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2021 by McGill University.
+ *
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import ca.mcgill.cs.jetuml.JetUML;
+import ca.mcgill.cs.jetuml.application.Version;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Node;
+
+/**
+ * Decodes a diagram while its JSON encoding is being read. The top-level
+ * object and the arrays of nodes and edges are read token by token, and each node
+ * and edge is created as soon as its own JSON object has been read, so the JSON
+ * object of the whole diagram is never built.
+ *
+ * Diagrams saved with a version of JetUML that requires a migration cannot be
+ * decoded this way, because the migration rewrites the JSON object of the diagram.
+ * For these diagrams the decoder stops as soon as it reads the version, and
+ * reports that the diagram must be decoded with VersionMigrator. JsonEncoder writes
+ * the version first. For files written in another order, the JSON objects of the 
+ * nodes and edges read before the version are kept, and only decoded once the 
+ * version is known to be compatible.
+ */
+public final class StreamingJsonDecoder
+{
+	private final JSONTokener aTokener;
+	private Version aVersion;
+	private Diagram aDiagram;
+	private DeserializationContext aContext;
+	private boolean aNodesRead = false;
+	private final List<Node> aNodes = new ArrayList<>();
+	private final List<Integer> aIds = new ArrayList<>();
+	private final List<JSONArray> aChildren = new ArrayList<>();
+	private final List<JSONObject> aPendingNodes = new ArrayList<>();
+	private final List<JSONObject> aPendingEdges = new ArrayList<>();
+	private boolean aDeferred = false;
+
+	StreamingJsonDecoder(Reader pReader)
+	{
+		aTokener = new JSONTokener(pReader);
+	}
+
+	/**
+	 * @param pReader A reader for the JSON encoding of a diagram.
+	 * @return The decoded diagram, or empty if the diagram was saved with a version
+	 *     of JetUML that requires a migration.
+	 * @throws DeserializationException If it's not possible to decode the encoding into a valid diagram.
+	 * @pre pReader != null
+	 */
+	public static Optional<VersionedDiagram> decode(Reader pReader)
+	{
+		assert pReader != null;
+		try
+		{
+			return new StreamingJsonDecoder(pReader).decodeDiagram();
+		}
+		catch( JSONException | IllegalArgumentException exception )
+		{
+			throw new DeserializationException("Cannot decode serialized object", exception);
+		}
+	}
+
+	/*
+	 * Whether some nodes or edges could not be decoded as soon as they were read. For testing.
+	 */
+	boolean hasDeferredElements()
+	{
+		return aDeferred;
+	}
+
+	Optional<VersionedDiagram> decodeDiagram()
+	{
+		if( aTokener.nextClean() != '{' )
+		{
+			throw aTokener.syntaxError("A JSONObject text must begin with '{'");
+		}
+		char next = aTokener.nextClean();
+		while( next != '}' )
+		{
+			if( next != '"' )
+			{
+				throw aTokener.syntaxError("Expected a key");
+			}
+			String key = aTokener.nextString('"');
+			if( aTokener.nextClean() != ':' )
+			{
+				throw aTokener.syntaxError("Expected a ':' after a key");
+			}
+			if( !decodeValue(key) )
+			{
+				return Optional.empty();
+			}
+			next = aTokener.nextClean();
+			if( next == ',' )
+			{
+				next = aTokener.nextClean();
+			}
+			else if( next != '}' )
+			{
+				throw aTokener.syntaxError("Expected a ',' or '}'");
+			}
+		}
+		if( aVersion == null || aDiagram == null || !aNodesRead )
+		{
+			throw aTokener.syntaxError("Missing version, diagram, or nodes");
+		}
+		restoreNodes();
+		for( JSONObject edge : aPendingEdges )
+		{
+			JsonDecoder.decodeEdge(aContext, edge);
+		}
+		aContext.attachNodes();
+		return Optional.of(new VersionedDiagram(aDiagram, aVersion, false));
+	}
+
+	/*
+	 * Decodes the value of pKey in the top-level object. Returns false if
+	 * the value is a version that requires a migration.
+	 */
+	private boolean decodeValue(String pKey)
+	{
+		if( pKey.equals("version") )
+		{
+			aVersion = Version.parse(nextString());
+			if( !aVersion.compatibleWith(JetUML.VERSION) )
+			{
+				return false;
+			}
+			aPendingNodes.forEach(this::decodeNode);
+			aPendingNodes.clear();
+			restoreNodes();
+		}
+		else if( pKey.equals("diagram") )
+		{
+			aDiagram = new Diagram(DiagramType.fromName(nextString()));
+			restoreNodes();
+		}
+		else if( pKey.equals("nodes") )
+		{
+			decodeArray(this::decodeNode);
+			aNodesRead = true;
+			restoreNodes();
+		}
+		else if( pKey.equals("edges") )
+		{
+			decodeArray(this::decodeEdge);
+		}
+		else
+		{
+			aTokener.nextValue();
+		}
+		return true;
+	}
+
+	private String nextString()
+	{
+		Object value = aTokener.nextValue();
+		if( !(value instanceof String) )
+		{
+			throw aTokener.syntaxError("Expected a string");
+		}
+		return (String) value;
+	}
+
+	/*
+	 * Reads an array of objects and passes each object to pDecoder as soon as it is read.
+	 */
+	private void decodeArray(Consumer<JSONObject> pDecoder)
+	{
+		if( aTokener.nextClean() != '[' )
+		{
+			throw aTokener.syntaxError("A JSONArray text must start with '['");
+		}
+		char next = aTokener.nextClean();
+		while( next != ']' )
+		{
+			aTokener.back();
+			Object element = aTokener.nextValue();
+			if( !(element instanceof JSONObject) )
+			{
+				throw aTokener.syntaxError("Expected a JSONObject");
+			}
+			pDecoder.accept((JSONObject) element);
+			next = aTokener.nextClean();
+			if( next == ',' )
+			{
+				next = aTokener.nextClean();
+			}
+			else if( next != ']' )
+			{
+				throw aTokener.syntaxError("Expected a ',' or ']'");
+			}
+		}
+	}
+
+	/*
+	 * Nodes can only be decoded once the version is known to be compatible.
+	 */
+	private void decodeNode(JSONObject pObject)
+	{
+		if( aVersion == null )
+		{
+			aDeferred = true;
+			aPendingNodes.add(pObject);
+			return;
+		}
+		aNodes.add(JsonDecoder.decodeNode(pObject));
+		aIds.add(pObject.getInt("id"));
+		if( pObject.has("children") )
+		{
+			aChildren.add(pObject.getJSONArray("children"));
+		}
+		else
+		{
+			aChildren.add(null);
+		}
+	}
+
+	/*
+	 * Edges can only be created once all the nodes are known, and thus 
+	 * once the version is known to be compatible.
+	 */
+	private void decodeEdge(JSONObject pObject)
+	{
+		if( aContext == null )
+		{
+			aDeferred = true;
+			aPendingEdges.add(pObject);
+		}
+		else
+		{
+			JsonDecoder.decodeEdge(aContext, pObject);
+		}
+	}
+
+	/*
+	 * Once the version, the diagram, and all the nodes are known, restores the parent-child
+	 * hierarchy and the root nodes, in the same way as JsonDecoder. Does nothing
+	 * otherwise, or if the nodes are already restored.
+	 */
+	private void restoreNodes()
+	{
+		if( aContext != null || aVersion == null || aDiagram == null || !aNodesRead )
+		{
+			return;
+		}
+		aContext = new DeserializationContext(aDiagram);
+		for( int i = 0; i < aNodes.size(); i++ )
+		{
+			aContext.addNode(aNodes.get(i), aIds.get(i));
+		}
+		for( int i = 0; i < aNodes.size(); i++ )
+		{
+			JSONArray children = aChildren.get(i);
+			if( children != null )
+			{
+				for( int j = 0; j < children.length(); j++ )
+				{
+					aNodes.get(i).addChild(aContext.getNode(children.getInt(j)));
+				}
+			}
+		}
+		JsonDecoder.restoreRootNodes(aContext);
+		aNodes.clear();
+		aIds.clear();
+		aChildren.clear();
+	}
+}
@@ -27,6 +27,7 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -53,10 +54,35 @@ import ca.mcgill.cs.jetuml.application.Version;
  * * All labels of GeneralizationEdges will be dropped
  * * AssociationEdges with a "Start" directionality will be flipped
  * * The types of associations are renamed
+ * 
+ * Each rule is a pass that rewrites the JSON object of a node or of an edge, and that 
+ * only applies to diagrams saved with a version of JetUML earlier than the version
+ * that introduced the rule. The passes that apply to a diagram are fused, so that the 
+ * nodes and the edges of the diagram are each traversed at most once. Diagrams that
+ * are compatible with the current version are decoded directly.
  */
 public final class VersionMigrator
 {
-	private boolean aMigrated;
+	private static final Version VERSION_3_0 = Version.create(3, 0);
+	
+	private final Set<String> aFiredPasses = new LinkedHashSet<>();
+	private Pass aCurrentPass;
+	private final Map<Set<Integer>, JSONObject> aDependencies = new HashMap<>();
+	
+	/*
+	 * The passes, in the order in which they are applied to each node or edge.
+	 */
+	private final List<Pass> aPasses = List.of(
+			new Pass("convertPackageNodeToPackageDescriptionNode", VERSION_3_0, Target.NODES, 
+					this::convertPackageNodeToPackageDescriptionNode),
+			new Pass("removeInterfaceStereotype", VERSION_3_0, Target.NODES, this::removeInterfaceStereotype),
+			new Pass("removeSelfDependencies", VERSION_3_0, Target.EDGES, this::removeSelfDependencies),
+			new Pass("addDirectionalityPropertyToDependencyEdges", VERSION_3_0, Target.EDGES, 
+					this::addDirectionalityPropertyToDependencyEdges),
+			new Pass("replaceDualDependenciesWithBidirectionalEdge", VERSION_3_0, Target.EDGES, 
+					this::replaceDualDependenciesWithBidirectionalEdge),
+			new Pass("flipInversedAssociations", VERSION_3_0, Target.EDGES, this::flipInversedAssociations),
+			new Pass("renameAssociationDirectionality", VERSION_3_0, Target.EDGES, this::renameAssociationDirectionality));
 
 	/**
 	 * Creates a new version migrator. Can be reused.
@@ -99,157 +125,224 @@ public final class VersionMigrator
 			return new VersionedDiagram(JsonDecoder.decode(pDiagram), version, false);
 		}
 		
-		aMigrated = false;
-
+		aFiredPasses.clear();
+		aDependencies.clear();
+		
 		// JSONObject to JSONObject conversions
-		convertPackageNodeToPackageDescriptionNode(pDiagram);
-		removeSelfDependencies(pDiagram);
-		addDirectionalityPropertyToDependencyEdges(pDiagram);
-		replaceDualDependenciesWithBidirectionalEdge(pDiagram);
-		removeInterfaceStereotype(pDiagram);
-		flipInversedAssociations(pDiagram);
-		renameAssociationDirectionality(pDiagram);
+		List<Pass> nodePasses = new ArrayList<>();
+		List<Pass> edgePasses = new ArrayList<>();
+		for( Pass pass : aPasses )
+		{
+			if( pass.appliesTo(version) )
+			{
+				if( pass.aTarget == Target.NODES )
+				{
+					nodePasses.add(pass);
+				}
+				else
+				{
+					edgePasses.add(pass);
+				}
+			}
+		}
+		rewrite(pDiagram, "nodes", nodePasses);
+		rewrite(pDiagram, "edges", edgePasses);
+		aDependencies.clear();
 
-		return new VersionedDiagram(JsonDecoder.decode(pDiagram), version, aMigrated);
+		return new VersionedDiagram(JsonDecoder.decode(pDiagram), version, !aFiredPasses.isEmpty());
 	}
-
-	private void convertPackageNodeToPackageDescriptionNode(JSONObject pDiagram)
+	
+	/**
+	 * @return The names of the passes that changed the diagram during the last
+	 *     call to migrate, in the order in which they first changed it. Empty if 
+	 *     the diagram was not migrated.
+	 */
+	public List<String> firedPasses()
 	{
-		JSONArray nodes = pDiagram.getJSONArray("nodes");
-		for( int i = 0; i < nodes.length(); i++ )
+		return new ArrayList<>(aFiredPasses);
+	}
+	
+	/*
+	 * Applies pPasses in order to each element of the array pKey of pDiagram, in a 
+	 * single traversal. Once a pass removes an element, the next passes are not 
+	 * applied to it.
+	 */
+	private void rewrite(JSONObject pDiagram, String pKey, List<Pass> pPasses)
+	{
+		if( pPasses.isEmpty() )
 		{
-			JSONObject object = nodes.getJSONObject(i);
-			if( object.getString("type").equals("PackageNode") && !object.has("children") && object.has("contents") )
+			return;
+		}
+		JSONArray elements = pDiagram.getJSONArray(pKey);
+		List<JSONObject> newElements = new ArrayList<>(elements.length());
+		for( int i = 0; i < elements.length(); i++ )
+		{
+			JSONObject object = elements.getJSONObject(i);
+			boolean keep = true;
+			for( int j = 0; j < pPasses.size() && keep; j++ )
 			{
-				object.put("type", "PackageDescriptionNode");
-				aMigrated = true;
+				aCurrentPass = pPasses.get(j);
+				keep = aCurrentPass.aRewrite.rewrite(object);
 			}
+			if( keep )
+			{
+				newElements.add(object);
+			}
+		}
+		if( newElements.size() < elements.length() )
+		{
+			pDiagram.put(pKey, new JSONArray(newElements));
 		}
 	}
+
+	/*
+	 * Records that the current pass changed the diagram.
+	 */
+	private void fired()
+	{
+		aFiredPasses.add(aCurrentPass.aName);
+	}
+
+	private boolean convertPackageNodeToPackageDescriptionNode(JSONObject pNode)
+	{
+		if( pNode.getString("type").equals("PackageNode") && !pNode.has("children") && pNode.has("contents") )
+		{
+			pNode.put("type", "PackageDescriptionNode");
+			fired();
+		}
+		return true;
+	}
 	
-	private void removeInterfaceStereotype(JSONObject pDiagram)
+	private boolean removeInterfaceStereotype(JSONObject pNode)
 	{
-		JSONArray nodes = pDiagram.getJSONArray("nodes");
-		for( int i = 0; i < nodes.length(); i++ )
+		if( pNode.getString("type").equals("InterfaceNode") )
 		{
-			JSONObject object = nodes.getJSONObject(i);
-			if( object.getString("type").equals("InterfaceNode") )
+			if( pNode.getString("name").contains("\u00ABinterface\u00BB"))
 			{
-				if( object.getString("name").contains("\u00ABinterface\u00BB"))
-				{
-					object.put("name", object.getString("name").replace("\u00ABinterface\u00BB", "").trim());
-					aMigrated = true;
-				}
+				pNode.put("name", pNode.getString("name").replace("\u00ABinterface\u00BB", "").trim());
+				fired();
 			}
 		}
+		return true;
 	}
 
-	private void removeSelfDependencies(JSONObject pDiagram)
+	private boolean removeSelfDependencies(JSONObject pEdge)
 	{
-		JSONArray edges = pDiagram.getJSONArray("edges");
-		List<JSONObject> newEdges = new ArrayList<>();
-		for( int i = 0; i < edges.length(); i++ )
+		if( pEdge.getString("type").equals("DependencyEdge") && pEdge.getInt("start") == pEdge.getInt("end") )
 		{
-			JSONObject object = edges.getJSONObject(i);
-			if( object.getString("type").equals("DependencyEdge") && object.getInt("start") == object.getInt("end") )
-			{
-				aMigrated = true; // We don't add the dependency, essentially removing it.
-			}
-			else
-			{
-				newEdges.add(object);
-			}
+			fired(); // We don't keep the dependency, essentially removing it.
+			return false;
 		}
-		pDiagram.put("edges", new JSONArray(newEdges));
+		return true;
 	}
 
-	private void addDirectionalityPropertyToDependencyEdges(JSONObject pDiagram)
+	private boolean addDirectionalityPropertyToDependencyEdges(JSONObject pEdge)
 	{
-		JSONArray edges = pDiagram.getJSONArray("edges");
-		for( int i = 0; i < edges.length(); i++ )
+		if( pEdge.getString("type").equals("DependencyEdge") )
 		{
-			JSONObject object = edges.getJSONObject(i);
-			if( object.getString("type").equals("DependencyEdge") )
-			{
-				object.put("directionality", "Unidirectional");
-				aMigrated = true;
-			}
+			pEdge.put("directionality", "Unidirectional");
+			fired();
 		}
+		return true;
 	}
 	
 	/*
 	 * Replace associations with a "Start" directionality with
 	 * a directional edge in the reverse direction. 
 	 */
-	private void flipInversedAssociations(JSONObject pDiagram)
+	private boolean flipInversedAssociations(JSONObject pEdge)
 	{
-		JSONArray edges = pDiagram.getJSONArray("edges");
-		for( int i = 0; i < edges.length(); i++ )
+		if( pEdge.getString("type").equals("AssociationEdge") && pEdge.getString("directionality").equals("Start"))
 		{
-			JSONObject object = edges.getJSONObject(i);
-			if( object.getString("type").equals("AssociationEdge") && object.getString("directionality").equals("Start"))
-			{
-				object.put("directionality", "End");
-				int start = object.getInt("start");
-				int end = object.getInt("end");
-				object.put("start", end);
-				object.put("end", start);
-				aMigrated = true;
-			}
+			pEdge.put("directionality", "End");
+			int start = pEdge.getInt("start");
+			int end = pEdge.getInt("end");
+			pEdge.put("start", end);
+			pEdge.put("end", start);
+			fired();
 		}
+		return true;
 	}
 	
-	private void renameAssociationDirectionality(JSONObject pDiagram)
+	private boolean renameAssociationDirectionality(JSONObject pEdge)
 	{
-		JSONArray edges = pDiagram.getJSONArray("edges");
-		for( int i = 0; i < edges.length(); i++ )
+		if( pEdge.getString("type").equals("AssociationEdge"))
 		{
-			JSONObject object = edges.getJSONObject(i);
-			if( object.getString("type").equals("AssociationEdge"))
+			if( pEdge.get("directionality").equals("None"))
 			{
-				if( object.get("directionality").equals("None"))
-				{
-					object.put("directionality", "Unspecified");
-				}
-				else if( object.get("directionality").equals("End"))
-				{
-					object.put("directionality", "Unidirectional");
-				}
-				else if( object.get("directionality").equals("Both"))
-				{
-					object.put("directionality", "Bidirectional");
-				}
-				aMigrated = true;
+				pEdge.put("directionality", "Unspecified");
 			}
+			else if( pEdge.get("directionality").equals("End"))
+			{
+				pEdge.put("directionality", "Unidirectional");
+			}
+			else if( pEdge.get("directionality").equals("Both"))
+			{
+				pEdge.put("directionality", "Bidirectional");
+			}
+			fired();
 		}
+		return true;
 	}
 
-	private void replaceDualDependenciesWithBidirectionalEdge(JSONObject pDiagram)
+	/*
+	 * Merges a dependency into the first dependency between the same two nodes, if any.
+	 */
+	private boolean replaceDualDependenciesWithBidirectionalEdge(JSONObject pEdge)
 	{
-		Map<Set<Integer>, JSONObject> links = new HashMap<>();
-		List<JSONObject> newEdges = new ArrayList<>();
-		
-		JSONArray edges = pDiagram.getJSONArray("edges");
-		for( int i = 0; i < edges.length(); i++ )
+		if( pEdge.getString("type").equals("DependencyEdge") ) 
 		{
-			JSONObject object = edges.getJSONObject(i);
-			newEdges.add(object);
-			if( object.getString("type").equals("DependencyEdge") ) 
+			Set<Integer> key = Set.of(pEdge.getInt("start"), pEdge.getInt("end"));
+			JSONObject first = aDependencies.get(key);
+			if( first != null )
 			{
-				Set<Integer> key = Set.of(object.getInt("start"), object.getInt("end"));
-				if( links.containsKey(key))
-				{
-					newEdges.remove(object);
-					links.get(key).put("directionality", "Bidirectional");
-					links.get(key).put("middleLabel", links.get(key).get("middleLabel") + " + " + object.get("middleLabel"));
-					aMigrated = true;
-				}
-				else
-				{
-					links.put(Set.of(object.getInt("start"), object.getInt("end")), object);
-				}
+				first.put("directionality", "Bidirectional");
+				first.put("middleLabel", first.get("middleLabel") + " + " + pEdge.get("middleLabel"));
+				fired();
+				return false;
 			}
+			aDependencies.put(key, pEdge);
+		}
+		return true;
+	}
+	
+	/*
+	 * Rewrites the JSON object of a node or edge in place.
+	 */
+	@FunctionalInterface
+	private interface Rewrite
+	{
+		/*
+		 * Returns false if the element must be removed from the diagram.
+		 */
+		boolean rewrite(JSONObject pElement);
+	}
+	
+	private enum Target
+	{ NODES, EDGES }
+	
+	/*
+	 * A rewrite of the nodes or of the edges, for diagrams saved with a version 
+	 * earlier than aIntroducedIn.
+	 */
+	private static final class Pass
+	{
+		private final String aName;
+		private final Version aIntroducedIn;
+		private final Target aTarget;
+		private final Rewrite aRewrite;
+		
+		Pass(String pName, Version pIntroducedIn, Target pTarget, Rewrite pRewrite)
+		{
+			aName = pName;
+			aIntroducedIn = pIntroducedIn;
+			aTarget = pTarget;
+			aRewrite = pRewrite;
+		}
+		
+		boolean appliesTo(Version pVersion)
+		{
+			return pVersion.compareTo(aIntroducedIn) < 0;
 		}
-		pDiagram.put("edges", new JSONArray(newEdges));
 	}
 }
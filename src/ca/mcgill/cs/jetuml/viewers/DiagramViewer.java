@@ -21,6 +21,8 @@
 
 package ca.mcgill.cs.jetuml.viewers;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import ca.mcgill.cs.jetuml.diagram.Diagram;
@@ -29,6 +31,7 @@ import ca.mcgill.cs.jetuml.diagram.Edge;
 import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.geom.SpatialIndex;
 import ca.mcgill.cs.jetuml.viewers.edges.EdgeViewerRegistry;
 import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
 import javafx.scene.canvas.GraphicsContext;
@@ -37,9 +40,19 @@ import javafx.scene.canvas.GraphicsContext;
  * A strategy for drawing a diagram and computing geometric properties of a 
  * diagram. This class can be inherited if certain diagram types require specialized 
  * services. This class is stateless.
+ * 
+ * Hit-testing queries and partial drawing use the spatial indexes of the diagram,
+ * which are rebuilt by this class whenever they were invalidated by a modification
+ * of the diagram. For hit-testing, the indexes are only used to select candidate 
+ * elements: the result is always confirmed with the element's viewer.
  */
 public class DiagramViewer
 {
+	/* Number of pixels added around the bounds of an indexed element, to account 
+	 * for the selection tolerance of some elements, e.g., points and edges, and 
+	 * for decorations drawn just outside the bounds. */
+	private static final int HIT_TOLERANCE = 10;
+	
 	/**
 	 * Draws pDiagram onto pGraphics.
 	 * 
@@ -51,10 +64,26 @@ public class DiagramViewer
 	public final void draw(Diagram pDiagram, GraphicsContext pGraphics)
 	{
 		assert pDiagram != null && pGraphics != null;
-		NodeViewerRegistry.activateNodeStorages();
 		pDiagram.rootNodes().forEach(node -> drawNode(node, pGraphics));
 		pDiagram.edges().forEach(edge -> EdgeViewerRegistry.draw(edge, pGraphics));
-		NodeViewerRegistry.deactivateAndClearNodeStorages();
+	}
+	
+	/**
+	 * Draws the elements of pDiagram whose bounds intersect pArea onto pGraphics. 
+	 * Elements that are drawn are drawn completely and in the same order as 
+	 * with draw(Diagram, GraphicsContext).
+	 * 
+	 * @param pGraphics the graphics context where the
+	 *     diagram should be drawn.
+	 * @param pDiagram the diagram to draw.
+	 * @param pArea the area of the diagram to draw.
+	 * @pre pDiagram != null && pGraphics != null && pArea != null.
+	 */
+	public final void draw(Diagram pDiagram, GraphicsContext pGraphics, Rectangle pArea)
+	{
+		assert pDiagram != null && pGraphics != null && pArea != null;
+		nodeIndex(pDiagram).elementsIn(pArea).forEach(node -> drawNode(node, pGraphics));
+		edgeIndex(pDiagram).elementsIn(pArea).forEach(edge -> EdgeViewerRegistry.draw(edge, pGraphics));
 	}
 	
 	private void drawNode(Node pNode, GraphicsContext pGraphics)
@@ -74,10 +103,72 @@ public class DiagramViewer
 	public static Optional<Edge> edgeAt(Diagram pDiagram, Point pPoint)
 	{
 		assert pDiagram != null && pPoint != null;
-		return pDiagram.edges().stream()
+		return edgesNear(pDiagram, pPoint).stream()
 				.filter(edge -> EdgeViewerRegistry.contains(edge, pPoint))
 				.findFirst();
 	}
+	
+	/*
+	 * Returns the edges whose bounds contain pPoint, in the order of the diagram.
+	 */
+	private static List<Edge> edgesNear(Diagram pDiagram, Point pPoint)
+	{
+		return edgeIndex(pDiagram).elementsAt(pPoint);
+	}
+	
+	/*
+	 * Returns the edge index of pDiagram, rebuilt if necessary.
+	 */
+	private static SpatialIndex<Edge> edgeIndex(Diagram pDiagram)
+	{
+		SpatialIndex<Edge> index = pDiagram.getEdgeIndex();
+		if( !index.isValid() )
+		{
+			index.build(pDiagram.edges(), DiagramViewer::getIndexBounds);
+		}
+		return index;
+	}
+	
+	/*
+	 * Returns the root node index of pDiagram, rebuilt if necessary.
+	 */
+	private static SpatialIndex<Node> nodeIndex(Diagram pDiagram)
+	{
+		SpatialIndex<Node> index = pDiagram.getNodeIndex();
+		if( !index.isValid() )
+		{
+			index.build(pDiagram.rootNodes(), DiagramViewer::getIndexBounds);
+		}
+		return index;
+	}
+	
+	/**
+	 * Brings the spatial indexes of pDiagram up to date after the root nodes in pRootNodes, 
+	 * or their descendants, were moved, without rebuilding the indexes. This must only be
+	 * called if the indexes were valid before the move, and pEdges must contain all the 
+	 * edges whose bounds may have changed because of the move.
+	 * 
+	 * @param pDiagram The diagram whose nodes were moved.
+	 * @param pRootNodes The root nodes of the trees of nodes that were moved.
+	 * @param pEdges The edges whose bounds may have changed.
+	 * @pre pDiagram != null && pRootNodes != null && pEdges != null
+	 */
+	public static void updateIndexes(Diagram pDiagram, Collection<Node> pRootNodes, Collection<Edge> pEdges)
+	{
+		assert pDiagram != null && pRootNodes != null && pEdges != null;
+		pDiagram.getNodeIndex().update(pRootNodes, DiagramViewer::getIndexBounds);
+		pDiagram.getEdgeIndex().update(pEdges, DiagramViewer::getIndexBounds);
+	}
+	
+	private static Rectangle getIndexBounds(Node pNode)
+	{
+		return grow(getTreeBounds(pNode));
+	}
+	
+	private static Rectangle getIndexBounds(Edge pEdge)
+	{
+		return grow(EdgeViewerRegistry.getBounds(pEdge));
+	}
 		
 	/**
      * Finds a node that contains the given point. Always returns
@@ -90,13 +181,56 @@ public class DiagramViewer
 	public final Optional<Node> nodeAt(Diagram pDiagram, Point pPoint)
 	{
 		assert pDiagram != null && pPoint != null;
-		return pDiagram.rootNodes().stream()
+		return rootNodesNear(pDiagram, pPoint).stream()
 			.map(node -> deepFindNode(pDiagram, node, pPoint))
 			.filter(Optional::isPresent)
 			.map(Optional::get)
 			.reduce((first, second) -> second);
 	}
 	
+	/*
+	 * Returns the root nodes whose bounds, or the bounds of whose descendants, contain pPoint, 
+	 * in the order of the diagram. Falls back to all the root nodes if the diagram cannot be indexed.
+	 */
+	private List<Node> rootNodesNear(Diagram pDiagram, Point pPoint)
+	{
+		if( !isIndexable() )
+		{
+			return pDiagram.rootNodes();
+		}
+		return nodeIndex(pDiagram).elementsAt(pPoint);
+	}
+	
+	private static Rectangle getTreeBounds(Node pNode)
+	{
+		Rectangle bounds = NodeViewerRegistry.getBounds(pNode);
+		for( Node child : pNode.getChildren() )
+		{
+			bounds = bounds.add(getTreeBounds(child));
+		}
+		return bounds;
+	}
+	
+	private static Rectangle grow(Rectangle pBounds)
+	{
+		return new Rectangle(pBounds.getX() - HIT_TOLERANCE, pBounds.getY() - HIT_TOLERANCE, 
+				pBounds.getWidth() + 2 * HIT_TOLERANCE, pBounds.getHeight() + 2 * HIT_TOLERANCE);
+	}
+	
+	/**
+	 * Determines whether the nodes of a diagram can be located using the spatial index
+	 * of the diagram. This requires that a node can only contain points that are within 
+	 * the bounds of the node or of its descendants. Viewers for which this does not hold
+	 * should override this method to return false, in which case all root nodes are 
+	 * searched. The index is used for drawing regardless of the value returned.
+	 * 
+	 * @return True if nodeAt can use the node index of the diagram.
+	 */
+	protected boolean isIndexable()
+	{
+		return true;
+	}
+	
 	/**
      * Finds a node that contains the given point, if this is a node that can be 
      * selected. The difference between this method and nodeAt is that it is specialized for
@@ -53,6 +53,7 @@ public class FontMetrics
 	public static final int DEFAULT_FONT_SIZE = 12;
 	private static final String BLANK = "";
 	private Text aTextNode;
+	private double aLeading = Double.NaN; // Measured the first time a string is measured
 
 	/**
 	 * Creates a new FontMetrics object.
@@ -79,7 +80,10 @@ public class FontMetrics
 		aTextNode.setText(pString);
 		Bounds bounds = aTextNode.getLayoutBounds();
 		aTextNode.setText(BLANK);
-		double leading = aTextNode.getLayoutBounds().getMaxY();
-		return new Dimension((int) Math.round(bounds.getWidth()), (int) Math.round(bounds.getHeight() - leading));
+		if( Double.isNaN(aLeading) )
+		{
+			aLeading = aTextNode.getLayoutBounds().getMaxY();
+		}
+		return new Dimension((int) Math.round(bounds.getWidth()), (int) Math.round(bounds.getHeight() - aLeading));
 	}
 } 
\ No newline at end of file
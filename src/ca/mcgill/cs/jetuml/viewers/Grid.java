@@ -39,9 +39,12 @@ public final class Grid
 	private Grid() {}
 	
 	/**
-     * Draws this grid inside a rectangle.
+     * Draws this grid inside a rectangle. The lines of the grid are 
+     * always drawn at multiples of the grid size, so that grids drawn
+     * in adjacent rectangles match.
      * @param pGraphics the graphics context
      * @param pBounds the bounding rectangle
+     * @pre pBounds.getX() >= 0 && pBounds.getY() >= 0
      */
 	public static void draw(GraphicsContext pGraphics, Rectangle pBounds)
 	{
@@ -51,11 +54,11 @@ public final class Grid
 		int y1 = pBounds.getY();
 		int x2 = pBounds.getMaxX();
 		int y2 = pBounds.getMaxY();
-		for(int x = x1; x < x2; x += GRID_SIZE)
+		for(int x = toMultiple(x1); x < x2; x += GRID_SIZE)
 		{
 			ToolGraphics.strokeSharpLine(pGraphics, x, y1, x, y2);
 		}
-		for(int y = y1; y < y2; y += GRID_SIZE)
+		for(int y = toMultiple(y1); y < y2; y += GRID_SIZE)
 		{
 			ToolGraphics.strokeSharpLine(pGraphics, x1, y, x2, y);
 		}
@@ -52,6 +52,16 @@ public class SequenceDiagramViewer extends DiagramViewer
 		return result.or(() -> super.deepFindNode(pDiagram, pNode, pPoint));
 	}
 
+	/*
+	 * Implicit parameter nodes contain all the points in their vertical band,
+	 * and call nodes are found by following the control flow.
+	 */
+	@Override
+	protected boolean isIndexable()
+	{
+		return false;
+	}
+
 	/*
 	 * Used during pasting to determine whether the current selection bounds completely overlaps the new elements. For
 	 * sequence diagrams the height between the selection bounds and the bounds of the new elements may vary, but the
@@ -23,6 +23,7 @@ package ca.mcgill.cs.jetuml.viewers;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import ca.mcgill.cs.jetuml.annotations.Flyweight;
@@ -157,6 +158,24 @@ public final class StringViewer
 				Math.round(dimension.height() + aVerticalPadding*2));
 	}
 
+	/**
+	 * @return The number of string measurements answered from the cache
+	 *     of string dimensions since the application started.
+	 */
+	public static long getDimensionCacheHits()
+	{
+		return CANVAS_FONT.aHits;
+	}
+
+	/**
+	 * @return The number of string measurements that required measuring
+	 *     the string with the font since the application started.
+	 */
+	public static long getDimensionCacheMisses()
+	{
+		return CANVAS_FONT.aMisses;
+	}
+
 	/**
 	 * Breaks up a string such that each multi-word line has at most
 	 * pWidth characters.
@@ -280,12 +299,25 @@ public final class StringViewer
 	 */
 	private static final class CanvasFont implements IntegerPreferenceChangeHandler
 	{
+		private static final int DIMENSION_CACHE_SIZE = 2048;
 
 		private Font aFont;
 		private Font aFontBold;
 		private FontMetrics aFontMetrics;
 		private FontMetrics aFontBoldMetrics;
 
+		/* Dimensions of the most recently measured strings, in access order. */
+		private final Map<MeasuredString, Dimension> aDimensions = new LinkedHashMap<>(DIMENSION_CACHE_SIZE, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<MeasuredString, Dimension> pEldest)
+			{
+				return size() > DIMENSION_CACHE_SIZE;
+			}
+		};
+		private long aHits = 0;
+		private long aMisses = 0;
+
 		private CanvasFont()
 		{
 			refreshAttributes();
@@ -317,7 +349,19 @@ public final class StringViewer
 		 */
 		public Dimension getDimension(String pString, boolean pBold)
 		{
-			return getFontMetrics(pBold).getDimension(pString);
+			MeasuredString key = new MeasuredString(pString, pBold, fontSize());
+			Dimension dimension = aDimensions.get(key);
+			if( dimension == null )
+			{
+				aMisses++;
+				dimension = getFontMetrics(pBold).getDimension(pString);
+				aDimensions.put(key, dimension);
+			}
+			else
+			{
+				aHits++;
+			}
+			return dimension;
 		}
 
 		/**
@@ -358,7 +402,13 @@ public final class StringViewer
 			aFontBold = Font.font(aFont.getFamily(), FontWeight.BOLD, aFont.getSize());
 			aFontMetrics = new FontMetrics(aFont);
 			aFontBoldMetrics = new FontMetrics(aFontBold);
+			aDimensions.clear();
 		}
 
 	}
+
+	/*
+	 * A string as measured with a given font size and weight.
+	 */
+	private record MeasuredString(String string, boolean bold, int fontSize) {}
 }
@@ -20,6 +20,14 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.viewers.edges;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import ca.mcgill.cs.jetuml.application.UserPreferences;
+import ca.mcgill.cs.jetuml.application.UserPreferences.IntegerPreference;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.Edge;
 import ca.mcgill.cs.jetuml.geom.Dimension;
 import ca.mcgill.cs.jetuml.geom.Direction;
@@ -32,9 +40,11 @@ import ca.mcgill.cs.jetuml.viewers.StringViewer.Alignment;
 import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
 import javafx.geometry.Bounds;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.shape.ClosePath;
 import javafx.scene.shape.LineTo;
 import javafx.scene.shape.MoveTo;
 import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
 import javafx.scene.shape.Shape;
 
 /**
@@ -50,6 +60,10 @@ public abstract class AbstractEdgeViewer implements EdgeViewer
 	
 	private static final int DEGREES_180 = 180;
 	
+	/* The geometry of the edges viewed by this viewer, computed on demand. Weak keys so that 
+	 * the geometry does not keep edges reachable. */
+	private final Map<Edge, EdgeGeometry> aGeometries = new WeakHashMap<>();
+	
 	/**
 	 * The default behavior is to draw a straight line between
 	 * the connections points oriented in the direction of each 
@@ -82,22 +96,53 @@ public abstract class AbstractEdgeViewer implements EdgeViewer
 	public boolean contains(Edge pEdge, Point pPoint)
 	{
 		// Purposefully does not include the arrow head and labels, which create large bounds.
-		Line conn = getConnectionPoints(pEdge);
-		if(pPoint.distance(conn.getPoint1()) <= MAX_DISTANCE || pPoint.distance(conn.getPoint2()) <= MAX_DISTANCE)
-		{
-			return false;
-		}
-
-		Shape fatPath = getShape(pEdge);
-		fatPath.setStrokeWidth(2 * MAX_DISTANCE);
-		return fatPath.contains(pPoint.getX(), pPoint.getY());
+		return geometryOf(pEdge).contains(pPoint);
 	}
 	
 	@Override
 	public Rectangle getBounds(Edge pEdge)
 	{
-		Bounds bounds = getShape(pEdge).getBoundsInLocal();
-		return new Rectangle((int)bounds.getMinX(), (int)bounds.getMinY(), (int)bounds.getWidth(), (int)bounds.getHeight());
+		return geometryOf(pEdge).aBounds;
+	}
+	
+	/*
+	 * Returns the geometry of pEdge for the current version of its diagram, 
+	 * computing it if necessary. The geometry of edges whose diagram is not 
+	 * known, or whose end points are not in its diagram, is never stored.
+	 */
+	private EdgeGeometry geometryOf(Edge pEdge)
+	{
+		Diagram diagram = pEdge.getDiagram();
+		if( diagram == null || pEdge.getStart().getDiagram().orElse(null) != diagram || 
+				pEdge.getEnd().getDiagram().orElse(null) != diagram )
+		{
+			return computeGeometry(pEdge, 0, 0);
+		}
+		long modificationStamp = diagram.getModificationStamp();
+		int fontSize = UserPreferences.instance().getInteger(IntegerPreference.fontSize);
+		EdgeGeometry geometry = aGeometries.get(pEdge);
+		if( geometry == null || !geometry.isValidFor(modificationStamp, fontSize) )
+		{
+			geometry = computeGeometry(pEdge, modificationStamp, fontSize);
+			aGeometries.put(pEdge, geometry);
+		}
+		return geometry;
+	}
+	
+	private EdgeGeometry computeGeometry(Edge pEdge, long pModificationStamp, int pFontSize)
+	{
+		Shape shape = getShape(pEdge);
+		Bounds bounds = shape.getBoundsInLocal();
+		EdgeGeometry geometry = new EdgeGeometry(getConnectionPoints(pEdge), 
+				new Rectangle((int)bounds.getMinX(), (int)bounds.getMinY(), (int)bounds.getWidth(), (int)bounds.getHeight()),
+				pModificationStamp, pFontSize);
+		if( !geometry.extractSegments(shape) )
+		{
+			// Curved shapes are tested with the shape itself
+			shape.setStrokeWidth(2 * MAX_DISTANCE);
+			geometry.aFatShape = shape;
+		}
+		return geometry;
 	}
 	
 	/*
@@ -140,4 +185,126 @@ public abstract class AbstractEdgeViewer implements EdgeViewer
 		}
 		return StringViewer.wrapString(pString, lineLength);
 	}
+	
+	/*
+	 * The end points, bounds, and hit-testing geometry of an edge, 
+	 * for one version of the diagram of the edge.
+	 */
+	private static final class EdgeGeometry
+	{
+		private final Line aConnectionPoints;
+		private final Rectangle aBounds;
+		private final long aModificationStamp;
+		private final int aFontSize;
+		/* Coordinates of the segments of the shape, as consecutive quadruples x1, y1, x2, y2. */
+		private double[] aSegments;
+		private Shape aFatShape;
+		
+		EdgeGeometry(Line pConnectionPoints, Rectangle pBounds, long pModificationStamp, int pFontSize)
+		{
+			aConnectionPoints = pConnectionPoints;
+			aBounds = pBounds;
+			aModificationStamp = pModificationStamp;
+			aFontSize = pFontSize;
+		}
+		
+		boolean isValidFor(long pModificationStamp, int pFontSize)
+		{
+			return aModificationStamp == pModificationStamp && aFontSize == pFontSize;
+		}
+		
+		/*
+		 * Stores the segments of pShape if it is a path made only of straight lines.
+		 * Returns false, and stores nothing, otherwise.
+		 */
+		boolean extractSegments(Shape pShape)
+		{
+			if( !(pShape instanceof Path) )
+			{
+				return false;
+			}
+			List<Double> coordinates = new ArrayList<>();
+			double startX = 0;
+			double startY = 0;
+			double currentX = 0;
+			double currentY = 0;
+			for( PathElement element : ((Path)pShape).getElements() )
+			{
+				if( element instanceof MoveTo )
+				{
+					startX = ((MoveTo)element).getX();
+					startY = ((MoveTo)element).getY();
+					currentX = startX;
+					currentY = startY;
+				}
+				else if( element instanceof LineTo )
+				{
+					double x = ((LineTo)element).getX();
+					double y = ((LineTo)element).getY();
+					addSegment(coordinates, currentX, currentY, x, y);
+					currentX = x;
+					currentY = y;
+				}
+				else if( element instanceof ClosePath )
+				{
+					addSegment(coordinates, currentX, currentY, startX, startY);
+					currentX = startX;
+					currentY = startY;
+				}
+				else
+				{
+					return false;
+				}
+			}
+			aSegments = new double[coordinates.size()];
+			for( int i = 0; i < aSegments.length; i++ )
+			{
+				aSegments[i] = coordinates.get(i);
+			}
+			return true;
+		}
+		
+		private static void addSegment(List<Double> pCoordinates, double pX1, double pY1, double pX2, double pY2)
+		{
+			pCoordinates.add(pX1);
+			pCoordinates.add(pY1);
+			pCoordinates.add(pX2);
+			pCoordinates.add(pY2);
+		}
+		
+		boolean contains(Point pPoint)
+		{
+			if(pPoint.distance(aConnectionPoints.getPoint1()) <= MAX_DISTANCE || 
+					pPoint.distance(aConnectionPoints.getPoint2()) <= MAX_DISTANCE)
+			{
+				return false;
+			}
+			if( aFatShape != null )
+			{
+				return aFatShape.contains(pPoint.getX(), pPoint.getY());
+			}
+			for( int i = 0; i < aSegments.length; i += 4 )
+			{
+				if( distanceToSegment(pPoint.getX(), pPoint.getY(), 
+						aSegments[i], aSegments[i+1], aSegments[i+2], aSegments[i+3]) <= MAX_DISTANCE )
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		private static double distanceToSegment(double pX, double pY, double pX1, double pY1, double pX2, double pY2)
+		{
+			double dx = pX2 - pX1;
+			double dy = pY2 - pY1;
+			double lengthSquared = dx * dx + dy * dy;
+			double ratio = 0;
+			if( lengthSquared > 0 )
+			{
+				ratio = Math.max(0, Math.min(1, ((pX - pX1) * dx + (pY - pY1) * dy) / lengthSquared));
+			}
+			return Math.hypot(pX - (pX1 + ratio * dx), pY - (pY1 + ratio * dy));
+		}
+	}
 }
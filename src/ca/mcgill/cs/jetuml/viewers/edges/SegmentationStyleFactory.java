@@ -23,9 +23,15 @@ package ca.mcgill.cs.jetuml.viewers.edges;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.WeakHashMap;
 
+import ca.mcgill.cs.jetuml.application.UserPreferences;
+import ca.mcgill.cs.jetuml.application.UserPreferences.IntegerPreference;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.Edge;
 import ca.mcgill.cs.jetuml.diagram.Node;
 import ca.mcgill.cs.jetuml.diagram.edges.AggregationEdge;
@@ -55,6 +61,10 @@ public final class SegmentationStyleFactory
 	private static final int MARGIN = 20;
 	private static final int MIN_SEGMENT = 10;
 	private static final int MAX_NUDGE = 11;
+	
+	/* Attachment slots of the nodes of all diagrams, computed on demand. Weak keys so that 
+	 * the slots do not keep nodes reachable. */
+	private static final Map<Node, AttachmentSlots> ATTACHMENT_SLOTS = new WeakHashMap<>();
 
 	private SegmentationStyleFactory(){}
 	
@@ -255,35 +265,66 @@ public final class SegmentationStyleFactory
 		{
 			tempTarget = pEdge.getEnd();
 		}
-		final Node target = tempTarget;
-		List<Edge> edgesOnSelectedSide = getAllEdgesForSide(target, pStartSide);
-		sortPositions(edgesOnSelectedSide, target, pStartSide);
-		
-		// Group identical edge ends
-		List<Edge> finalPositions = new ArrayList<>();
-		int index = -1;
-		for( Edge edge : edgesOnSelectedSide )
+		return attachmentSlotsOf(tempTarget).positionOf(pEdge, pStartSide);
+	}
+	
+	/*
+	 * Returns the attachment slots of pNode for the current version of its diagram,
+	 * computing them if necessary.
+	 */
+	private static AttachmentSlots attachmentSlotsOf(Node pNode)
+	{
+		Optional<Diagram> diagram = pNode.getDiagram();
+		if( diagram.isEmpty() )
 		{
-			int aggregated = -1;
-			for( Edge classifiedEdge : finalPositions )
+			return computeAttachmentSlots(pNode, 0, 0);
+		}
+		long modificationStamp = diagram.get().getModificationStamp();
+		int fontSize = UserPreferences.instance().getInteger(IntegerPreference.fontSize);
+		AttachmentSlots slots = ATTACHMENT_SLOTS.get(pNode);
+		if( slots == null || !slots.isValidFor(modificationStamp, fontSize) )
+		{
+			slots = computeAttachmentSlots(pNode, modificationStamp, fontSize);
+			ATTACHMENT_SLOTS.put(pNode, slots);
+		}
+		return slots;
+	}
+	
+	/*
+	 * Distributes the class relationship edges connected to pTarget among its sides, 
+	 * in a single pass over the edges, then orders and groups the edges of each side.
+	 */
+	private static AttachmentSlots computeAttachmentSlots(Node pTarget, long pModificationStamp, int pFontSize)
+	{
+		Map<Side, List<Edge>> edgesBySide = getAllEdgesBySide(pTarget);
+		AttachmentSlots slots = new AttachmentSlots(pModificationStamp, pFontSize);
+		for( Map.Entry<Side, List<Edge>> entry : edgesBySide.entrySet() )
+		{
+			List<Edge> edgesOnSide = entry.getValue();
+			sortPositions(edgesOnSide, pTarget, entry.getKey());
+			
+			// Group identical edge ends
+			List<Edge> finalPositions = new ArrayList<>();
+			for( Edge edge : edgesOnSide )
 			{
-				if( canAggregate(edge, classifiedEdge, target))
+				int aggregated = -1;
+				for( int i = 0; i < finalPositions.size() && aggregated < 0; i++ )
+				{
+					if( canAggregate(edge, finalPositions.get(i), pTarget))
+					{
+						aggregated = i;
+					}
+				}
+				if( aggregated < 0 )
 				{
-					aggregated = finalPositions.indexOf(classifiedEdge);
-					break;
+					finalPositions.add(edge);
+					aggregated = finalPositions.size() - 1;
 				}
+				slots.add(entry.getKey(), edge, aggregated);
 			}
-			if( aggregated < 0 )
-			{
-				finalPositions.add(edge);
-				aggregated = finalPositions.size() - 1;
-			}
-			if( edge == pEdge )
-			{
-				index = aggregated;
-			}
+			slots.setTotal(entry.getKey(), finalPositions.size());
 		}
-		return new Position(index + 1, finalPositions.size());
+		return slots;
 	}
 	
 	// CSOFF:
@@ -315,10 +356,13 @@ public final class SegmentationStyleFactory
 		}
 	} // CSON:
 	
-	private static List<Edge> getAllEdgesForSide(Node pTarget, Side pSide)
+	private static Map<Side, List<Edge>> getAllEdgesBySide(Node pTarget)
 	{
-		assert pTarget.getDiagram().isPresent();
-		List<Edge> edgesOnSelectedSide = new ArrayList<>();
+		Map<Side, List<Edge>> edgesBySide = new EnumMap<>(Side.class);
+		if( pTarget.getDiagram().isEmpty() )
+		{
+			return edgesBySide;
+		}
 		for( Edge edge : pTarget.getDiagram().get().edgesConnectedTo(pTarget))
 		{
 			if( otherNode(edge, pTarget) == pTarget)
@@ -329,9 +373,10 @@ public final class SegmentationStyleFactory
 			{
 				continue;
 			}
-			getAttachedSide(edge, pTarget).filter( side -> side == pSide ).ifPresent( side -> edgesOnSelectedSide.add(edge) );
+			getAttachedSide(edge, pTarget).ifPresent( side -> 
+				edgesBySide.computeIfAbsent(side, key -> new ArrayList<>()).add(edge));
 		}
-		return edgesOnSelectedSide;
+		return edgesBySide;
 	}
 	
 	private static boolean isClassRelationshipEdge(Edge pEdge)
@@ -674,6 +719,49 @@ public final class SegmentationStyleFactory
 		}
 	}
 	
+	/*
+	 * The positions of the class relationship edges attached to each side of a node, 
+	 * for one version of the diagram of the node.
+	 */
+	private static final class AttachmentSlots
+	{
+		private final long aModificationStamp;
+		private final int aFontSize;
+		private final Map<Side, Map<Edge, Integer>> aIndexes = new EnumMap<>(Side.class);
+		private final Map<Side, Integer> aTotals = new EnumMap<>(Side.class);
+		
+		AttachmentSlots(long pModificationStamp, int pFontSize)
+		{
+			aModificationStamp = pModificationStamp;
+			aFontSize = pFontSize;
+		}
+		
+		boolean isValidFor(long pModificationStamp, int pFontSize)
+		{
+			return aModificationStamp == pModificationStamp && aFontSize == pFontSize;
+		}
+		
+		void add(Side pSide, Edge pEdge, int pIndex)
+		{
+			// Weak keys so that the slots do not keep edges, and through them their nodes, reachable
+			aIndexes.computeIfAbsent(pSide, key -> new WeakHashMap<>()).put(pEdge, pIndex);
+		}
+		
+		void setTotal(Side pSide, int pTotal)
+		{
+			aTotals.put(pSide, pTotal);
+		}
+		
+		/*
+		 * Edges that are not attached to pSide get index 0, as before.
+		 */
+		Position positionOf(Edge pEdge, Side pSide)
+		{
+			int index = aIndexes.getOrDefault(pSide, Collections.emptyMap()).getOrDefault(pEdge, -1);
+			return new Position(index + 1, aTotals.getOrDefault(pSide, 0));
+		}
+	}
+	
 	/** 
 	 * Indicates the total number of connection points
 	 * on the side of a rectangular node, and the index
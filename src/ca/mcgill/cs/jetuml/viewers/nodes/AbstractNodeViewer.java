@@ -38,7 +38,23 @@ public abstract class AbstractNodeViewer implements NodeViewer
 	public static final int BUTTON_SIZE = 25;
 	public static final int OFFSET = 3;
 	
-	private NodeStorage aNodeStorage = new NodeStorage();
+	private final NodeStorage aNodeStorage;
+	
+	/**
+	 * Creates a viewer for nodes whose bounds only depend on their tree of nodes.
+	 */
+	protected AbstractNodeViewer()
+	{
+		this(false);
+	}
+	
+	/**
+	 * @param pGlobalLayout True if the bounds of the nodes can depend on any element of their diagram.
+	 */
+	protected AbstractNodeViewer(boolean pGlobalLayout)
+	{
+		aNodeStorage = new NodeStorage(pGlobalLayout);
+	}
 	
 	/* 
 	 * The default behavior for containment is to return true if the point is
@@ -93,18 +109,6 @@ public abstract class AbstractNodeViewer implements NodeViewer
 		return aNodeStorage.getBounds(pNode, this::internalGetBounds);
 	}
 	
-	@Override
-	public final void activateNodeStorage()
-	{
-		aNodeStorage.activate();
-	}
-	
-	@Override
-	public final void deactivateAndClearNodeStorage() 
-	{
-		aNodeStorage.deactivateAndClear();
-	}
-	
 	/**
      * Gets the smallest rectangle that bounds this element.
      * The bounding rectangle contains all labels.
@@ -56,6 +56,14 @@ public final class CallNodeViewer extends AbstractNodeViewer
 	private static final String TEST_STRING = "|";
 	private static final int MINIMUM_SHIFT_THRESHOLD = 10;
 	
+	/**
+	 * Creates a viewer for call nodes, whose bounds depend on the calls of the whole diagram.
+	 */
+	public CallNodeViewer()
+	{
+		super(true);
+	}
+	
 	@Override
 	public void draw(Node pNode, GraphicsContext pGraphics)
 	{
@@ -95,11 +103,18 @@ public final class CallNodeViewer extends AbstractNodeViewer
 		}
 	}
 	
+	private static int getX(Node pNode)
+	{
+		return SequenceLayout.of(pNode)
+				.map(layout -> layout.getX(pNode, CallNodeViewer::computeX))
+				.orElseGet(() -> computeX(pNode));
+	}
+	
 	/*
 	 * The x position is a function of the position of the implicit parameter
 	 * node and the nesting depth of the call node.
 	 */
-	private static int getX(Node pNode)
+	private static int computeX(Node pNode)
 	{
 		final Diagram diagram = pNode.getDiagram().get();
 		final ImplicitParameterNode implicitParameterNode = (ImplicitParameterNode) pNode.getParent();
@@ -168,6 +183,13 @@ public final class CallNodeViewer extends AbstractNodeViewer
 	 *     Otherwise, return with a gap from last callee.
 	 */
 	public int getMaxY(Node pNode)
+	{
+		return SequenceLayout.of(pNode)
+				.map(layout -> layout.getMaxY(pNode, this::computeMaxY))
+				.orElseGet(() -> computeMaxY(pNode));
+	}
+	
+	private int computeMaxY(Node pNode)
 	{
 		final CallNode callNode = (CallNode) pNode;
 		final Diagram diagram = callNode.getDiagram().get();
@@ -211,6 +233,13 @@ public final class CallNodeViewer extends AbstractNodeViewer
 	}
 	
 	protected int getY(Node pNode)
+	{
+		return SequenceLayout.of(pNode)
+				.map(layout -> layout.getY(pNode, this::computeY))
+				.orElseGet(() -> computeY(pNode));
+	}
+	
+	private int computeY(Node pNode)
 	{
 		int shift = NODE_GAP_TESTER.getDimension(TEST_STRING).height() / 3;
 		// Only apply shift if necessary
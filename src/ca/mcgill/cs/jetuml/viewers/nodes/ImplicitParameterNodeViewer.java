@@ -54,6 +54,14 @@ public final class ImplicitParameterNodeViewer extends AbstractNodeViewer
 	private static final StringViewer NAME_VIEWER = StringViewer.get(Alignment.CENTER_CENTER, TextDecoration.PADDED, TextDecoration.UNDERLINED);
 	private static final CallNodeViewer CALL_NODE_VIEWER = new CallNodeViewer();
 	
+	/**
+	 * Creates a viewer for implicit parameters, whose bounds depend on the calls of the whole diagram.
+	 */
+	public ImplicitParameterNodeViewer()
+	{
+		super(true);
+	}
+	
 	@Override
 	public void draw(Node pNode, GraphicsContext pGraphics)
 	{
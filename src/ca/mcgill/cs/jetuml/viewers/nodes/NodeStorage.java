@@ -1,58 +1,96 @@
 package ca.mcgill.cs.jetuml.viewers.nodes;
 
- import java.util.IdentityHashMap;
- import java.util.Map;
- import java.util.function.Function;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.function.Function;
 
- import ca.mcgill.cs.jetuml.diagram.Node;
- import ca.mcgill.cs.jetuml.geom.Rectangle;
+import ca.mcgill.cs.jetuml.application.UserPreferences;
+import ca.mcgill.cs.jetuml.application.UserPreferences.IntegerPreference;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
 
- /**
-  * Stores the bounds of nodes. 
-  */
- public class NodeStorage 
- {
- 	private Map<Node, Rectangle> aNodeBounds = new IdentityHashMap<>();
- 	private boolean aIsActivated = false;
+/**
+ * Stores the bounds of nodes that belong to a diagram. By default, the bounds of
+ * a node only depend on the nodes of its tree of nodes, so stored bounds remain 
+ * valid until the diagram records a modification of a node of the same tree (for 
+ * example, because a node moved, a property changed, or a child was added or removed) 
+ * or until the font size preference changes. For nodes whose bounds depend on the 
+ * whole diagram, stored bounds remain valid until the diagram records any modification. 
+ * The bounds of nodes that do not belong to a diagram are never stored, because changes 
+ * to these nodes are not recorded.
+ */
+public class NodeStorage 
+{
+	private final Map<Node, StoredBounds> aNodeBounds = new WeakHashMap<>();
+	private final boolean aGlobalLayout;
+	
+	/**
+	 * Creates a storage for nodes whose bounds only depend on their tree of nodes.
+	 */
+	public NodeStorage()
+	{
+		this(false);
+	}
+	
+	/**
+	 * @param pGlobalLayout True if the bounds of the nodes can depend on any element of their diagram.
+	 */
+	public NodeStorage(boolean pGlobalLayout)
+	{
+		aGlobalLayout = pGlobalLayout;
+	}
 
- 	/**
- 	 * Returns the bounds of the current node either from the storage or from the calculator.
- 	 * @param pNode the node of interest.
- 	 * @param pBoundCalculator the bound calculator.
- 	 * @return the bounds of pNode. 
- 	 */
- 	public Rectangle getBounds(Node pNode, Function<Node, Rectangle> pBoundCalculator)
- 	{
- 		if (!aIsActivated)
- 		{
- 			return pBoundCalculator.apply(pNode);
- 		}
- 		else if (aIsActivated && aNodeBounds.containsKey(pNode))
- 		{
- 			return aNodeBounds.get(pNode);
- 		}
- 		else
- 		{
- 			Rectangle computedBounds = pBoundCalculator.apply(pNode);
- 			aNodeBounds.put(pNode, computedBounds);
- 			return computedBounds;
- 		}
- 	}
+	/**
+	 * Returns the bounds of the current node either from the storage or from the calculator.
+	 * @param pNode the node of interest.
+	 * @param pBoundCalculator the bound calculator.
+	 * @return the bounds of pNode. 
+	 */
+	public Rectangle getBounds(Node pNode, Function<Node, Rectangle> pBoundCalculator)
+	{
+		Optional<Diagram> diagram = pNode.getDiagram();
+		if( diagram.isEmpty() )
+		{
+			return pBoundCalculator.apply(pNode);
+		}
+		long modificationStamp = aGlobalLayout ? diagram.get().getModificationStamp() : 
+			diagram.get().getModificationStamp(pNode);
+		int fontSize = UserPreferences.instance().getInteger(IntegerPreference.fontSize);
+		StoredBounds stored = aNodeBounds.get(pNode);
+		if( stored == null || !stored.isValidFor(modificationStamp, fontSize) )
+		{
+			stored = new StoredBounds(pBoundCalculator.apply(pNode), modificationStamp, fontSize);
+			aNodeBounds.put(pNode, stored);
+		}
+		return stored.aBounds;
+	}
 
- 	/**
- 	 * Activates the NodeStorage.
- 	 */
- 	public void activate() 
- 	{
- 		aIsActivated = true;
- 	}
-
- 	/**
- 	 * Deactivates and clears the NodeStorage.
- 	 */
- 	public void deactivateAndClear() 
- 	{
- 		aIsActivated = false;
- 		aNodeBounds.clear();
- 	}
- }
\ No newline at end of file
+	/**
+	 * Removes all the stored bounds.
+	 */
+	public void clear() 
+	{
+		aNodeBounds.clear();
+	}
+	
+	private static final class StoredBounds
+	{
+		private final Rectangle aBounds;
+		private final long aModificationStamp;
+		private final int aFontSize;
+		
+		StoredBounds(Rectangle pBounds, long pModificationStamp, int pFontSize)
+		{
+			aBounds = pBounds;
+			aModificationStamp = pModificationStamp;
+			aFontSize = pFontSize;
+		}
+		
+		boolean isValidFor(long pModificationStamp, int pFontSize)
+		{
+			return aModificationStamp == pModificationStamp && aFontSize == pFontSize;
+		}
+	}
+}
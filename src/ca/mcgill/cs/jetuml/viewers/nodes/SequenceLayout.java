@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.viewers.nodes;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.function.ToIntFunction;
+
+import ca.mcgill.cs.jetuml.application.UserPreferences;
+import ca.mcgill.cs.jetuml.application.UserPreferences.IntegerPreference;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.Node;
+
+/**
+ * Memoizes the layout of the call nodes of one version of a sequence diagram. 
+ * The position of a call node depends on the position of its caller and of 
+ * its previous callees, so computing it without memoization revisits the same 
+ * nodes an exponential number of times in the depth of the call sequence. 
+ * With a layout, the X coordinate, Y coordinate, and bottom of each call node are 
+ * computed at most once per version of the diagram, in the order required 
+ * by their dependencies.
+ * 
+ * A layout is discarded as soon as the diagram records a modification or the 
+ * font size preference changes. Nodes that do not belong to a diagram have no layout.
+ */
+final class SequenceLayout
+{
+	private static final Map<Diagram, SequenceLayout> LAYOUTS = new WeakHashMap<>();
+	
+	private final long aModificationStamp;
+	private final int aFontSize;
+	/* Weak keys so that a layout does not keep the nodes, and through them the diagram, reachable. */
+	private final Map<Node, Integer> aX = new WeakHashMap<>();
+	private final Map<Node, Integer> aY = new WeakHashMap<>();
+	private final Map<Node, Integer> aMaxY = new WeakHashMap<>();
+	
+	private SequenceLayout(long pModificationStamp, int pFontSize)
+	{
+		aModificationStamp = pModificationStamp;
+		aFontSize = pFontSize;
+	}
+	
+	/**
+	 * @param pNode The node whose layout to obtain.
+	 * @return The layout of the current version of the diagram of pNode, or empty
+	 *     if pNode does not belong to a diagram.
+	 * @pre pNode != null
+	 */
+	static Optional<SequenceLayout> of(Node pNode)
+	{
+		assert pNode != null;
+		Optional<Diagram> diagram = pNode.getDiagram();
+		if( diagram.isEmpty() )
+		{
+			return Optional.empty();
+		}
+		long modificationStamp = diagram.get().getModificationStamp();
+		int fontSize = UserPreferences.instance().getInteger(IntegerPreference.fontSize);
+		SequenceLayout layout = LAYOUTS.get(diagram.get());
+		if( layout == null || layout.aModificationStamp != modificationStamp || layout.aFontSize != fontSize )
+		{
+			layout = new SequenceLayout(modificationStamp, fontSize);
+			LAYOUTS.put(diagram.get(), layout);
+		}
+		return Optional.of(layout);
+	}
+	
+	/**
+	 * @param pNode A call node.
+	 * @param pCalculator Computes the X coordinate of pNode if it is not yet known.
+	 * @return The X coordinate of pNode.
+	 */
+	int getX(Node pNode, ToIntFunction<Node> pCalculator)
+	{
+		return memoized(aX, pNode, pCalculator);
+	}
+	
+	/**
+	 * @param pNode A call node.
+	 * @param pCalculator Computes the Y coordinate of pNode if it is not yet known.
+	 * @return The Y coordinate of pNode.
+	 */
+	int getY(Node pNode, ToIntFunction<Node> pCalculator)
+	{
+		return memoized(aY, pNode, pCalculator);
+	}
+	
+	/**
+	 * @param pNode A call node.
+	 * @param pCalculator Computes the bottom of pNode if it is not yet known.
+	 * @return The bottom of pNode.
+	 */
+	int getMaxY(Node pNode, ToIntFunction<Node> pCalculator)
+	{
+		return memoized(aMaxY, pNode, pCalculator);
+	}
+	
+	/*
+	 * The calculators are recursive and store other values in the same map while
+	 * they run, so Map.computeIfAbsent cannot be used here.
+	 */
+	private static int memoized(Map<Node, Integer> pValues, Node pNode, ToIntFunction<Node> pCalculator)
+	{
+		Integer value = pValues.get(pNode);
+		if( value == null )
+		{
+			value = pCalculator.applyAsInt(pNode);
+			pValues.put(pNode, value);
+		}
+		return value;
+	}
+}
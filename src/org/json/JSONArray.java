@@ -89,6 +89,17 @@ public class JSONArray implements Iterable<Object>
         aElements = new ArrayList<>();
     }
 
+    /**
+     * Construct an empty JSONArray that can hold a number of elements
+     * without having to grow.
+     *
+     * @param pCapacity The number of elements expected in the JSONArray.
+     */
+    public JSONArray(int pCapacity) 
+    {
+        aElements = new ArrayList<>(pCapacity);
+    }
+
     /**
      * Construct a JSONArray from a JSONTokener.
      *
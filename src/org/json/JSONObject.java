@@ -159,6 +159,9 @@ public class JSONObject {
      */
     public static final Object NULL = new Null();
 
+    /** The number of digits of the integers that can be converted without overflow. */
+    private static final int MAX_INTEGER_DIGITS = 18;
+
     /**
      * Construct an empty JSONObject.
      */
@@ -212,14 +215,15 @@ public class JSONObject {
             
             if (key != null) {
                 // Check if key exists
-                if (this.opt(key) != null) {
+                if (this.map.containsKey(key)) {
                     // key already exists
                     throw x.syntaxError("Duplicate key \"" + key + "\"");
                 }
-                // Only add value if non-null
+                // Only add value if non-null. The values read by a tokener 
+                // are always valid, so they are added without being tested.
                 Object value = x.nextValue();
                 if (value!=null) {
-                    this.put(key, value);
+                    this.map.put(key, value);
                 }
             }
 
@@ -610,6 +614,9 @@ public class JSONObject {
      * @return A String correctly formatted for insertion in a JSON text.
      */
     public static String quote(String string) {
+        if (string != null && string.length() > 0 && !needsEscape(string)) {
+            return '"' + string + '"';
+        }
         StringWriter sw = new StringWriter();
         synchronized (sw.getBuffer()) {
             try 
@@ -628,6 +635,12 @@ public class JSONObject {
             pWriter.write("\"\"");
             return;
         }
+        if (!needsEscape(string)) {
+            pWriter.write('"');
+            pWriter.write(string);
+            pWriter.write('"');
+            return;
+        }
 
         char b;
         char c = 0;
@@ -681,6 +694,27 @@ public class JSONObject {
         pWriter.write('"');
     }
 
+    /**
+     * Tests if a string contains a character that quote writes as an escape 
+     * sequence. The character '/' is considered to need an escape, even if it 
+     * only does after a '<'.
+     *
+     * @param string
+     *            A String
+     * @return true if the string cannot be quoted as is.
+     */
+    private static boolean needsEscape(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c < ' ' || c == '\\' || c == '"' || c == '/' 
+                    || (c >= '\u0080' && c < '\u00a0')
+                    || (c >= '\u2000' && c < '\u2100')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Remove a name and its value, if present.
      *
@@ -718,6 +752,10 @@ public class JSONObject {
         if (string.equals("")) {
             return string;
         }
+        Number integer = stringToInteger(string);
+        if (integer != null) {
+            return integer;
+        }
         if (string.equalsIgnoreCase("true")) {
             return Boolean.TRUE;
         }
@@ -758,6 +796,42 @@ public class JSONObject {
         return string;
     }
 
+    /**
+     * Convert the representation of an integer into an Integer, or into a Long
+     * if it does not fit in an Integer, without creating intermediate objects.
+     * Only the representations that stringToValue converts into an Integer or a Long,
+     * that is, without leading zeros, are converted.
+     *
+     * @param string
+     *            The characters to convert.
+     * @return The number, or null if the characters are not such a representation
+     *         or are too long to be converted this way.
+     */
+    static Number stringToInteger(CharSequence string) {
+        int length = string.length();
+        int start = length > 0 && string.charAt(0) == '-' ? 1 : 0;
+        int digits = length - start;
+        if (digits == 0 || digits > MAX_INTEGER_DIGITS
+                || (string.charAt(start) == '0' && (digits > 1 || start == 1))) {
+            return null;
+        }
+        long value = 0;
+        for (int i = start; i < length; i++) {
+            char c = string.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (start == 1) {
+            value = -value;
+        }
+        if (value == (int) value) {
+            return Integer.valueOf((int) value);
+        }
+        return Long.valueOf(value);
+    }
+
     /**
      * Throw an exception if the object is a NaN or infinite number.
      *
@@ -1,9 +1,7 @@
 package org.json;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
 
 /*
 Copyright (c) 2002 JSON.org
@@ -33,6 +31,10 @@ SOFTWARE.
  * A JSONTokener takes a source string and extracts characters and tokens from
  * it. It is used by the JSONObject and JSONArray constructors to parse
  * JSON source strings.
+ * <p>
+ * The characters are read from a buffer of its own rather than one at a time
+ * from the reader, and strings without escapes as well as integers are
+ * extracted directly from that buffer.
  * @author JSON.org
  * @version 2014-05-03
  */
@@ -47,30 +49,34 @@ public class JSONTokener {
     private long line;
     /** previous character read from the input. */
     private char previous;
-    /** Reader for the input. */
+    /** Reader for the input, or null if the whole input is in the buffer. */
     private final Reader reader;
+    /** Characters read from the input and not yet consumed. */
+    private final char[] buffer;
+    /** Position of the next character to consume in the buffer. */
+    private int bufferPosition;
+    /** Number of valid characters in the buffer. */
+    private int bufferLength;
     /** flag to indicate that a previous character was requested. */
     private boolean usePrevious;
     /** the number of characters read in the previous line. */
     private long characterPreviousLine;
 
 
+    /** Size of the buffer when reading from a Reader. */
+    private static final int BUFFER_SIZE = 8192;
+    /** Characters that terminate an unquoted value. */
+    private static final String UNQUOTED_TERMINATORS = ",:]}/\\\"[{;=#";
+
     /**
      * Construct a JSONTokener from a Reader. The caller must close the Reader.
+     * The tokener reads ahead of the characters it returns, so the reader must 
+     * not be used by the caller once the tokener has been created.
      *
      * @param reader     A reader.
      */
     public JSONTokener(Reader reader) {
-        this.reader = reader.markSupported()
-                ? reader
-                        : new BufferedReader(reader);
-        this.eof = false;
-        this.usePrevious = false;
-        this.previous = 0;
-        this.index = 0;
-        this.character = 1;
-        this.characterPreviousLine = 0;
-        this.line = 1;
+        this(reader, new char[BUFFER_SIZE], 0);
     }
 
     /**
@@ -79,7 +85,21 @@ public class JSONTokener {
      * @param s     A source string.
      */
     public JSONTokener(String s) {
-        this(new StringReader(s));
+        this(null, s.toCharArray(), s.length());
+    }
+
+    private JSONTokener(Reader reader, char[] buffer, int length) {
+        this.reader = reader;
+        this.buffer = buffer;
+        this.bufferPosition = 0;
+        this.bufferLength = length;
+        this.eof = false;
+        this.usePrevious = false;
+        this.previous = 0;
+        this.index = 0;
+        this.character = 1;
+        this.characterPreviousLine = 0;
+        this.line = 1;
     }
 
 
@@ -152,11 +172,7 @@ public class JSONTokener {
             this.usePrevious = false;
             c = this.previous;
         } else {
-            try {
-                c = this.reader.read();
-            } catch (IOException exception) {
-                throw new JSONException(exception);
-            }
+            c = this.read();
         }
         if (c <= 0) { // End of stream
             this.eof = true;
@@ -167,6 +183,41 @@ public class JSONTokener {
         return this.previous;
     }
 
+    /**
+     * Reads the next character from the buffer, and refills the buffer
+     * from the reader when it is empty.
+     * @return The next character, or -1 at the end of the input.
+     * @throws JSONException Thrown if there is an error reading the input.
+     */
+    private int read() throws JSONException {
+        if (this.bufferPosition == this.bufferLength && !this.fill()) {
+            return -1;
+        }
+        return this.buffer[this.bufferPosition++];
+    }
+
+    /**
+     * Refills the buffer from the reader.
+     * @return False if there are no more characters to read.
+     * @throws JSONException Thrown if there is an error reading the input.
+     */
+    private boolean fill() throws JSONException {
+        if (this.reader == null) {
+            return false;
+        }
+        try {
+            int length = this.reader.read(this.buffer, 0, this.buffer.length);
+            while (length == 0) {
+                length = this.reader.read(this.buffer, 0, this.buffer.length);
+            }
+            this.bufferPosition = 0;
+            this.bufferLength = Math.max(length, 0);
+            return length > 0;
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        }
+    }
+
     /**
      * Increments the internal indexes according to the previous character
      * read and the character passed as the current character.
@@ -246,6 +297,10 @@ public class JSONTokener {
      * @throws JSONException Unterminated string.
      */
     public String nextString(char quote) throws JSONException {
+        String string = this.nextStringInBuffer(quote);
+        if (string != null) {
+            return string;
+        }
         char c;
         StringBuilder sb = new StringBuilder();
         for (;;) {
@@ -299,6 +354,35 @@ public class JSONTokener {
         }
     }
 
+    /**
+     * Return the characters up to the next close quote character if they are 
+     * all in the buffer and none of them needs to be processed.
+     * @param quote The quoting character.
+     * @return The string, or null if the string must be read character by 
+     * character, in which case no character is consumed.
+     */
+    private String nextStringInBuffer(char quote) {
+        if (this.usePrevious) {
+            return null;
+        }
+        for (int i = this.bufferPosition; i < this.bufferLength; i++) {
+            char c = this.buffer[i];
+            if (c == quote) {
+                String string = new String(this.buffer, this.bufferPosition, i - this.bufferPosition);
+                int consumed = i + 1 - this.bufferPosition;
+                this.index += consumed;
+                this.character += consumed;
+                this.previous = quote;
+                this.bufferPosition = i + 1;
+                return string;
+            }
+            if (c == '\\' || c == '\n' || c == '\r' || c == 0) {
+                return null;
+            }
+        }
+        return null;
+    }
+
     /**
      * Get the next value. The value can be a Boolean, Double, Integer,
      * JSONArray, JSONObject, Long, or String, or the JSONObject.NULL object.
@@ -332,12 +416,16 @@ public class JSONTokener {
          */
 
         StringBuilder sb = new StringBuilder();
-        while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+        while (c >= ' ' && UNQUOTED_TERMINATORS.indexOf(c) < 0) {
             sb.append(c);
             c = this.next();
         }
         this.back();
 
+        Number integer = JSONObject.stringToInteger(sb);
+        if (integer != null) {
+            return integer;
+        }
         string = sb.toString().trim();
         if ("".equals(string)) {
             throw this.syntaxError("Missing value");
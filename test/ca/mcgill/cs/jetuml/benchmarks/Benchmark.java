@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2021 by McGill University.
+ *
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.benchmarks;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Measures the average time of an operation, in the manner of a JMH
+ * benchmark in average time mode: a number of warm-up iterations are
+ * run and discarded, then the operation is repeated during each measured
+ * iteration for a fixed amount of time. The result is the median, over the
+ * measured iterations, of the average time of one operation.
+ *
+ * The values produced by the operation are folded into a sink so that
+ * the just-in-time compiler cannot eliminate the operation.
+ */
+public final class Benchmark
+{
+	private static final int WARMUP_ITERATIONS = 3;
+	private static final int MEASURED_ITERATIONS = 5;
+	private static final long ITERATION_TIME_NS = 200_000_000L;
+
+	private static volatile int aSink = 0;
+
+	private final String aName;
+	private final Supplier<Object> aOperation;
+
+	/**
+	 * @param pName The name of the benchmark, used in the report.
+	 * @param pOperation The operation to measure.
+	 */
+	public Benchmark(String pName, Supplier<Object> pOperation)
+	{
+		aName = pName;
+		aOperation = pOperation;
+	}
+
+	/**
+	 * @return The name of this benchmark.
+	 */
+	public String name()
+	{
+		return aName;
+	}
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @return The median average time of one operation, in nanoseconds.
+	 */
+	public double run()
+	{
+		for( int i = 0; i < WARMUP_ITERATIONS; i++ )
+		{
+			iteration();
+		}
+		double[] results = new double[MEASURED_ITERATIONS];
+		for( int i = 0; i < MEASURED_ITERATIONS; i++ )
+		{
+			results[i] = iteration();
+		}
+		Arrays.sort(results);
+		return results[MEASURED_ITERATIONS / 2];
+	}
+
+	/*
+	 * Repeats the operation for ITERATION_TIME_NS and returns the
+	 * average time of one operation.
+	 */
+	private double iteration()
+	{
+		int sink = 0;
+		long operations = 0;
+		long start = System.nanoTime();
+		long elapsed = 0;
+		while( elapsed < ITERATION_TIME_NS )
+		{
+			Object result = aOperation.get();
+			sink ^= System.identityHashCode(result);
+			operations++;
+			elapsed = System.nanoTime() - start;
+		}
+		aSink ^= sink;
+		return (double) elapsed / operations;
+	}
+}
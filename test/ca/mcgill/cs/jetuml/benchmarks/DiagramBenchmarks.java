@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2021 by McGill University.
+ *
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.json.JSONObject;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.application.Clipboard;
+import ca.mcgill.cs.jetuml.diagram.ControlFlow;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
+import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.persistence.JsonDecoder;
+import ca.mcgill.cs.jetuml.persistence.JsonEncoder;
+import ca.mcgill.cs.jetuml.viewers.DiagramViewer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * Runs the benchmarks of rendering, hit-testing, persistence, copying, duplication,
+ * and control-flow queries over synthetic diagrams of increasing size,
+ * and prints the average time of one operation for each benchmark and size.
+ *
+ * Sizes can be passed as arguments, e.g., "10 1000". By default, the benchmarks
+ * run for 10, 100, 1000, and 10000 elements.
+ */
+public final class DiagramBenchmarks
+{
+	private static final int[] DEFAULT_SIZES = {10, 100, 1000, 10000};
+	private static final int NUMBER_OF_QUERY_POINTS = 256;
+	private static final long SEED = 0;
+	private static final double NANOS_PER_MICRO = 1000.0;
+
+	private DiagramBenchmarks() {}
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param pArgs The sizes of the diagrams, optional.
+	 */
+	public static void main(String[] pArgs)
+	{
+		JavaFXLoader.load();
+		int[] sizes = DEFAULT_SIZES;
+		if( pArgs.length > 0 )
+		{
+			sizes = new int[pArgs.length];
+			for( int i = 0; i < pArgs.length; i++ )
+			{
+				sizes[i] = Integer.parseInt(pArgs[i]);
+			}
+		}
+		System.out.println(String.format("%-32s %8s %14s", "Benchmark", "Size", "us/op"));
+		for( int size : sizes )
+		{
+			for( Benchmark benchmark : benchmarks(size) )
+			{
+				double result = benchmark.run();
+				System.out.println(String.format("%-32s %8d %14.3f", benchmark.name(), size, result / NANOS_PER_MICRO));
+			}
+		}
+	}
+
+	/**
+	 * @param pSize The number of elements of the synthetic diagrams.
+	 * @return All the benchmarks for diagrams of size pSize.
+	 */
+	public static List<Benchmark> benchmarks(int pSize)
+	{
+		Diagram classDiagram = SyntheticDiagrams.classDiagram(pSize);
+		Diagram sequenceDiagram = SyntheticDiagrams.sequenceDiagram(Math.max(2, pSize));
+		DiagramViewer viewer = DiagramType.viewerFor(classDiagram);
+		GraphicsContext graphics = new Canvas().getGraphicsContext2D();
+		Point[] points = queryPoints(pSize);
+		JSONObject encoded = JsonEncoder.encode(classDiagram);
+		List<DiagramElement> elements = SyntheticDiagrams.elementsOf(classDiagram);
+		ControlFlow flow = new ControlFlow(sequenceDiagram);
+		Node caller = sequenceDiagram.rootNodes().get(0).getChildren().get(0);
+		Node lastCallee = sequenceDiagram.edges().get(sequenceDiagram.edges().size() - 1).getEnd();
+
+		List<Benchmark> benchmarks = new ArrayList<>();
+		benchmarks.add(new Benchmark("DiagramViewer.draw", () ->
+		{
+			viewer.draw(classDiagram, graphics);
+			return graphics;
+		}));
+		benchmarks.add(new Benchmark("DiagramViewer.nodeAt", new PointQuery(points, point -> viewer.nodeAt(classDiagram, point))));
+		benchmarks.add(new Benchmark("DiagramViewer.edgeAt", new PointQuery(points, point -> DiagramViewer.edgeAt(classDiagram, point))));
+		benchmarks.add(new Benchmark("DiagramViewer.getBounds", () -> DiagramViewer.getBounds(classDiagram)));
+		benchmarks.add(new Benchmark("JsonEncoder.encode", () -> JsonEncoder.encode(classDiagram)));
+		benchmarks.add(new Benchmark("JsonDecoder.decode", () -> JsonDecoder.decode(encoded)));
+		benchmarks.add(new Benchmark("Diagram.duplicate", classDiagram::duplicate));
+		benchmarks.add(new Benchmark("Clipboard.copy", () ->
+		{
+			Clipboard.instance().copy(elements);
+			return Clipboard.instance();
+		}));
+		benchmarks.add(new Benchmark("ControlFlow.getCallees", () -> flow.getCallees(caller)));
+		benchmarks.add(new Benchmark("ControlFlow.getCaller", () -> flow.getCaller(lastCallee)));
+		benchmarks.add(new Benchmark("ControlFlow.getNestingDepth", () -> flow.getNestingDepth((CallNode) lastCallee)));
+		return benchmarks;
+	}
+
+	/*
+	 * Random points over the area covered by a synthetic class diagram of size pSize.
+	 */
+	private static Point[] queryPoints(int pSize)
+	{
+		Random random = new Random(SEED);
+		int columns = SyntheticDiagrams.columns(pSize);
+		int width = columns * SyntheticDiagrams.HORIZONTAL_SPACING;
+		int height = (pSize / columns + 1) * SyntheticDiagrams.VERTICAL_SPACING;
+		Point[] points = new Point[NUMBER_OF_QUERY_POINTS];
+		for( int i = 0; i < points.length; i++ )
+		{
+			points[i] = new Point(random.nextInt(width), random.nextInt(height));
+		}
+		return points;
+	}
+
+	/*
+	 * Cycles through a fixed set of points, one query per operation.
+	 */
+	private static final class PointQuery implements Supplier<Object>
+	{
+		private final Point[] aPoints;
+		private final Function<Point, Object> aQuery;
+		private int aNext = 0;
+
+		PointQuery(Point[] pPoints, Function<Point, Object> pQuery)
+		{
+			aPoints = pPoints;
+			aQuery = pQuery;
+		}
+
+		@Override
+		public Object get()
+		{
+			aNext = (aNext + 1) % aPoints.length;
+			return aQuery.apply(aPoints[aNext]);
+		}
+	}
+}
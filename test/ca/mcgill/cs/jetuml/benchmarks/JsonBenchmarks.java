@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.benchmarks;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * Runs the benchmarks of the parsing and writing of JSON text by the
+ * org.json classes, over JSON encodings of class diagrams of increasing size, 
+ * and prints the average time of one operation for each benchmark and size.
+ * 
+ * The encodings are generated directly, in the format of JsonEncoder, so 
+ * these benchmarks do not need the JavaFX toolkit. To compare two versions of 
+ * the org.json classes, run the benchmarks against each of them.
+ *
+ * Sizes can be passed as arguments, e.g., "10 1000". By default, the benchmarks
+ * run for 10, 100, 1000, and 10000 nodes.
+ */
+public final class JsonBenchmarks
+{
+	private static final int[] DEFAULT_SIZES = {10, 100, 1000, 10000};
+	private static final double NANOS_PER_MICRO = 1000.0;
+	
+	private JsonBenchmarks() {}
+	
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param pArgs The sizes of the diagrams, optional.
+	 */
+	public static void main(String[] pArgs)
+	{
+		int[] sizes = DEFAULT_SIZES;
+		if( pArgs.length > 0 )
+		{
+			sizes = new int[pArgs.length];
+			for( int i = 0; i < pArgs.length; i++ )
+			{
+				sizes[i] = Integer.parseInt(pArgs[i]);
+			}
+		}
+		System.out.println(String.format("%-32s %8s %14s", "Benchmark", "Size", "us/op"));
+		for( int size : sizes )
+		{
+			for( Benchmark benchmark : benchmarks(size) )
+			{
+				double result = benchmark.run();
+				System.out.println(String.format("%-32s %8d %14.3f", benchmark.name(), size, result / NANOS_PER_MICRO));
+			}
+		}
+	}
+	
+	/**
+	 * @param pSize The number of nodes of the encoded diagrams.
+	 * @return All the benchmarks for diagrams of size pSize.
+	 */
+	public static List<Benchmark> benchmarks(int pSize)
+	{
+		JSONObject diagram = classDiagram(pSize);
+		String text = diagram.toString();
+		
+		List<Benchmark> benchmarks = new ArrayList<>();
+		benchmarks.add(new Benchmark("JSONObject(String)", () -> new JSONObject(text)));
+		benchmarks.add(new Benchmark("JSONObject(JSONTokener(Reader))", 
+				() -> new JSONObject(new JSONTokener(new StringReader(text)))));
+		benchmarks.add(new Benchmark("JSONObject.toString", diagram::toString));
+		benchmarks.add(new Benchmark("JSONObject.write", () -> 
+		{
+			StringWriter writer = new StringWriter(text.length());
+			diagram.write(writer, 0, 0);
+			return writer;
+		}));
+		return benchmarks;
+	}
+	
+	/*
+	 * The encoding of a class diagram with pSize class nodes laid out on a grid, 
+	 * each with a dependency to the next node.
+	 */
+	private static JSONObject classDiagram(int pSize)
+	{
+		int columns = SyntheticDiagrams.columns(pSize);
+		JSONArray nodes = new JSONArray();
+		JSONArray edges = new JSONArray();
+		for( int i = 0; i < pSize; i++ )
+		{
+			JSONObject node = new JSONObject();
+			node.put("id", i);
+			node.put("type", "ClassNode");
+			node.put("name", "Class" + i);
+			node.put("attributes", "- aField" + i + " : int");
+			node.put("methods", "+ method" + i + "() : void");
+			node.put("x", (i % columns) * SyntheticDiagrams.HORIZONTAL_SPACING);
+			node.put("y", (i / columns) * SyntheticDiagrams.VERTICAL_SPACING);
+			nodes.put(node);
+			if( i > 0 )
+			{
+				JSONObject edge = new JSONObject();
+				edge.put("type", "DependencyEdge");
+				edge.put("middleLabel", "uses");
+				edge.put("directionality", "Unidirectional");
+				edge.put("start", i - 1);
+				edge.put("end", i);
+				edges.put(edge);
+			}
+		}
+		JSONObject diagram = new JSONObject();
+		diagram.put("diagram", "ClassDiagram");
+		diagram.put("nodes", nodes);
+		diagram.put("edges", edges);
+		diagram.put("version", "3.3");
+		return diagram;
+	}
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2021 by McGill University.
+ *
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Edge;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.edges.CallEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.GeneralizationEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.ImplicitParameterNode;
+import ca.mcgill.cs.jetuml.geom.Point;
+
+/**
+ * Generates diagrams of a requested size, for benchmarks.
+ * The generated diagrams are deterministic.
+ */
+public final class SyntheticDiagrams
+{
+	static final int HORIZONTAL_SPACING = 150;
+	static final int VERTICAL_SPACING = 100;
+	private static final int CALLS_PER_PARAMETER = 10;
+
+	private SyntheticDiagrams() {}
+
+	/**
+	 * Creates a class diagram with pSize class nodes laid out on a square grid.
+	 * Each class depends on the class to its right, and each class
+	 * is a subclass of the class above it, so the diagram has about
+	 * 2 x pSize edges.
+	 *
+	 * @param pSize The number of class nodes.
+	 * @return A new class diagram.
+	 * @pre pSize > 0
+	 */
+	public static Diagram classDiagram(int pSize)
+	{
+		assert pSize > 0;
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		int columns = columns(pSize);
+		List<Node> nodes = new ArrayList<>();
+		for( int i = 0; i < pSize; i++ )
+		{
+			ClassNode node = new ClassNode();
+			node.setName("Class" + i);
+			node.moveTo(new Point((i % columns) * HORIZONTAL_SPACING, (i / columns) * VERTICAL_SPACING));
+			diagram.addRootNode(node);
+			nodes.add(node);
+		}
+		for( int i = 0; i < pSize; i++ )
+		{
+			if( (i + 1) % columns != 0 && i + 1 < pSize )
+			{
+				connect(diagram, new DependencyEdge(), nodes.get(i), nodes.get(i + 1));
+			}
+			if( i >= columns )
+			{
+				connect(diagram, new GeneralizationEdge(), nodes.get(i), nodes.get(i - columns));
+			}
+		}
+		return diagram;
+	}
+
+	/**
+	 * Creates a sequence diagram with about pSize call nodes. A single
+	 * caller on the first implicit parameter calls every other call node, which
+	 * are distributed over additional implicit parameters.
+	 *
+	 * @param pSize The number of call nodes.
+	 * @return A new sequence diagram.
+	 * @pre pSize > 1
+	 */
+	public static Diagram sequenceDiagram(int pSize)
+	{
+		assert pSize > 1;
+		Diagram diagram = new Diagram(DiagramType.SEQUENCE);
+		ImplicitParameterNode callerParameter = new ImplicitParameterNode();
+		diagram.addRootNode(callerParameter);
+		CallNode caller = new CallNode();
+		callerParameter.addChild(caller);
+
+		int parameters = Math.max(1, (pSize - 1) / CALLS_PER_PARAMETER);
+		List<ImplicitParameterNode> callees = new ArrayList<>();
+		for( int i = 0; i < parameters; i++ )
+		{
+			ImplicitParameterNode parameter = new ImplicitParameterNode();
+			parameter.moveTo(new Point((i + 1) * HORIZONTAL_SPACING, 0));
+			diagram.addRootNode(parameter);
+			callees.add(parameter);
+		}
+		for( int i = 1; i < pSize; i++ )
+		{
+			CallNode callee = new CallNode();
+			callees.get(i % parameters).addChild(callee);
+			connect(diagram, new CallEdge(), caller, callee);
+		}
+		return diagram;
+	}
+
+	/**
+	 * @param pDiagram A diagram.
+	 * @return The root nodes and the edges of pDiagram.
+	 */
+	public static List<DiagramElement> elementsOf(Diagram pDiagram)
+	{
+		List<DiagramElement> elements = new ArrayList<>(pDiagram.rootNodes());
+		pDiagram.edges().forEach(elements::add);
+		return elements;
+	}
+
+	/**
+	 * @param pSize A number of nodes laid out on a square grid.
+	 * @return The number of columns of the grid.
+	 */
+	public static int columns(int pSize)
+	{
+		return Math.max(1, (int) Math.ceil(Math.sqrt(pSize)));
+	}
+
+	private static void connect(Diagram pDiagram, Edge pEdge, Node pStart, Node pEnd)
+	{
+		pEdge.connect(pStart, pEnd, pDiagram);
+		pDiagram.addEdge(pEdge);
+	}
+}
@@ -25,6 +25,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -34,6 +36,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
 import ca.mcgill.cs.jetuml.diagram.nodes.AbstractNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
@@ -136,4 +139,262 @@ public class TestDiagram
 		assertSame(childNodes.get(0),callNode1);
 		assertSame(childNodes.get(1), callNode2);
 	}
+	
+	private Edge createEdge(Node pStart, Node pEnd)
+	{
+		Edge edge = new DependencyEdge();
+		edge.connect(pStart, pEnd, aDiagram);
+		return edge;
+	}
+	
+	private static List<Edge> toList(Iterable<Edge> pEdges)
+	{
+		List<Edge> result = new ArrayList<>();
+		pEdges.forEach(result::add);
+		return result;
+	}
+	
+	@Test
+	public void testAdjacency_AddAndRemove()
+	{
+		aDiagram.addRootNode(aNode1);
+		aDiagram.addRootNode(aNode3);
+		Edge edge1 = createEdge(aNode1, aNode3);
+		Edge edge2 = createEdge(aNode3, aNode1);
+		Edge loop = createEdge(aNode1, aNode1);
+		aDiagram.addEdge(edge1);
+		aDiagram.addEdge(edge2);
+		aDiagram.addEdge(loop);
+		assertEquals(List.of(edge1, loop), aDiagram.outgoingEdges(aNode1));
+		assertEquals(List.of(edge2, loop), aDiagram.incomingEdges(aNode1));
+		assertEquals(List.of(edge1, edge2, loop), toList(aDiagram.edgesConnectedTo(aNode1)));
+		assertEquals(List.of(edge1, edge2), toList(aDiagram.edgesConnectedTo(aNode3)));
+		
+		aDiagram.removeEdge(edge1);
+		assertEquals(List.of(loop), aDiagram.outgoingEdges(aNode1));
+		assertEquals(List.of(edge2, loop), aDiagram.incomingEdges(aNode1));
+		assertEquals(List.of(edge2), toList(aDiagram.edgesConnectedTo(aNode3)));
+		
+		aDiagram.removeEdge(edge2);
+		aDiagram.removeEdge(loop);
+		assertTrue(aDiagram.outgoingEdges(aNode1).isEmpty());
+		assertFalse(aDiagram.edgesConnectedTo(aNode3).iterator().hasNext());
+	}
+	
+	@Test
+	public void testAdjacency_AddAtIndexPreservesOrder()
+	{
+		aDiagram.addRootNode(aNode1);
+		aDiagram.addRootNode(aNode3);
+		Edge edge1 = createEdge(aNode1, aNode3);
+		Edge edge2 = createEdge(aNode1, aNode3);
+		Edge edge3 = createEdge(aNode1, aNode3);
+		aDiagram.addEdge(edge1);
+		aDiagram.addEdge(edge3);
+		aDiagram.addEdge(1, edge2);
+		assertEquals(List.of(edge1, edge2, edge3), aDiagram.outgoingEdges(aNode1));
+		assertEquals(List.of(edge1, edge2, edge3), aDiagram.incomingEdges(aNode3));
+	}
+	
+	@Test
+	public void testAdjacency_Duplicate()
+	{
+		aDiagram.addRootNode(aNode1);
+		aDiagram.addRootNode(aNode3);
+		aDiagram.addEdge(createEdge(aNode1, aNode3));
+		Diagram copy = aDiagram.duplicate();
+		Node start = copy.rootNodes().get(0);
+		Node end = copy.rootNodes().get(1);
+		assertEquals(copy.edges(), copy.outgoingEdges(start));
+		assertEquals(copy.edges(), copy.incomingEdges(end));
+		assertTrue(copy.incomingEdges(start).isEmpty());
+	}
+	
+	@Test
+	public void testAdjacency_Reconnect()
+	{
+		aDiagram.addRootNode(aNode1);
+		aDiagram.addRootNode(aNode3);
+		Edge edge = createEdge(aNode1, aNode3);
+		aDiagram.addEdge(edge);
+		edge.connect(aNode3, aNode1, aDiagram);
+		assertEquals(List.of(edge), aDiagram.outgoingEdges(aNode3));
+		assertTrue(aDiagram.outgoingEdges(aNode1).isEmpty());
+	}
+	
+	@Test
+	public void testContains_ChildAddedAfterRoot()
+	{
+		aDiagram.addRootNode(aNode2);
+		aNode2.addChild(aNode4);
+		aNode4.addChild(aNode3);
+		assertTrue(aDiagram.contains(aNode3));
+		assertFalse(aDiagram.containsAsRoot(aNode3));
+		
+		aNode2.removeChild(aNode4);
+		assertFalse(aDiagram.contains(aNode3));
+		assertFalse(aDiagram.contains(aNode4));
+		
+		aDiagram.removeRootNode(aNode2);
+		assertFalse(aDiagram.contains(aNode2));
+	}
+	
+	@Test
+	public void testContains_Edges()
+	{
+		aDiagram.addRootNode(aNode1);
+		aDiagram.addRootNode(aNode3);
+		Edge edge = createEdge(aNode1, aNode3);
+		assertFalse(aDiagram.contains(edge));
+		aDiagram.addEdge(edge);
+		assertTrue(aDiagram.contains(edge));
+		aDiagram.removeEdge(edge);
+		assertFalse(aDiagram.contains(edge));
+	}
+	
+	@Test
+	public void testIndexOf()
+	{
+		aDiagram.addRootNode(aNode1);
+		aDiagram.addRootNode(aNode3);
+		Edge edge1 = createEdge(aNode1, aNode3);
+		Edge edge2 = createEdge(aNode1, aNode3);
+		Edge edge3 = createEdge(aNode1, aNode3);
+		Edge edge4 = createEdge(aNode1, aNode3);
+		aDiagram.addEdge(edge1);
+		aDiagram.addEdge(edge3);
+		assertEquals(1, aDiagram.indexOf(edge3));
+		aDiagram.addEdge(1, edge2);
+		assertEquals(1, aDiagram.indexOf(edge2));
+		assertEquals(2, aDiagram.indexOf(edge3));
+		aDiagram.addEdge(edge4);
+		assertEquals(3, aDiagram.indexOf(edge4));
+		aDiagram.removeEdge(edge1);
+		assertEquals(List.of(edge2, edge3, edge4), aDiagram.edges());
+		assertEquals(0, aDiagram.indexOf(edge2));
+		assertEquals(2, aDiagram.indexOf(edge4));
+		aDiagram.removeEdge(edge4);
+		assertEquals(1, aDiagram.indexOf(edge3));
+	}
+	
+	@Test
+	public void testContains_Duplicate()
+	{
+		aDiagram.addRootNode(aNode2);
+		aNode2.addChild(aNode3);
+		aDiagram.addRootNode(aNode1);
+		aDiagram.addEdge(createEdge(aNode1, aNode3));
+		Diagram copy = aDiagram.duplicate();
+		Node child = copy.rootNodes().get(0).getChildren().get(0);
+		assertTrue(copy.contains(child));
+		assertFalse(aDiagram.contains(child));
+		assertTrue(copy.contains(copy.edges().get(0)));
+		assertEquals(0, copy.indexOf(copy.edges().get(0)));
+		assertFalse(copy.contains(aDiagram.edges().get(0)));
+	}
+	
+	@Test
+	public void testAddEdge_KeepsAdjacencyValid()
+	{
+		aDiagram.addRootNode(aNode1);
+		aDiagram.addRootNode(aNode3);
+		aDiagram.addEdge(createEdge(aNode1, aNode3));
+		assertEquals(1, toList(aDiagram.outgoingEdges(aNode1)).size());
+		assertTrue(aDiagram.isAdjacencyValid());
+		
+		Edge edge = createEdge(aNode3, aNode1);
+		assertTrue(aDiagram.isAdjacencyValid());
+		aDiagram.addEdge(edge);
+		assertTrue(aDiagram.isAdjacencyValid());
+		assertEquals(List.of(edge), toList(aDiagram.outgoingEdges(aNode3)));
+		
+		// Reconnecting an edge of the diagram still invalidates the adjacency
+		edge.connect(aNode1, aNode1, aDiagram);
+		assertFalse(aDiagram.isAdjacencyValid());
+		assertTrue(toList(aDiagram.outgoingEdges(aNode3)).isEmpty());
+	}
+	
+	@Test
+	public void testRemoveRootNodes_ThenReinsert()
+	{
+		aDiagram.addRootNodes(List.of(aNode1, aNode2, aNode3, aNode4));
+		aNode2.addChild(new ClassNode());
+		aDiagram.removeRootNodes(List.of(aNode4, aNode2));
+		assertEquals(List.of(aNode1, aNode3), aDiagram.rootNodes());
+		assertFalse(aDiagram.contains(aNode2));
+		assertFalse(aDiagram.contains(aNode2.getChildren().get(0)));
+		assertFalse(aNode4.getDiagram().isPresent());
+		
+		aDiagram.addRootNodes(new int[] {1, 3}, List.of(aNode2, aNode4));
+		assertEquals(List.of(aNode1, aNode2, aNode3, aNode4), aDiagram.rootNodes());
+		assertTrue(aDiagram.containsAsRoot(aNode2));
+		assertTrue(aDiagram.contains(aNode2.getChildren().get(0)));
+		assertSame(aDiagram, aNode2.getChildren().get(0).getDiagram().get());
+	}
+	
+	@Test
+	public void testRemoveEdges_ThenReinsert()
+	{
+		aDiagram.addRootNodes(List.of(aNode1, aNode3));
+		Edge edge1 = createEdge(aNode1, aNode3);
+		Edge edge2 = createEdge(aNode3, aNode1);
+		Edge edge3 = createEdge(aNode1, aNode1);
+		Edge edge4 = createEdge(aNode3, aNode3);
+		aDiagram.addEdges(List.of(edge1, edge2, edge3, edge4));
+		assertEquals(List.of(edge1, edge3), toList(aDiagram.outgoingEdges(aNode1)));
+		
+		aDiagram.removeEdges(List.of(edge3, edge1));
+		assertEquals(List.of(edge2, edge4), aDiagram.edges());
+		assertFalse(aDiagram.contains(edge1));
+		assertEquals(1, aDiagram.indexOf(edge4));
+		assertEquals(List.of(edge2), toList(aDiagram.edgesConnectedTo(aNode1)));
+		
+		aDiagram.addEdges(new int[] {0, 2}, List.of(edge1, edge3));
+		assertEquals(List.of(edge1, edge2, edge3, edge4), aDiagram.edges());
+		assertEquals(2, aDiagram.indexOf(edge3));
+		assertEquals(List.of(edge1, edge2, edge3), toList(aDiagram.edgesConnectedTo(aNode1)));
+	}
+	
+	@Test
+	public void testBulkMutations_NotifyOnce()
+	{
+		int[] notifications = new int[2];
+		aDiagram.addChangeObserver(new DiagramChangeObserver()
+		{
+			@Override
+			public void elementChanged(DiagramElement pElement) {}
+			
+			@Override
+			public void rootNodesAdded(int[] pIndices, List<Node> pNodes)
+			{
+				notifications[0]++;
+			}
+			
+			@Override
+			public void rootNodesRemoved(Collection<Node> pNodes)
+			{
+				notifications[0]++;
+			}
+			
+			@Override
+			public void edgesAdded(int[] pIndices, List<Edge> pEdges)
+			{
+				notifications[1]++;
+			}
+			
+			@Override
+			public void edgesRemoved(Collection<Edge> pEdges)
+			{
+				notifications[1]++;
+			}
+		});
+		aDiagram.addRootNodes(List.of(aNode1, aNode3));
+		aDiagram.addEdges(List.of(createEdge(aNode1, aNode3), createEdge(aNode3, aNode1)));
+		aDiagram.removeEdges(new ArrayList<>(aDiagram.edges()));
+		aDiagram.removeRootNodes(List.of(aNode1, aNode3));
+		assertEquals(2, notifications[0]);
+		assertEquals(2, notifications[1]);
+		assertTrue(aDiagram.rootNodes().isEmpty());
+		assertTrue(aDiagram.edges().isEmpty());
+	}
 }
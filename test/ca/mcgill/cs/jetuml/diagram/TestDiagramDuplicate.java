@@ -146,4 +146,35 @@ public class TestDiagramDuplicate
 		assertSame(copy, n2Copy.getDiagram().get());
 		assertSame(copy, edgeCopy.getDiagram());
 	}
+	
+	@Test
+	public void test_edgesBetweenNestedNodesKeepTheirOrder()
+	{
+		PackageNode outer = new PackageNode();
+		PackageNode inner = new PackageNode();
+		ClassNode nested = new ClassNode();
+		ClassNode root = new ClassNode();
+		aClassDiagram.addRootNode(outer);
+		aClassDiagram.addRootNode(root);
+		outer.addChild(inner);
+		inner.addChild(nested);
+		DependencyEdge edge1 = new DependencyEdge();
+		edge1.connect(nested, root, aClassDiagram);
+		aClassDiagram.addEdge(edge1);
+		DependencyEdge edge2 = new DependencyEdge();
+		edge2.connect(root, inner, aClassDiagram);
+		aClassDiagram.addEdge(edge2);
+		
+		Diagram copy = aClassDiagram.duplicate();
+		Node innerCopy = copy.rootNodes().get(0).getChildren().get(0);
+		Node nestedCopy = innerCopy.getChildren().get(0);
+		Node rootCopy = copy.rootNodes().get(1);
+		assertEquals(2, copy.edges().size());
+		assertSame(nestedCopy, copy.edges().get(0).getStart());
+		assertSame(rootCopy, copy.edges().get(0).getEnd());
+		assertSame(rootCopy, copy.edges().get(1).getStart());
+		assertSame(innerCopy, copy.edges().get(1).getEnd());
+		assertSame(copy, nestedCopy.getDiagram().get());
+		assertEquals(1, copy.indexOf(copy.edges().get(1)));
+	}
 }
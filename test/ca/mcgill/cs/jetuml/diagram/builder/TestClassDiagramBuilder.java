@@ -394,6 +394,38 @@ public class TestClassDiagramBuilder
 		assertEquals(2, numberOfRootNodes());
 	}
 	
+	@Test
+	public void testCreateRemoveElementsOperationNestedNodeEdges()
+	{
+		PackageNode outer = new PackageNode();
+		PackageNode inner = new PackageNode();
+		ClassNode nested = new ClassNode();
+		ClassNode node = new ClassNode();
+		outer.addChild(inner);
+		inner.addChild(nested);
+		aDiagram.addRootNode(outer);
+		aDiagram.addRootNode(node);
+		DependencyEdge edge1 = new DependencyEdge();
+		edge1.connect(node, nested, aDiagram);
+		aDiagram.addEdge(edge1);
+		DependencyEdge edge2 = new DependencyEdge();
+		edge2.connect(node, node, aDiagram);
+		aDiagram.addEdge(edge2);
+		DependencyEdge edge3 = new DependencyEdge();
+		edge3.connect(nested, inner, aDiagram);
+		aDiagram.addEdge(edge3);
+		
+		DiagramOperation operation = aBuilder.createRemoveElementsOperation(Arrays.asList(outer, nested));
+		operation.execute();
+		assertEquals(1, numberOfRootNodes());
+		assertEquals(1, numberOfEdges());
+		assertSame(edge2, aDiagram.edges().get(0));
+		operation.undo();
+		assertEquals(2, numberOfRootNodes());
+		assertEquals(Arrays.asList(edge1, edge2, edge3), aDiagram.edges());
+		assertSame(nested, inner.getChildren().get(0));
+	}
+	
 	@Test
 	public void testCanAttachToPackageMultipleNodes()
 	{
@@ -136,4 +136,15 @@ public class TestCompoundOperation
 		aOperation.add(new SimpleOperation(()-> aBuilder.append("A"), ()->aBuilder.append("1")));
 		assertFalse(aOperation.isEmpty());
 	}
+	
+	@Test
+	public void testEstimatedSize()
+	{
+		assertEquals(0, aOperation.estimatedSize());
+		aOperation.add(new SimpleOperation(()-> aBuilder.append("A"), ()->aBuilder.append("1")));
+		CompoundOperation sub = new CompoundOperation();
+		sub.add(new SimpleOperation(()-> aBuilder.append("BC"), ()->aBuilder.append("2"), 2));
+		aOperation.add(sub);
+		assertEquals(3, aOperation.estimatedSize());
+	}
 }
@@ -25,9 +25,15 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+
 public class TestDiagramOperationProcessor
 {
 	private StringBuilder aBuilder;
@@ -215,6 +221,28 @@ public class TestDiagramOperationProcessor
 		assertFalse(aProcessor.hasUnsavedOperations());
 	}
 	
+	@Test
+	public void testDiagramSaved_OperationsDuringSave()
+	{
+		aProcessor.executeNewOperation(createOperation('A'));
+		Optional<DiagramOperation> savePoint = aProcessor.lastExecutedOperation();
+		aProcessor.executeNewOperation(createOperation('B'));
+		aProcessor.diagramSaved(savePoint);
+		assertTrue(aProcessor.hasUnsavedOperations());
+		aProcessor.undoLastExecutedOperation();
+		assertFalse(aProcessor.hasUnsavedOperations());
+	}
+	
+	@Test
+	public void testDiagramSaved_EmptyBeforeSave()
+	{
+		Optional<DiagramOperation> savePoint = aProcessor.lastExecutedOperation();
+		assertFalse(savePoint.isPresent());
+		aProcessor.executeNewOperation(createOperation('A'));
+		aProcessor.diagramSaved(savePoint);
+		assertTrue(aProcessor.hasUnsavedOperations());
+	}
+	
 	
 	/*
 	 * The processor undoes one more operation than what was saved,
@@ -280,4 +308,126 @@ public class TestDiagramOperationProcessor
 		aProcessor.redoLastUndoneOperation();
 		assertFalse(aProcessor.hasUnsavedOperations());
 	}
+	
+	@Test
+	public void testDiagramModified()
+	{
+		aProcessor.diagramModified();
+		assertTrue(aProcessor.hasUnsavedOperations());
+		aProcessor.executeNewOperation(createOperation('A'));
+		aProcessor.undoLastExecutedOperation();
+		assertTrue(aProcessor.hasUnsavedOperations());
+		aProcessor.diagramSaved();
+		assertFalse(aProcessor.hasUnsavedOperations());
+	}
+	
+	@Test
+	public void testOperationHandler()
+	{
+		StringBuilder handled = new StringBuilder();
+		aProcessor.setOperationHandler(() -> handled.append(aBuilder.toString()).append(';'));
+		aProcessor.executeNewOperation(createOperation('A'));
+		aProcessor.executeNewOperation(createOperation('B'));
+		aProcessor.undoLastExecutedOperation();
+		aProcessor.redoLastUndoneOperation();
+		assertEquals("A;AB;A;AB;", handled.toString());
+	}
+	
+	@Test
+	public void testHistoryBoundedByLength()
+	{
+		aProcessor = new DiagramOperationProcessor(2, Integer.MAX_VALUE);
+		aProcessor.executeNewOperation(createOperation('A'));
+		aProcessor.executeNewOperation(createOperation('B'));
+		aProcessor.executeNewOperation(createOperation('C'));
+		aProcessor.undoLastExecutedOperation();
+		aProcessor.undoLastExecutedOperation();
+		assertFalse(aProcessor.canUndo());
+		assertEquals("A", aBuilder.toString());
+		assertTrue(aProcessor.hasUnsavedOperations());
+		
+		// The undone operation furthest from the current state is forgotten
+		aProcessor.executeNewOperation(createOperation('D'));
+		aProcessor.undoLastExecutedOperation();
+		aProcessor.redoLastUndoneOperation();
+		aProcessor.redoLastUndoneOperation();
+		assertFalse(aProcessor.canRedo());
+		assertEquals("ADB", aBuilder.toString());
+	}
+	
+	@Test
+	public void testHistoryBoundedBySize()
+	{
+		aProcessor = new DiagramOperationProcessor(Integer.MAX_VALUE, 3);
+		aProcessor.executeNewOperation(createOperation('A'));
+		aProcessor.executeNewOperation(new SimpleOperation(() -> aBuilder.append("BC"), 
+				() -> aBuilder.setLength(aBuilder.length() - 2), 2));
+		aProcessor.executeNewOperation(createOperation('D'));
+		aProcessor.undoLastExecutedOperation();
+		aProcessor.undoLastExecutedOperation();
+		assertFalse(aProcessor.canUndo());
+		assertEquals("A", aBuilder.toString());
+		
+		// The most recent operation is kept even if it exceeds the bound
+		aProcessor.executeNewOperation(new SimpleOperation(() -> aBuilder.append("EFGH"), 
+				() -> aBuilder.setLength(aBuilder.length() - 4), 4));
+		assertFalse(aProcessor.canRedo());
+		aProcessor.undoLastExecutedOperation();
+		assertEquals("A", aBuilder.toString());
+	}
+	
+	@Test
+	public void testDiagramSaved_ForgottenOperation()
+	{
+		aProcessor = new DiagramOperationProcessor(2, Integer.MAX_VALUE);
+		aProcessor.executeNewOperation(createOperation('A'));
+		aProcessor.diagramSaved();
+		aProcessor.executeNewOperation(createOperation('B'));
+		aProcessor.executeNewOperation(createOperation('C'));
+		assertTrue(aProcessor.hasUnsavedOperations());
+		aProcessor.undoLastExecutedOperation();
+		aProcessor.undoLastExecutedOperation();
+		assertFalse(aProcessor.canUndo());
+		assertFalse(aProcessor.hasUnsavedOperations());
+		aProcessor.redoLastUndoneOperation();
+		assertTrue(aProcessor.hasUnsavedOperations());
+	}
+	
+	@Test
+	public void testStoreAlreadyExecutedMove_SameNodes()
+	{
+		List<Node> nodes = List.of(new ClassNode(), new ClassNode());
+		aProcessor.executeNewOperation(createOperation('A'));
+		aProcessor.storeAlreadyExecutedMove(createOperation('B'), nodes);
+		aProcessor.storeAlreadyExecutedMove(createOperation('C'), List.of(nodes.get(1), nodes.get(0)));
+		aProcessor.storeAlreadyExecutedMove(createOperation('D'), nodes);
+		aBuilder.append("BCD");
+		aProcessor.undoLastExecutedOperation();
+		assertEquals("A", aBuilder.toString());
+		aProcessor.redoLastUndoneOperation();
+		assertEquals("ABCD", aBuilder.toString());
+	}
+	
+	@Test
+	public void testStoreAlreadyExecutedMove_NotMerged()
+	{
+		Node node = new ClassNode();
+		aProcessor.storeAlreadyExecutedMove(createOperation('A'), List.of(node));
+		aProcessor.storeAlreadyExecutedMove(createOperation('B'), List.of(node, new ClassNode()));
+		aProcessor.diagramSaved();
+		aProcessor.storeAlreadyExecutedMove(createOperation('C'), List.of(node, new ClassNode()));
+		aProcessor.executeNewOperation(createOperation('D'));
+		aProcessor.storeAlreadyExecutedMove(createOperation('E'), List.of(node));
+		aProcessor.storeAlreadyExecutedMove(createOperation('F'), List.of(node));
+		aBuilder = new StringBuilder("ABCDEF");
+		aProcessor.undoLastExecutedOperation();
+		assertEquals("ABCD", aBuilder.toString());
+		aProcessor.undoLastExecutedOperation();
+		aProcessor.undoLastExecutedOperation();
+		assertFalse(aProcessor.hasUnsavedOperations());
+		aProcessor.undoLastExecutedOperation();
+		aProcessor.undoLastExecutedOperation();
+		assertFalse(aProcessor.canUndo());
+		assertEquals("", aBuilder.toString());
+	}
 }
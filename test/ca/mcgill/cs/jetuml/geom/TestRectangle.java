@@ -114,4 +114,17 @@ public class TestRectangle
 		rectangle = rectangle.add( new Rectangle(0,0,20,20));
 		assertEquals( new Rectangle(0,0,20,20), rectangle);
 	}
+	
+	@Test
+	public void testIntersects()
+	{
+		assertTrue(RECTANGLE_1.intersects(RECTANGLE_1));
+		assertFalse(RECTANGLE_1.intersects(RECTANGLE_2));
+		assertFalse(RECTANGLE_2.intersects(RECTANGLE_1));
+		assertTrue(RECTANGLE_1.intersects(new Rectangle(60, 40, 10, 10)));
+		assertFalse(RECTANGLE_1.intersects(new Rectangle(61, 40, 10, 10)));
+		assertTrue(RECTANGLE_1.intersects(new Rectangle(10, 10, 1, 1)));
+		assertTrue(new Rectangle(10, 10, 1, 1).intersects(RECTANGLE_1));
+		assertTrue(RECTANGLE_1.intersects(new Rectangle(-10, 20, 100, 1)));
+	}
 }
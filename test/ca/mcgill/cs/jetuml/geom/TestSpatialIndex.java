@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.geom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestSpatialIndex
+{
+	private static final Map<String, Rectangle> BOUNDS = Map.of(
+			"small", new Rectangle(10, 10, 20, 20),
+			"large", new Rectangle(0, 0, 1000, 1000),
+			"negative", new Rectangle(-300, -300, 100, 100),
+			"boundary", new Rectangle(128, 128, 10, 10));
+	
+	private SpatialIndex<String> aIndex;
+	
+	@BeforeEach
+	public void setup()
+	{
+		aIndex = new SpatialIndex<>();
+		aIndex.build(List.of("large", "small", "negative", "boundary"), BOUNDS::get);
+	}
+	
+	@Test
+	public void testIsValid()
+	{
+		assertFalse(new SpatialIndex<String>().isValid());
+		assertTrue(aIndex.isValid());
+		aIndex.invalidate();
+		assertFalse(aIndex.isValid());
+	}
+	
+	@Test
+	public void testElementsAt_Order()
+	{
+		assertEquals(List.of("large", "small"), aIndex.elementsAt(new Point(15, 15)));
+		aIndex.build(List.of("small", "large"), BOUNDS::get);
+		assertEquals(List.of("small", "large"), aIndex.elementsAt(new Point(15, 15)));
+	}
+	
+	@Test
+	public void testElementsAt_Boundaries()
+	{
+		assertEquals(List.of("large", "small"), aIndex.elementsAt(new Point(30, 30)));
+		assertEquals(List.of("large"), aIndex.elementsAt(new Point(31, 30)));
+		assertEquals(List.of("large", "boundary"), aIndex.elementsAt(new Point(128, 128)));
+		assertEquals(List.of("large"), aIndex.elementsAt(new Point(127, 127)));
+		assertEquals(List.of("large"), aIndex.elementsAt(new Point(1000, 1000)));
+		assertEquals(List.of(), aIndex.elementsAt(new Point(1001, 1000)));
+	}
+	
+	@Test
+	public void testElementsAt_Negative()
+	{
+		assertEquals(List.of("negative"), aIndex.elementsAt(new Point(-250, -250)));
+		assertEquals(List.of(), aIndex.elementsAt(new Point(-1, -1)));
+	}
+	
+	@Test
+	public void testElementsIn()
+	{
+		assertEquals(List.of("large", "small"), aIndex.elementsIn(new Rectangle(20, 20, 5, 5)));
+		assertEquals(List.of("large", "small", "boundary"), aIndex.elementsIn(new Rectangle(0, 0, 500, 500)));
+		assertEquals(List.of("large", "small", "negative", "boundary"), aIndex.elementsIn(new Rectangle(-1000, -1000, 3000, 3000)));
+		assertEquals(List.of("negative"), aIndex.elementsIn(new Rectangle(-250, -250, 200, 200)));
+		assertEquals(List.of(), aIndex.elementsIn(new Rectangle(1001, 0, 100, 100)));
+	}
+	
+	@Test
+	public void testUpdate()
+	{
+		Map<String, Rectangle> bounds = new HashMap<>(BOUNDS);
+		bounds.put("large", new Rectangle(-300, -300, 50, 50));
+		bounds.put("small", new Rectangle(140, 140, 200, 10));
+		aIndex.invalidate();
+		aIndex.update(List.of("large", "small"), bounds::get);
+		assertTrue(aIndex.isValid());
+		assertEquals(List.of(), aIndex.elementsAt(new Point(15, 15)));
+		assertEquals(List.of("large", "negative"), aIndex.elementsAt(new Point(-280, -280)));
+		assertEquals(List.of("small", "boundary"), aIndex.elementsIn(new Rectangle(130, 130, 20, 20)));
+		assertEquals(List.of("small"), aIndex.elementsAt(new Point(300, 145)));
+	}
+}
@@ -26,6 +26,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
+import ca.mcgill.cs.jetuml.geom.Rectangle;
+
 public class TestViewportProjection
 {
 	@Test
@@ -295,4 +297,15 @@ public class TestViewportProjection
 		assertEquals(0.152, projection.getAdjustedVValueToRevealY(464), 0.001);
 	}
 	
+	
+	@Test
+	public void testGetVisibleArea()
+	{
+		ViewportProjection projection = new ViewportProjection(1000, 500, 1000, 500, 0, 0);
+		assertEquals(new Rectangle(0, 0, 1000, 500), projection.getVisibleArea());
+		projection = new ViewportProjection(500, 500, 1000, 2000, 0.5, 1);
+		assertEquals(new Rectangle(250, 1500, 500, 500), projection.getVisibleArea());
+		projection = new ViewportProjection(500, 500, 1000, 2000, 1, 0);
+		assertEquals(new Rectangle(500, 0, 500, 500), projection.getVisibleArea());
+	}
 }
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+
+public class TestBackgroundSaver
+{
+	private static final Path PATH_TEST_FILES = Path.of("testdata");
+	private static final File TEMPORARY_FILE = PATH_TEST_FILES.resolve("tmpBackgroundSaver.class.jet").toFile();
+	
+	private final BackgroundSaver aSaver = new BackgroundSaver(Runnable::run);
+	private final List<String> aEvents = new ArrayList<>();
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@AfterEach
+	public void tearDown()
+	{
+		TEMPORARY_FILE.delete();
+	}
+	
+	@Test
+	public void testSave() throws Exception
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		diagram.addRootNode(new ClassNode());
+		aSaver.save(diagram.duplicate(), TEMPORARY_FILE, () -> aEvents.add("saved"), pException -> aEvents.add("failed"));
+		aSaver.awaitCompletion();
+		
+		assertFalse(aSaver.isSaving());
+		assertEquals(List.of("saved"), aEvents);
+		assertEquals(1, PersistenceService.read(TEMPORARY_FILE).diagram().rootNodes().size());
+		assertNoTemporaryFiles();
+	}
+	
+	@Test
+	public void testLastSaveWins() throws Exception
+	{
+		for( int i = 1; i <= 5; i++ )
+		{
+			Diagram diagram = new Diagram(DiagramType.CLASS);
+			for( int j = 0; j < i; j++ )
+			{
+				diagram.addRootNode(new ClassNode());
+			}
+			aSaver.save(diagram, TEMPORARY_FILE, () -> {}, pException -> aEvents.add("failed"));
+		}
+		aSaver.awaitCompletion();
+		
+		assertTrue(aEvents.isEmpty());
+		assertEquals(5, PersistenceService.read(TEMPORARY_FILE).diagram().rootNodes().size());
+		assertNoTemporaryFiles();
+	}
+	
+	@Test
+	public void testWhenIdle() throws Exception
+	{
+		aSaver.whenIdle(() -> aEvents.add("idle"));
+		aSaver.save(new Diagram(DiagramType.CLASS), TEMPORARY_FILE, () -> aEvents.add("saved"), pException -> aEvents.add("failed"));
+		CountDownLatch idle = new CountDownLatch(1);
+		aSaver.whenIdle(() -> 
+		{
+			aEvents.add("idle");
+			idle.countDown();
+		});
+		idle.await();
+		
+		assertFalse(aSaver.isSaving());
+		assertEquals(List.of("idle", "saved", "idle"), aEvents);
+	}
+	
+	@Test
+	public void testFailure() throws Exception
+	{
+		File file = PATH_TEST_FILES.resolve("missingDirectory").resolve("test.class.jet").toFile();
+		List<IOException> failures = new ArrayList<>();
+		aSaver.save(new Diagram(DiagramType.CLASS), file, () -> aEvents.add("saved"), failures::add);
+		aSaver.awaitCompletion();
+		
+		assertTrue(aEvents.isEmpty());
+		assertEquals(1, failures.size());
+		assertFalse(file.exists());
+	}
+	
+	private static void assertNoTemporaryFiles()
+	{
+		for( File file : PATH_TEST_FILES.toFile().listFiles() )
+		{
+			assertFalse(file.getName().endsWith(".tmp"), file.getName());
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.JetUML;
+
+public class TestBatchMigrator
+{
+	private static final Path PATH_TEST_FILES = Path.of("testdata");
+	private static final Path DIRECTORY = PATH_TEST_FILES.resolve("tmpBatchMigrator");
+	private static final String OLD_DIAGRAM = "{\"diagram\":\"ClassDiagram\",\"nodes\":[" + 
+			"{\"methods\":\"\",\"name\":\"A\",\"x\":0,\"y\":0,\"attributes\":\"\",\"id\":0,\"type\":\"ClassNode\"}]," + 
+			"\"edges\":[{\"middleLabel\":\"\",\"start\":0,\"end\":0,\"type\":\"DependencyEdge\"}],\"version\":\"2.5\"}";
+	
+	private final ForkJoinPool aPool = new ForkJoinPool(2);
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@BeforeEach
+	public void setUp() throws IOException
+	{
+		Files.createDirectories(DIRECTORY.resolve("sub"));
+		Files.copy(PATH_TEST_FILES.resolve("testPersistenceService.class.jet"), DIRECTORY.resolve("current.class.jet"));
+		Files.writeString(DIRECTORY.resolve("sub").resolve("old.class.jet"), OLD_DIAGRAM, StandardCharsets.UTF_8);
+		Files.writeString(DIRECTORY.resolve("sub").resolve("invalid.class.jet"), "{", StandardCharsets.UTF_8);
+		Files.writeString(DIRECTORY.resolve("notes.txt"), "Not a diagram", StandardCharsets.UTF_8);
+	}
+	
+	@AfterEach
+	public void tearDown() throws IOException
+	{
+		aPool.shutdown();
+		try( Stream<Path> paths = Files.walk(DIRECTORY) )
+		{
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+	
+	@Test
+	public void testValidate() throws IOException
+	{
+		List<BatchMigrator.Result> results = new BatchMigrator(true).process(DIRECTORY, aPool);
+		assertEquals(3, results.size());
+		assertEquals(DIRECTORY.resolve("current.class.jet"), results.get(0).file());
+		assertFalse(results.get(0).hasFailed());
+		assertTrue(results.get(0).firedPasses().isEmpty());
+		assertTrue(results.get(1).hasFailed());
+		assertEquals(DIRECTORY.resolve("sub").resolve("old.class.jet"), results.get(2).file());
+		assertEquals(List.of("removeSelfDependencies"), results.get(2).firedPasses());
+		assertFalse(results.get(2).wasWritten());
+		assertEquals(OLD_DIAGRAM, Files.readString(results.get(2).file(), StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void testMigrate() throws IOException
+	{
+		List<BatchMigrator.Result> results = new BatchMigrator(false).process(DIRECTORY, aPool);
+		assertFalse(results.get(0).wasWritten());
+		assertTrue(results.get(2).wasWritten());
+		
+		VersionedDiagram migrated = PersistenceService.read(results.get(2).file().toFile());
+		assertEquals(JetUML.VERSION, migrated.version());
+		assertEquals(1, migrated.diagram().rootNodes().size());
+		assertTrue(migrated.diagram().edges().isEmpty());
+	}
+	
+	@Test
+	public void testReport()
+	{
+		List<BatchMigrator.Result> results = new BatchMigrator(true).process(DIRECTORY, aPool);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BatchMigrator.report(results, new PrintStream(output, true, StandardCharsets.UTF_8));
+		String report = output.toString(StandardCharsets.UTF_8);
+		assertTrue(report.contains("3 files, 0 migrated, 1 failed"));
+		assertTrue(report.contains("FAILED"));
+		assertTrue(report.contains("1 removeSelfDependencies"));
+	}
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.JetUML;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+import ca.mcgill.cs.jetuml.geom.Point;
+
+public class TestBinaryDecoder
+{
+	private static final Path PATH_TEST_FILES = Path.of("testdata");
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@Test
+	public void testIntegers() throws Exception
+	{
+		int[] values = {0, 1, -1, 63, -64, 127, 128, 300, -300, Integer.MAX_VALUE, Integer.MIN_VALUE};
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for( int value : values )
+		{
+			BinaryFormat.writeSigned(out, value);
+		}
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		for( int value : values )
+		{
+			assertEquals(value, BinaryFormat.readSigned(in));
+		}
+	}
+	
+	@Test
+	public void testSmallIntegersTakeOneByte() throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryFormat.writeSigned(out, -64);
+		BinaryFormat.writeSigned(out, 63);
+		BinaryFormat.writeUnsigned(out, 127);
+		assertEquals(3, out.size());
+	}
+	
+	@Test
+	public void testIntegerOverflow() throws Exception
+	{
+		byte[] largest = {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f};
+		assertEquals(-1, BinaryFormat.readUnsigned(new ByteArrayInputStream(largest)));
+		byte[] overflow = {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x1f};
+		assertThrows(DeserializationException.class, () -> BinaryFormat.readUnsigned(new ByteArrayInputStream(overflow)));
+		byte[] tooLong = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x00};
+		assertThrows(DeserializationException.class, () -> BinaryFormat.readUnsigned(new ByteArrayInputStream(tooLong)));
+	}
+	
+	@Test
+	public void testRoundTrip() throws Exception
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		PackageNode packageNode = new PackageNode();
+		packageNode.setName("p");
+		ClassNode classNode1 = new ClassNode();
+		classNode1.setName("C1");
+		classNode1.moveTo(new Point(-10, 20));
+		ClassNode classNode2 = new ClassNode();
+		classNode2.setName("C2");
+		packageNode.addChild(classNode1);
+		diagram.addRootNode(packageNode);
+		diagram.addRootNode(classNode2);
+		DependencyEdge edge = new DependencyEdge();
+		edge.connect(classNode1, classNode2, diagram);
+		diagram.addEdge(edge);
+		
+		byte[] binary = encode(diagram);
+		VersionedDiagram decoded = BinaryDecoder.decode(new ByteArrayInputStream(binary), binary.length);
+		assertEquals(JetUML.VERSION, decoded.version());
+		assertFalse(decoded.wasMigrated());
+		assertSame(DiagramType.CLASS, decoded.diagram().getType());
+		assertEquals(2, decoded.diagram().rootNodes().size());
+		assertEquals(1, decoded.diagram().edges().size());
+		ClassNode child = (ClassNode) decoded.diagram().edges().get(0).getStart();
+		assertEquals("C1", child.getName());
+		assertEquals(new Point(-10, 20), child.position());
+		assertTrue(child.hasParent());
+		assertEquals("p", ((PackageNode) child.getParent()).getName());
+	}
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"testPersistenceService.class.jet",
+							"testPersistenceService2.class.jet",
+							"testPersistenceService.sequence.jet",
+							"testPersistenceService.state.jet",
+							"testPersistenceService.object.jet",
+							"testPersistenceService.usecase.jet"})
+	public void testSmallerThanJson( String pFileName ) throws Exception
+	{
+		String json = Files.readString(PATH_TEST_FILES.resolve(pFileName), StandardCharsets.UTF_8);
+		Diagram diagram = JsonDecoder.decode(new JSONObject(json));
+		byte[] binary = encode(diagram);
+		assertTrue(binary.length < JsonEncoder.encode(diagram).toString().getBytes(StandardCharsets.UTF_8).length);
+		Diagram decoded = BinaryDecoder.decode(new ByteArrayInputStream(binary), binary.length).diagram();
+		assertEquals(diagram.rootNodes().size(), decoded.rootNodes().size());
+		assertEquals(diagram.edges().size(), decoded.edges().size());
+	}
+	
+	@Test
+	public void testNotBinary()
+	{
+		byte[] json = "{\"diagram\":\"ClassDiagram\"}".getBytes(StandardCharsets.UTF_8);
+		assertThrows(DeserializationException.class, () -> BinaryDecoder.decode(new ByteArrayInputStream(json), json.length));
+	}
+	
+	@Test
+	public void testTruncated() throws Exception
+	{
+		byte[] binary = encode(new Diagram(DiagramType.STATE));
+		byte[] truncated = Arrays.copyOf(binary, binary.length - 1);
+		assertThrows(DeserializationException.class, () -> BinaryDecoder.decode(new ByteArrayInputStream(truncated), truncated.length));
+	}
+	
+	@Test
+	public void testTruncatedCount() throws Exception
+	{
+		byte[] binary = encode(new Diagram(DiagramType.STATE));
+		// The encoding of an empty diagram ends with the numbers of nodes and edges
+		byte[] truncated = Arrays.copyOf(binary, binary.length - 1);
+		truncated[truncated.length - 1] = (byte) 0x80;
+		assertThrows(DeserializationException.class, () -> BinaryDecoder.decode(new ByteArrayInputStream(truncated), truncated.length));
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {1, 3, -1, Integer.MAX_VALUE, Integer.MIN_VALUE})
+	public void testCorruptedCount(int pCount) throws Exception
+	{
+		byte[] binary = encode(new Diagram(DiagramType.STATE));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(binary, 0, binary.length - 2);
+		BinaryFormat.writeUnsigned(out, pCount);
+		out.write(0);
+		byte[] corrupted = out.toByteArray();
+		assertThrows(DeserializationException.class, () -> BinaryDecoder.decode(new ByteArrayInputStream(corrupted), corrupted.length));
+	}
+	
+	@Test
+	public void testCorruptedChildCount() throws Exception
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		diagram.addRootNode(new PackageNode());
+		byte[] binary = encode(diagram);
+		// The encoding ends with the number of children of the node and the number of edges
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(binary, 0, binary.length - 2);
+		BinaryFormat.writeUnsigned(out, Integer.MAX_VALUE);
+		out.write(0);
+		byte[] corrupted = out.toByteArray();
+		assertThrows(DeserializationException.class, () -> BinaryDecoder.decode(new ByteArrayInputStream(corrupted), corrupted.length));
+	}
+	
+	private static byte[] encode(Diagram pDiagram) throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryEncoder.encode(pDiagram, out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class TestMappedFileReader
+{
+	private static final Path PATH_TEST_FILES = Path.of("testdata");
+	private static final File TEMPORARY_FILE = PATH_TEST_FILES.resolve("tmpMappedFileReader.txt").toFile();
+	private static final String CONTENT = "{\"name\":\"Caf\u00e9 \u20ac \uD83D\uDE00\"}";
+	
+	private final List<Double> aProgress = new ArrayList<>();
+	
+	@AfterEach
+	public void tearDown()
+	{
+		Thread.interrupted();
+		TEMPORARY_FILE.delete();
+	}
+	
+	private Reader createReader(String pContent) throws IOException
+	{
+		Files.writeString(TEMPORARY_FILE.toPath(), pContent, StandardCharsets.UTF_8);
+		return new MappedFileReader(TEMPORARY_FILE, aProgress::add);
+	}
+	
+	private static String readAll(Reader pReader, int pBufferSize) throws IOException
+	{
+		StringBuilder result = new StringBuilder();
+		char[] buffer = new char[pBufferSize];
+		int read = pReader.read(buffer, 0, pBufferSize);
+		while( read >= 0 )
+		{
+			assertTrue(read > 0);
+			result.append(buffer, 0, read);
+			read = pReader.read(buffer, 0, pBufferSize);
+		}
+		return result.toString();
+	}
+	
+	@Test
+	public void testRead() throws IOException
+	{
+		try( Reader reader = createReader(CONTENT) )
+		{
+			assertEquals(CONTENT, readAll(reader, 8192));
+		}
+		assertEquals(1.0, aProgress.get(aProgress.size() - 1));
+	}
+	
+	@Test
+	public void testReadOneCharacterAtATime() throws IOException
+	{
+		try( Reader reader = createReader(CONTENT) )
+		{
+			assertEquals(CONTENT, readAll(reader, 1));
+		}
+		for( int i = 1; i < aProgress.size(); i++ )
+		{
+			assertTrue(aProgress.get(i - 1) <= aProgress.get(i));
+		}
+	}
+	
+	@Test
+	public void testEmpty() throws IOException
+	{
+		try( Reader reader = createReader("") )
+		{
+			assertEquals(-1, reader.read(new char[4], 0, 4));
+		}
+	}
+	
+	@Test
+	public void testStartsWith() throws IOException
+	{
+		try( MappedFileReader reader = (MappedFileReader) createReader("JETB") )
+		{
+			assertTrue(reader.startsWith(BinaryFormat.MAGIC));
+			assertFalse(reader.startsWith("JETBX".getBytes(StandardCharsets.US_ASCII)));
+			assertEquals("JETB", readAll(reader, 2));
+		}
+	}
+	
+	@Test
+	public void testInterrupted() throws IOException
+	{
+		try( Reader reader = createReader(CONTENT) )
+		{
+			Thread.currentThread().interrupt();
+			assertThrows(InterruptedIOException.class, () -> reader.read(new char[4], 0, 4));
+		}
+	}
+}
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+
+public class TestOperationJournal
+{
+	private static final Path PATH_TEST_FILES = Path.of("testdata");
+	private static final File DIAGRAM_FILE = PATH_TEST_FILES.resolve("tmpOperationJournal.class.jet").toFile();
+	
+	private Diagram aDiagram;
+	private OperationJournal aJournal;
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	@BeforeEach
+	public void setUp()
+	{
+		aDiagram = new Diagram(DiagramType.CLASS);
+		aJournal = new OperationJournal(aDiagram, DIAGRAM_FILE, false);
+	}
+	
+	@AfterEach
+	public void tearDown()
+	{
+		aJournal.close();
+		OperationJournal.journalFor(DIAGRAM_FILE).delete();
+		DIAGRAM_FILE.delete();
+	}
+	
+	@Test
+	public void testNoJournalWithoutChanges() throws Exception
+	{
+		aJournal.recordOperation();
+		assertFalse(OperationJournal.journalFor(DIAGRAM_FILE).exists());
+		assertFalse(OperationJournal.recover(DIAGRAM_FILE).isPresent());
+	}
+	
+	@Test
+	public void testRecover() throws Exception
+	{
+		ClassNode node1 = new ClassNode();
+		aDiagram.addRootNode(node1);
+		aJournal.recordOperation();
+		
+		ClassNode node2 = new ClassNode();
+		node2.translate(100, 50);
+		aDiagram.addRootNode(node2);
+		aJournal.recordOperation();
+		
+		node1.translate(10, 20);
+		node1.setName("Foo");
+		aJournal.recordOperation();
+		
+		DependencyEdge edge = new DependencyEdge();
+		edge.connect(node1, node2, aDiagram);
+		aDiagram.addEdge(edge);
+		aJournal.recordOperation();
+		
+		Diagram recovered = OperationJournal.recover(DIAGRAM_FILE).get();
+		assertSame(DiagramType.CLASS, recovered.getType());
+		assertEquals(2, recovered.rootNodes().size());
+		assertEquals(1, recovered.edges().size());
+		ClassNode recovered1 = (ClassNode) recovered.rootNodes().get(0);
+		assertEquals("Foo", recovered1.getName());
+		assertEquals(10, recovered1.position().getX());
+		assertEquals(20, recovered1.position().getY());
+		assertSame(recovered1, recovered.edges().get(0).getStart());
+		assertSame(recovered.rootNodes().get(1), recovered.edges().get(0).getEnd());
+	}
+	
+	@Test
+	public void testRecoverRemovals() throws Exception
+	{
+		PackageNode packageNode = new PackageNode();
+		ClassNode child = new ClassNode();
+		packageNode.addChild(child);
+		ClassNode node = new ClassNode();
+		aDiagram.addRootNode(packageNode);
+		aDiagram.addRootNode(node);
+		DependencyEdge edge = new DependencyEdge();
+		edge.connect(child, node, aDiagram);
+		aDiagram.addEdge(edge);
+		aJournal.recordOperation();
+		
+		aDiagram.removeEdge(edge);
+		aDiagram.removeRootNode(node);
+		aJournal.recordOperation();
+		
+		Diagram recovered = OperationJournal.recover(DIAGRAM_FILE).get();
+		assertEquals(1, recovered.rootNodes().size());
+		assertEquals(0, recovered.edges().size());
+		assertEquals(1, recovered.rootNodes().get(0).getChildren().size());
+	}
+	
+	@Test
+	public void testRecoverOrder() throws Exception
+	{
+		ClassNode node1 = new ClassNode();
+		ClassNode node2 = new ClassNode();
+		ClassNode node3 = new ClassNode();
+		aDiagram.addRootNodes(List.of(node1, node2, node3));
+		DependencyEdge edge1 = new DependencyEdge();
+		edge1.connect(node1, node2, aDiagram);
+		DependencyEdge edge2 = new DependencyEdge();
+		edge2.connect(node2, node3, aDiagram);
+		aDiagram.addEdges(List.of(edge1, edge2));
+		aJournal.recordOperation();
+		
+		aDiagram.removeRootNode(node1);
+		aDiagram.addRootNode(node1);
+		DependencyEdge edge3 = new DependencyEdge();
+		edge3.connect(node3, node1, aDiagram);
+		aDiagram.addEdge(1, edge3);
+		aJournal.recordOperation();
+		
+		aDiagram.removeEdges(List.of(edge1));
+		aDiagram.removeRootNodes(List.of(node2));
+		aDiagram.addRootNodes(new int[] {0}, List.of(node2));
+		aJournal.recordOperation();
+		
+		Diagram recovered = OperationJournal.recover(DIAGRAM_FILE).get();
+		assertEquals(3, recovered.rootNodes().size());
+		assertSame(recovered.rootNodes().get(1), recovered.edges().get(0).getStart());
+		assertSame(recovered.rootNodes().get(2), recovered.edges().get(0).getEnd());
+		assertSame(recovered.rootNodes().get(0), recovered.edges().get(1).getStart());
+		assertSame(recovered.rootNodes().get(1), recovered.edges().get(1).getEnd());
+	}
+	
+	@Test
+	public void testRecordOnlyHoldsChanges() throws Exception
+	{
+		for( int i = 0; i < 50; i++ )
+		{
+			aDiagram.addRootNode(new ClassNode());
+		}
+		aJournal.recordOperation();
+		aDiagram.addRootNode(new ClassNode());
+		aJournal.recordOperation();
+		
+		List<String> lines = Files.readAllLines(OperationJournal.journalFor(DIAGRAM_FILE).toPath(), StandardCharsets.UTF_8);
+		JSONObject record = new JSONObject(lines.get(lines.size() - 1));
+		assertEquals(1, record.getJSONArray("nodes").length());
+		assertFalse(record.has("rootNodes"));
+		JSONObject change = record.getJSONArray("rootNodeChanges").getJSONObject(0);
+		assertEquals(1, change.getJSONArray("added").length());
+		assertEquals(50, change.getJSONArray("indices").getInt(0));
+		assertEquals(51, OperationJournal.recover(DIAGRAM_FILE).get().rootNodes().size());
+	}
+	
+	@Test
+	public void testTruncatedRecordIgnored() throws Exception
+	{
+		aDiagram.addRootNode(new ClassNode());
+		aJournal.recordOperation();
+		aDiagram.addRootNode(new ClassNode());
+		aJournal.recordOperation();
+		Files.writeString(OperationJournal.journalFor(DIAGRAM_FILE).toPath(), "{\"nodes\":[{\"id\"", 
+				StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+		
+		Optional<Diagram> recovered = OperationJournal.recover(DIAGRAM_FILE);
+		assertEquals(2, recovered.get().rootNodes().size());
+	}
+	
+	@Test
+	public void testRecoverFromSavedFile() throws Exception
+	{
+		PackageNode packageNode = new PackageNode();
+		ClassNode child = new ClassNode();
+		packageNode.addChild(child);
+		ClassNode node = new ClassNode();
+		aDiagram.addRootNodes(List.of(packageNode, node));
+		DependencyEdge edge = new DependencyEdge();
+		edge.connect(child, node, aDiagram);
+		aDiagram.addEdge(edge);
+		PersistenceService.save(aDiagram, DIAGRAM_FILE);
+		aJournal.close();
+		aJournal = new OperationJournal(aDiagram, DIAGRAM_FILE, true);
+		
+		child.setName("Foo");
+		aJournal.recordOperation();
+		ClassNode node2 = new ClassNode();
+		aDiagram.addRootNode(node2);
+		DependencyEdge edge2 = new DependencyEdge();
+		edge2.connect(node, node2, aDiagram);
+		aDiagram.addEdge(edge2);
+		aDiagram.removeEdge(edge);
+		aJournal.recordOperation();
+		
+		List<String> lines = Files.readAllLines(OperationJournal.journalFor(DIAGRAM_FILE).toPath(), StandardCharsets.UTF_8);
+		assertEquals(3, lines.size());
+		assertTrue(new JSONObject(lines.get(0)).has("base"));
+		assertFalse(new JSONObject(lines.get(0)).has("nodes"));
+		
+		Diagram recovered = OperationJournal.recover(DIAGRAM_FILE).get();
+		assertEquals(3, recovered.rootNodes().size());
+		assertEquals("Foo", ((ClassNode) recovered.rootNodes().get(0).getChildren().get(0)).getName());
+		assertEquals(1, recovered.edges().size());
+		assertSame(recovered.rootNodes().get(1), recovered.edges().get(0).getStart());
+		assertSame(recovered.rootNodes().get(2), recovered.edges().get(0).getEnd());
+	}
+	
+	@Test
+	public void testRecoverFromChangedFile() throws Exception
+	{
+		aDiagram.addRootNode(new ClassNode());
+		PersistenceService.save(aDiagram, DIAGRAM_FILE);
+		aJournal.close();
+		aJournal = new OperationJournal(aDiagram, DIAGRAM_FILE, true);
+		aDiagram.addRootNode(new ClassNode());
+		aJournal.recordOperation();
+		
+		Files.writeString(DIAGRAM_FILE.toPath(), System.lineSeparator(), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+		assertThrows(DeserializationException.class, () -> OperationJournal.recover(DIAGRAM_FILE));
+	}
+	
+	@Test
+	public void testFileReplaced() throws Exception
+	{
+		aDiagram.addRootNode(new ClassNode());
+		PersistenceService.save(aDiagram, DIAGRAM_FILE);
+		aJournal.close();
+		aJournal = new OperationJournal(aDiagram, DIAGRAM_FILE, true);
+		aDiagram.addRootNode(new ClassNode());
+		aJournal.recordOperation();
+		
+		aDiagram.addRootNode(new ClassNode());
+		PersistenceService.save(aDiagram, DIAGRAM_FILE);
+		aJournal.fileReplaced();
+		aJournal.recordOperation();
+		DIAGRAM_FILE.delete();
+		assertEquals(3, OperationJournal.recover(DIAGRAM_FILE).get().rootNodes().size());
+	}
+	
+	@Test
+	public void testDiscard() throws Exception
+	{
+		aDiagram.addRootNode(new ClassNode());
+		aJournal.recordOperation();
+		assertTrue(OperationJournal.journalFor(DIAGRAM_FILE).exists());
+		aJournal.discard();
+		assertFalse(OperationJournal.journalFor(DIAGRAM_FILE).exists());
+		
+		Node node = new ClassNode();
+		aDiagram.addRootNode(node);
+		aJournal.recordOperation();
+		assertEquals(2, OperationJournal.recover(DIAGRAM_FILE).get().rootNodes().size());
+	}
+}
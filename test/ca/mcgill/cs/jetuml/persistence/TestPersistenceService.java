@@ -21,15 +21,27 @@
 package ca.mcgill.cs.jetuml.persistence;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import java.io.File;
+import java.io.StringWriter;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.StringJoiner;
 
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -37,8 +49,11 @@ import ca.mcgill.cs.jetuml.JavaFXLoader;
 import ca.mcgill.cs.jetuml.diagram.ControlFlow;
 import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.DiagramElement;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
 import ca.mcgill.cs.jetuml.diagram.Edge;
 import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.edges.AssociationEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
 import ca.mcgill.cs.jetuml.diagram.edges.NoteEdge;
 import ca.mcgill.cs.jetuml.diagram.nodes.CallNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.NoteNode;
@@ -63,6 +78,7 @@ public class TestPersistenceService
 {
 	private static final Path PATH_TEST_FILES = Path.of("testdata");
 	private static final Path PATH_TEMPORARY_FILE = PATH_TEST_FILES.resolve("tmp");
+	private static final Path PATH_TEMPORARY_BINARY_FILE = PATH_TEST_FILES.resolve("tmp.jetb");
 	
 	@BeforeAll
 	public static void setupClass()
@@ -78,6 +94,59 @@ public class TestPersistenceService
 							"testPersistenceService.object.jet",
 							"testPersistenceService.usecase.jet"})
 	public void test( String pFileName ) throws Exception
+	{
+		testRoundTrip(pFileName, PATH_TEMPORARY_FILE.toFile());
+	}
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"testPersistenceService.class.jet",
+							"testPersistenceService2.class.jet",
+							"testPersistenceService.sequence.jet",
+							"testPersistenceService.state.jet",
+							"testPersistenceService.object.jet",
+							"testPersistenceService.usecase.jet"})
+	public void testBinary( String pFileName ) throws Exception
+	{
+		testRoundTrip(pFileName, PATH_TEMPORARY_BINARY_FILE.toFile());
+	}
+	
+	@Test
+	public void testSave_KeepsPermissions() throws Exception
+	{
+		File file = PATH_TEMPORARY_FILE.toFile();
+		Files.writeString(file.toPath(), "");
+		assumeTrue(Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class) != null);
+		Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r--r--");
+		Files.setPosixFilePermissions(file.toPath(), permissions);
+		try
+		{
+			PersistenceService.save(new Diagram(DiagramType.CLASS), file);
+			assertEquals(permissions, Files.getPosixFilePermissions(file.toPath()));
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+	
+	/*
+	 * The version is the last key of the file, after edges that can only be decoded
+	 * once migrated.
+	 */
+	@Test
+	public void testReadVersion2() throws Exception
+	{
+		VersionedDiagram versionedDiagram = PersistenceService.read(PATH_TEST_FILES.resolve("testVersion2.class.jet").toFile(), 
+				progress -> {});
+		assertTrue(versionedDiagram.wasMigrated());
+		Diagram diagram = versionedDiagram.diagram();
+		assertEquals(3, diagram.rootNodes().size());
+		assertEquals(2, diagram.edges().size());
+		assertSame(DependencyEdge.Directionality.Bidirectional, ((DependencyEdge) diagram.edges().get(0)).getDirectionality());
+		assertSame(AssociationEdge.Directionality.Unidirectional, ((AssociationEdge) diagram.edges().get(1)).getDirectionality());
+	}
+	
+	private static void testRoundTrip(String pFileName, File pTemporaryFile) throws Exception
 	{
 		Diagram diagram = PersistenceService.read(PATH_TEST_FILES.resolve(pFileName).toFile()).diagram();
 		Map<String, Rectangle> bounds = new HashMap<>();
@@ -87,16 +156,59 @@ public class TestPersistenceService
 		diagram.edges().forEach( edge -> bounds.put(hash(edge), EdgeViewerRegistry.getBounds(edge)));
 		
 		// Save the diagram in a new file, and re-load it
-		File temporaryFile = PATH_TEMPORARY_FILE.toFile();
-		PersistenceService.save(diagram, temporaryFile);
-		diagram = PersistenceService.read(temporaryFile).diagram();
-		temporaryFile.delete();
+		PersistenceService.save(diagram, pTemporaryFile);
+		diagram = PersistenceService.read(pTemporaryFile).diagram();
+		pTemporaryFile.delete();
 		
 		// Check that all bounds match
 		PersistenceTestUtils.getAllNodes(diagram).forEach( node -> assertEquals(bounds.get(hash(node)), NodeViewerRegistry.getBounds(node), hash(node)));
 		diagram.edges().forEach( edge -> assertEquals(bounds.get(hash(edge)), EdgeViewerRegistry.getBounds(edge), hash(edge)));
 	}
 	
+	@ParameterizedTest
+	@ValueSource(strings = {"testPersistenceService.class.jet",
+							"testPersistenceService2.class.jet",
+							"testPersistenceService.sequence.jet",
+							"testPersistenceService.state.jet",
+							"testPersistenceService.object.jet",
+							"testPersistenceService.usecase.jet"})
+	public void testStreamingEncoding( String pFileName ) throws Exception
+	{
+		Diagram diagram = PersistenceService.read(PATH_TEST_FILES.resolve(pFileName).toFile()).diagram();
+		StringWriter writer = new StringWriter();
+		JsonEncoder.encode(diagram, writer);
+		assertTrue(writer.toString().startsWith("{\"version\":"));
+		assertSameJson(JsonEncoder.encode(diagram), new JSONObject(writer.toString()));
+	}
+	
+	/*
+	 * Compares two JSON values regardless of the order of the keys of their objects.
+	 */
+	private static void assertSameJson(Object pExpected, Object pActual)
+	{
+		if( pExpected instanceof JSONObject )
+		{
+			JSONObject expected = (JSONObject) pExpected;
+			JSONObject actual = (JSONObject) pActual;
+			assertEquals(expected.keySet(), actual.keySet());
+			expected.keySet().forEach(key -> assertSameJson(expected.get(key), actual.get(key)));
+		}
+		else if( pExpected instanceof JSONArray )
+		{
+			JSONArray expected = (JSONArray) pExpected;
+			JSONArray actual = (JSONArray) pActual;
+			assertEquals(expected.length(), actual.length());
+			for( int i = 0; i < expected.length(); i++ )
+			{
+				assertSameJson(expected.get(i), actual.get(i));
+			}
+		}
+		else
+		{
+			assertEquals(pExpected, pActual);
+		}
+	}
+	
 	/*
 	 * @return A string that is intended to uniquely represent the diagram element within a diagram,
 	 * in a way that is resilient to serialization.
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2021 by McGill University.
+ *
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+
+public class TestStreamingJsonDecoder
+{
+	private static final Path PATH_TEST_FILES = Path.of("testdata");
+
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+
+	@Test
+	public void testEmptyJSONObject()
+	{
+		assertThrows(DeserializationException.class, () -> StreamingJsonDecoder.decode(new StringReader("{}")));
+	}
+
+	@Test
+	public void testMalformed()
+	{
+		assertThrows(DeserializationException.class, () ->
+			StreamingJsonDecoder.decode(new StringReader("{\"diagram\":\"ClassDiagram\",\"nodes\":[{\"x\":0}")));
+	}
+
+	@Test
+	public void testMigrationNeeded()
+	{
+		assertFalse(StreamingJsonDecoder.decode(new StringReader(
+				"{\"diagram\":\"ClassDiagram\",\"nodes\":[],\"edges\":[],\"version\":\"2.5\"}")).isPresent());
+	}
+	
+	/*
+	 * The edges that precede the version cannot be decoded before they are migrated.
+	 */
+	@Test
+	public void testMigrationNeeded_VersionAfterEdges() throws Exception
+	{
+		String encoding = Files.readString(PATH_TEST_FILES.resolve("testVersion2.class.jet"), StandardCharsets.UTF_8);
+		assertFalse(StreamingJsonDecoder.decode(new StringReader(encoding)).isPresent());
+	}
+
+	/*
+	 * Edges that precede the nodes are created once the nodes are known.
+	 */
+	@Test
+	public void testKeysInAnyOrder()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		PackageNode packageNode = new PackageNode();
+		ClassNode classNode = new ClassNode();
+		packageNode.addChild(classNode);
+		diagram.addRootNode(packageNode);
+		JSONObject object = JsonEncoder.encode(diagram);
+		String encoding = "{\"version\":" + JSONObject.quote(object.getString("version")) +
+				",\"edges\":[],\"nodes\":" + object.getJSONArray("nodes").toString() + ",\"diagram\":\"ClassDiagram\"}";
+
+		Diagram decoded = StreamingJsonDecoder.decode(new StringReader(encoding)).get().diagram();
+		assertEquals(1, decoded.rootNodes().size());
+		assertSame(PackageNode.class, decoded.rootNodes().get(0).getClass());
+		assertEquals(1, decoded.rootNodes().get(0).getChildren().size());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"testPersistenceService.class.jet",
+							"testPersistenceService2.class.jet",
+							"testPersistenceService.sequence.jet",
+							"testPersistenceService.state.jet",
+							"testPersistenceService.object.jet",
+							"testPersistenceService.usecase.jet"})
+	public void testSameAsJsonDecoder( String pFileName ) throws Exception
+	{
+		String encoding = Files.readString(PATH_TEST_FILES.resolve(pFileName), StandardCharsets.UTF_8);
+		Diagram expected = JsonDecoder.decode(new JSONObject(encoding));
+		VersionedDiagram actual = StreamingJsonDecoder.decode(new StringReader(encoding)).get();
+
+		assertFalse(actual.wasMigrated());
+		assertSame(expected.getType(), actual.diagram().getType());
+		assertEquals(JsonEncoder.encode(expected).getJSONArray("nodes").length(),
+				JsonEncoder.encode(actual.diagram()).getJSONArray("nodes").length());
+		assertEquals(expected.edges().size(), actual.diagram().edges().size());
+		assertEquals(expected.rootNodes().size(), actual.diagram().rootNodes().size());
+	}
+	
+	/*
+	 * Files written by JsonEncoder start with the version, so each element is decoded as soon as it is read.
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"testPersistenceService.class.jet",
+							"testPersistenceService.sequence.jet",
+							"testPersistenceService.object.jet"})
+	public void testCurrentFormat_NoDeferredElements( String pFileName ) throws Exception
+	{
+		Diagram diagram = JsonDecoder.decode(new JSONObject(
+				Files.readString(PATH_TEST_FILES.resolve(pFileName), StandardCharsets.UTF_8)));
+		StringWriter writer = new StringWriter();
+		JsonEncoder.encode(diagram, writer);
+		
+		StreamingJsonDecoder decoder = new StreamingJsonDecoder(new StringReader(writer.toString()));
+		Diagram decoded = decoder.decodeDiagram().get().diagram();
+		assertFalse(decoder.hasDeferredElements());
+		assertEquals(diagram.rootNodes().size(), decoded.rootNodes().size());
+		assertEquals(diagram.edges().size(), decoded.edges().size());
+	}
+}
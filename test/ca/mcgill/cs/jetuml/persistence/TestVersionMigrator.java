@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package ca.mcgill.cs.jetuml.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.edges.AssociationEdge;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
+import ca.mcgill.cs.jetuml.diagram.nodes.InterfaceNode;
+
+public class TestVersionMigrator
+{
+	private static final String NODES = "[" + 
+			"{\"methods\":\"\",\"name\":\"\u00ABinterface\u00BB I\",\"x\":0,\"y\":0,\"id\":0,\"type\":\"InterfaceNode\"}," +
+			"{\"methods\":\"\",\"name\":\"A\",\"x\":100,\"y\":0,\"attributes\":\"\",\"id\":1,\"type\":\"ClassNode\"}," +
+			"{\"methods\":\"\",\"name\":\"B\",\"x\":200,\"y\":0,\"attributes\":\"\",\"id\":2,\"type\":\"ClassNode\"}]";
+	
+	private static final String EDGES = "[" + 
+			"{\"middleLabel\":\"self\",\"start\":1,\"end\":1,\"type\":\"DependencyEdge\"}," +
+			"{\"middleLabel\":\"ab\",\"start\":1,\"end\":2,\"type\":\"DependencyEdge\"}," +
+			"{\"middleLabel\":\"ba\",\"start\":2,\"end\":1,\"type\":\"DependencyEdge\"}," +
+			"{\"startLabel\":\"\",\"middleLabel\":\"\",\"endLabel\":\"\",\"directionality\":\"Start\",\"start\":0,\"end\":1,\"type\":\"AssociationEdge\"}]";
+	
+	private final VersionMigrator aMigrator = new VersionMigrator();
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
+	
+	private static JSONObject createDiagram(String pVersion)
+	{
+		return new JSONObject("{\"diagram\":\"ClassDiagram\",\"nodes\":" + NODES + 
+				",\"edges\":" + EDGES + ",\"version\":\"" + pVersion + "\"}");
+	}
+	
+	@Test
+	public void testMigrate()
+	{
+		VersionedDiagram versionedDiagram = aMigrator.migrate(createDiagram("2.5"));
+		assertTrue(versionedDiagram.wasMigrated());
+		Diagram diagram = versionedDiagram.diagram();
+		assertEquals("I", ((InterfaceNode) diagram.rootNodes().get(0)).getName());
+		assertEquals(2, diagram.edges().size());
+		
+		DependencyEdge dependency = (DependencyEdge) diagram.edges().get(0);
+		assertSame(DependencyEdge.Directionality.Bidirectional, dependency.getDirectionality());
+		assertEquals("ab + ba", dependency.getMiddleLabel());
+		
+		AssociationEdge association = (AssociationEdge) diagram.edges().get(1);
+		assertSame(AssociationEdge.Directionality.Unidirectional, association.getDirectionality());
+		Node node1 = diagram.rootNodes().get(1);
+		assertSame(node1, association.getStart());
+	}
+	
+	@Test
+	public void testMigrateTwice()
+	{
+		aMigrator.migrate(createDiagram("2.5"));
+		assertEquals(2, aMigrator.migrate(createDiagram("2.5")).diagram().edges().size());
+	}
+	
+	@Test
+	public void testCompatibleVersionNotMigrated()
+	{
+		JSONObject object = createDiagram("3.0");
+		object.getJSONArray("edges").getJSONObject(3).put("directionality", "Unspecified");
+		for( int i = 0; i < 3; i++ )
+		{
+			object.getJSONArray("edges").getJSONObject(i).put("directionality", "Unidirectional");
+		}
+		VersionedDiagram versionedDiagram = aMigrator.migrate(object);
+		assertFalse(versionedDiagram.wasMigrated());
+		assertEquals(4, versionedDiagram.diagram().edges().size());
+	}
+}
@@ -22,6 +22,8 @@ package ca.mcgill.cs.jetuml.viewers.edges;
 
 import static ca.mcgill.cs.jetuml.viewers.FontMetrics.DEFAULT_FONT_SIZE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.lang.reflect.Method;
@@ -40,6 +42,7 @@ import ca.mcgill.cs.jetuml.diagram.DiagramType;
 import ca.mcgill.cs.jetuml.diagram.Edge;
 import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
 import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
+import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 
 public class TestDependencyEdgeViewer
@@ -86,6 +89,26 @@ public class TestDependencyEdgeViewer
 		assertEquals(new Rectangle(99,23,102,12), EdgeViewerRegistry.getBounds(aEdge));
 	}
 	
+	@Test
+	public void testEdgeViewBoundsAfterMove()
+	{
+		aNode2.translate(200, 0);
+		Rectangle bounds = EdgeViewerRegistry.getBounds(aEdge);
+		aNode2.translate(200, 0);
+		assertEquals(bounds.getMaxX() + 200, EdgeViewerRegistry.getBounds(aEdge).getMaxX());
+	}
+	
+	@Test
+	public void testContains()
+	{
+		aNode2.translate(200, 0);
+		assertTrue(EdgeViewerRegistry.contains(aEdge, new Point(150, 31)));
+		assertFalse(EdgeViewerRegistry.contains(aEdge, new Point(150, 40)));
+		assertFalse(EdgeViewerRegistry.contains(aEdge, new Point(350, 31)));
+		aNode2.translate(200, 0);
+		assertTrue(EdgeViewerRegistry.contains(aEdge, new Point(350, 31)));
+	}
+	
 	@ParameterizedTest
 	@CsvSource(value = {
 			"apple banana orange kiwi peach grape raspberry, 1000, 100, 1", 
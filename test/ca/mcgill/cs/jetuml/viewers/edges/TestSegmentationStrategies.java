@@ -21,6 +21,7 @@
 package ca.mcgill.cs.jetuml.viewers.edges;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -572,4 +573,37 @@ public class TestSegmentationStrategies
 		assertEquals( 1061, points[3].getX(), 0.01);
 		assertEquals( 60, points[3].getY(), 0.01);
 	}
+	
+	@Test
+	public void testStraightAfterEdgeRemoval()
+	{
+		Edge edge1 = new DependencyEdge();
+		edge1.connect(aNode1, aNode2, aGraph);
+		aGraph.addEdge(edge1);
+		Edge edge2 = new DependencyEdge();
+		edge2.connect(aNode1, aNode2, aGraph);
+		aGraph.addEdge(edge2);
+		
+		Point2D[] points = SegmentationStyleFactory.createStraightStrategy().getPath(edge1);
+		assertNotEquals( new Point2D(130,70), points[0]);
+		
+		aGraph.removeEdge(edge2);
+		points = SegmentationStyleFactory.createStraightStrategy().getPath(edge1);
+		assertEquals( new Point2D(130,70), points[0]);
+		assertEquals( new Point2D(200,140), points[1]);
+	}
+	
+	@Test
+	public void testStraightAfterMove()
+	{
+		Edge edge1 = new DependencyEdge();
+		edge1.connect(aNode1, aNode2, aGraph);
+		aGraph.addEdge(edge1);
+		SegmentationStyleFactory.createStraightStrategy().getPath(edge1);
+		
+		aNode2.translate(10, 10);
+		Point2D[] points = SegmentationStyleFactory.createStraightStrategy().getPath(edge1);
+		assertEquals( new Point2D(130,70), points[0]);
+		assertEquals( new Point2D(210,150), points[1]);
+	}
 }
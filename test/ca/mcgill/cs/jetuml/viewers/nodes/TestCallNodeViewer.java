@@ -120,4 +120,42 @@ public class TestCallNodeViewer
 		assertEquals(new Rectangle(32, 80, 16, 135), NodeViewerRegistry.getBounds(aDefaultCallNode1));
 		assertEquals(new Rectangle(32, 165, 16, 30), NodeViewerRegistry.getBounds(aDefaultCallNode2));
 	}
+	
+	/*
+	 * Each call node calls the next one on the same implicit parameter. Without 
+	 * a memoized layout, computing these bounds takes time exponential in the depth.
+	 */
+	@Test
+	public void testGetBoundsDeeplyNestedCalls()
+	{
+		final int depth = 60;
+		aDiagram.addRootNode(aImplicitParameterNode1);
+		CallNode caller = null;
+		CallNode callee = null;
+		for( int i = 0; i < depth; i++ )
+		{
+			callee = new CallNode();
+			aImplicitParameterNode1.addChild(callee);
+			callee.attach(aDiagram);
+			if( caller != null )
+			{
+				CallEdge edge = new CallEdge();
+				edge.connect(caller, callee, aDiagram);
+				aDiagram.addEdge(edge);
+			}
+			caller = callee;
+		}
+		assertEquals(new Rectangle(32 + (depth - 1) * 8, 80 + (depth - 1) * 20, 16, 30), NodeViewerRegistry.getBounds(callee));
+	}
+	
+	@Test
+	public void testGetBoundsAfterMove()
+	{
+		aImplicitParameterNode1.addChild(aDefaultCallNode1);
+		aDefaultCallNode1.attach(aDiagram);
+		aDiagram.addRootNode(aImplicitParameterNode1);
+		assertEquals(new Rectangle(32, 80, 16, 30), NodeViewerRegistry.getBounds(aDefaultCallNode1));
+		aImplicitParameterNode1.translate(100, 0);
+		assertEquals(new Rectangle(132, 80, 16, 30), NodeViewerRegistry.getBounds(aDefaultCallNode1));
+	}
 }
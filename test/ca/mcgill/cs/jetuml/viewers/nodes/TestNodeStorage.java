@@ -5,11 +5,21 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.util.function.Function;
 
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import ca.mcgill.cs.jetuml.JavaFXLoader;
+import ca.mcgill.cs.jetuml.application.UserPreferences;
+import ca.mcgill.cs.jetuml.application.UserPreferences.IntegerPreference;
+import ca.mcgill.cs.jetuml.diagram.Diagram;
+import ca.mcgill.cs.jetuml.diagram.DiagramType;
 import ca.mcgill.cs.jetuml.diagram.Node;
+import ca.mcgill.cs.jetuml.diagram.PropertyName;
+import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.NoteNode;
+import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
+import ca.mcgill.cs.jetuml.geom.Point;
 import ca.mcgill.cs.jetuml.geom.Rectangle;
 
 /**
@@ -18,15 +28,23 @@ import ca.mcgill.cs.jetuml.geom.Rectangle;
 public class TestNodeStorage 
 {	
 	private NodeStorage aNodeStorage;
+	private Diagram aDiagram;
+	
+	@BeforeAll
+	public static void setupClass()
+	{
+		JavaFXLoader.load();
+	}
 
 	@BeforeEach
 	public void setup()
 	{
 		aNodeStorage = new NodeStorage();
+		aDiagram = new Diagram(DiagramType.CLASS);
 	}
 
 	@Test
-	public void testGetBoundsReturnsDifferentBoundsWhenNodeStorageIsNotActive()
+	public void testGetBoundsReturnsDifferentBoundsWhenNodeIsNotInDiagram()
 	{
 		Node node = new NoteNode();
 		Rectangle boundsA = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
@@ -35,35 +53,144 @@ public class TestNodeStorage
 	}
 
 	@Test
-	public void testGetBoundsReturnsSameBoundsWhenNodeStorageIsActive()
+	public void testGetBoundsReturnsSameBoundsWhenNodeIsInDiagram()
 	{
-		aNodeStorage.activate();
 		Node node = new NoteNode();
+		aDiagram.addRootNode(node);
 		Rectangle boundsA = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
 		Rectangle boundsB = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
 		assertSame(boundsA, boundsB);
 	}
 
 	@Test
-	public void testGetBoundsReturnsDifferentBoundsForDifferentNodesWhenNodeStorageIsActive()
+	public void testGetBoundsReturnsDifferentBoundsForDifferentNodes()
 	{
-		aNodeStorage.activate();
 		Node node1 = new NoteNode();
 		Node node2 = new NoteNode();
+		aDiagram.addRootNode(node1);
+		aDiagram.addRootNode(node2);
 		Rectangle boundsA = aNodeStorage.getBounds(node1, createDefaultBoundCalculator());
 		Rectangle boundsB = aNodeStorage.getBounds(node2, createDefaultBoundCalculator());
 		assertNotSame(boundsA, boundsB);
 	}
 	
 	@Test
-	public void testGetBoundsReturnsDifferentBoundsBeforeAndAfterDeactivationOfNodeStorage()
+	public void testGetBoundsReturnsDifferentBoundsBeforeAndAfterClear()
+	{
+		Node node = new NoteNode();
+		aDiagram.addRootNode(node);
+		Rectangle boundsBeforeClear = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		aNodeStorage.clear();
+		Rectangle boundsAfterClear = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		assertNotSame(boundsBeforeClear, boundsAfterClear);
+	}
+	
+	@Test
+	public void testGetBoundsReturnsDifferentBoundsAfterMove()
+	{
+		Node node = new NoteNode();
+		aDiagram.addRootNode(node);
+		Rectangle boundsBeforeMove = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		node.translate(10, 10);
+		assertNotSame(boundsBeforeMove, aNodeStorage.getBounds(node, createDefaultBoundCalculator()));
+		Rectangle boundsAfterTranslate = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		node.moveTo(new Point(50, 50));
+		assertNotSame(boundsAfterTranslate, aNodeStorage.getBounds(node, createDefaultBoundCalculator()));
+	}
+	
+	@Test
+	public void testGetBoundsReturnsDifferentBoundsAfterPropertyChange()
+	{
+		NoteNode node = new NoteNode();
+		aDiagram.addRootNode(node);
+		Rectangle boundsBeforeChange = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		node.setName("Note");
+		Rectangle boundsAfterSetter = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		assertNotSame(boundsBeforeChange, boundsAfterSetter);
+		node.properties().get(PropertyName.NAME).set("Other");
+		assertNotSame(boundsAfterSetter, aNodeStorage.getBounds(node, createDefaultBoundCalculator()));
+	}
+	
+	@Test
+	public void testGetBoundsReturnsDifferentBoundsAfterChildChange()
+	{
+		PackageNode node = new PackageNode();
+		aDiagram.addRootNode(node);
+		Rectangle boundsBeforeChange = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		ClassNode child = new ClassNode();
+		node.addChild(child);
+		Rectangle boundsAfterAdd = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		assertNotSame(boundsBeforeChange, boundsAfterAdd);
+		node.removeChild(child);
+		assertNotSame(boundsAfterAdd, aNodeStorage.getBounds(node, createDefaultBoundCalculator()));
+	}
+	
+	@Test
+	public void testGetBoundsReturnsSameBoundsAfterOtherTreeChange()
 	{
-		aNodeStorage.activate();
 		Node node = new NoteNode();
-		Rectangle boundsBeforeDeactivation = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
-		aNodeStorage.deactivateAndClear();
-		Rectangle boundsAfterDeactivation = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
-		assertNotSame(boundsBeforeDeactivation, boundsAfterDeactivation);
+		Node other = new NoteNode();
+		aDiagram.addRootNode(node);
+		aDiagram.addRootNode(other);
+		Rectangle boundsBeforeChange = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		other.translate(10, 10);
+		aDiagram.addRootNode(new NoteNode());
+		assertSame(boundsBeforeChange, aNodeStorage.getBounds(node, createDefaultBoundCalculator()));
+	}
+	
+	@Test
+	public void testGetBoundsReturnsDifferentBoundsAfterSameTreeChange()
+	{
+		PackageNode node = new PackageNode();
+		ClassNode child = new ClassNode();
+		node.addChild(child);
+		aDiagram.addRootNode(node);
+		Rectangle parentBounds = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		Rectangle childBounds = aNodeStorage.getBounds(child, createDefaultBoundCalculator());
+		child.translate(10, 10);
+		assertNotSame(parentBounds, aNodeStorage.getBounds(node, createDefaultBoundCalculator()));
+		assertNotSame(childBounds, aNodeStorage.getBounds(child, createDefaultBoundCalculator()));
+	}
+	
+	@Test
+	public void testGetBoundsReturnsDifferentBoundsAfterOtherTreeChangeWithGlobalLayout()
+	{
+		NodeStorage storage = new NodeStorage(true);
+		Node node = new NoteNode();
+		Node other = new NoteNode();
+		aDiagram.addRootNode(node);
+		aDiagram.addRootNode(other);
+		Rectangle boundsBeforeChange = storage.getBounds(node, createDefaultBoundCalculator());
+		other.translate(10, 10);
+		assertNotSame(boundsBeforeChange, storage.getBounds(node, createDefaultBoundCalculator()));
+	}
+	
+	@Test
+	public void testGetBoundsReturnsDifferentBoundsAfterRemoval()
+	{
+		Node node = new NoteNode();
+		aDiagram.addRootNode(node);
+		Rectangle boundsBeforeRemoval = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		aDiagram.removeRootNode(node);
+		assertNotSame(boundsBeforeRemoval, aNodeStorage.getBounds(node, createDefaultBoundCalculator()));
+	}
+	
+	@Test
+	public void testGetBoundsReturnsDifferentBoundsAfterFontSizeChange()
+	{
+		Node node = new NoteNode();
+		aDiagram.addRootNode(node);
+		int fontSize = UserPreferences.instance().getInteger(IntegerPreference.fontSize);
+		Rectangle boundsBeforeChange = aNodeStorage.getBounds(node, createDefaultBoundCalculator());
+		UserPreferences.instance().setInteger(IntegerPreference.fontSize, fontSize + 1);
+		try
+		{
+			assertNotSame(boundsBeforeChange, aNodeStorage.getBounds(node, createDefaultBoundCalculator()));
+		}
+		finally
+		{
+			UserPreferences.instance().setInteger(IntegerPreference.fontSize, fontSize);
+		}
 	}
 
 	private static Function<Node, Rectangle> createDefaultBoundCalculator()
@@ -77,4 +204,4 @@ public class TestNodeStorage
 			}
 		};
 	}
-} 
\ No newline at end of file
+}
@@ -20,6 +20,7 @@
  *******************************************************************************/
 package ca.mcgill.cs.jetuml.views;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -27,10 +28,14 @@ import org.junit.jupiter.api.Test;
 
 import ca.mcgill.cs.jetuml.diagram.Diagram;
 import ca.mcgill.cs.jetuml.diagram.DiagramType;
+import ca.mcgill.cs.jetuml.diagram.PropertyName;
+import ca.mcgill.cs.jetuml.diagram.edges.DependencyEdge;
 import ca.mcgill.cs.jetuml.diagram.nodes.ClassNode;
 import ca.mcgill.cs.jetuml.diagram.nodes.PackageNode;
 import ca.mcgill.cs.jetuml.geom.Point;
+import ca.mcgill.cs.jetuml.geom.Rectangle;
 import ca.mcgill.cs.jetuml.viewers.DiagramViewer;
+import ca.mcgill.cs.jetuml.viewers.nodes.NodeViewerRegistry;
 
 public class TestDiagramViewer
 {
@@ -105,4 +110,67 @@ public class TestDiagramViewer
 		diagram.addRootNode(p1);
 		assertSame(p2, aViewer.nodeAt(diagram, new Point(15,15)).get());
 	}
+	
+	@Test
+	public void testNodeAt_AfterMove()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		ClassNode node = new ClassNode();
+		diagram.addRootNode(node);
+		assertSame(node, aViewer.nodeAt(diagram, new Point(20,20)).get());
+		assertTrue(diagram.getNodeIndex().isValid());
+		node.translate(500, 500);
+		assertFalse(diagram.getNodeIndex().isValid());
+		assertTrue(aViewer.nodeAt(diagram, new Point(20,20)).isEmpty());
+		assertSame(node, aViewer.nodeAt(diagram, new Point(520,520)).get());
+	}
+	
+	@Test
+	public void testNodeAt_AfterPropertyChange()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		ClassNode node = new ClassNode();
+		diagram.addRootNode(node);
+		Rectangle bounds = NodeViewerRegistry.getBounds(node);
+		Point below = new Point(bounds.getX() + 5, bounds.getMaxY() + 50);
+		assertTrue(aViewer.nodeAt(diagram, below).isEmpty());
+		node.properties().get(PropertyName.METHODS).set("a\nb\nc\nd\ne\nf\ng\nh\ni\nj\nk\nl\nm\nn\no\np\nq\nr\ns\nt\nu\nv");
+		bounds = NodeViewerRegistry.getBounds(node);
+		assertSame(node, aViewer.nodeAt(diagram, new Point(bounds.getX() + 5, bounds.getMaxY() - 5)).get());
+	}
+	
+	@Test
+	public void testNodeAt_LastOfOverlapping()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		ClassNode node1 = new ClassNode();
+		ClassNode node2 = new ClassNode();
+		node2.translate(10, 10);
+		diagram.addRootNode(node1);
+		diagram.addRootNode(node2);
+		assertSame(node2, aViewer.nodeAt(diagram, new Point(20,20)).get());
+		diagram.placeOnTop(node1);
+		assertSame(node1, aViewer.nodeAt(diagram, new Point(20,20)).get());
+	}
+	
+	@Test
+	public void testEdgeAt()
+	{
+		Diagram diagram = new Diagram(DiagramType.CLASS);
+		ClassNode node1 = new ClassNode();
+		ClassNode node2 = new ClassNode();
+		node2.translate(300, 0);
+		diagram.addRootNode(node1);
+		diagram.addRootNode(node2);
+		DependencyEdge edge = new DependencyEdge();
+		edge.connect(node1, node2, diagram);
+		diagram.addEdge(edge);
+		assertSame(edge, DiagramViewer.edgeAt(diagram, new Point(200, 30)).get());
+		assertTrue(DiagramViewer.edgeAt(diagram, new Point(200, 100)).isEmpty());
+		node2.translate(0, 70);
+		assertTrue(DiagramViewer.edgeAt(diagram, new Point(200, 30)).isEmpty());
+		assertSame(edge, DiagramViewer.edgeAt(diagram, new Point(200, 66)).get());
+		diagram.removeEdge(edge);
+		assertTrue(DiagramViewer.edgeAt(diagram, new Point(200, 66)).isEmpty());
+	}
 }
@@ -112,6 +112,23 @@ public class TestStringViewer
 		UserPreferences.instance().setInteger(IntegerPreference.fontSize, DEFAULT_FONT_SIZE);
 	}
 	
+	@Test
+	public void testDimensionCache()
+	{
+		topCenter.getDimension("Cached String");
+		long hits = StringViewer.getDimensionCacheHits();
+		long misses = StringViewer.getDimensionCacheMisses();
+		Dimension dimension = topCenter.getDimension("Cached String");
+		assertEquals(new Dimension(dimension.width() + 14, dimension.height() + 14), topCenterPadded.getDimension("Cached String"));
+		assertEquals(hits + 2, StringViewer.getDimensionCacheHits());
+		assertEquals(misses, StringViewer.getDimensionCacheMisses());
+		
+		UserPreferences.instance().setInteger(IntegerPreference.fontSize, 8);
+		assertEquals(new Dimension(osDependent(49, 46, 46), osDependent(9, 8, 8)), topCenter.getDimension("Display String"));
+		assertEquals(misses + 1, StringViewer.getDimensionCacheMisses());
+		UserPreferences.instance().setInteger(IntegerPreference.fontSize, DEFAULT_FONT_SIZE);
+	}
+	
 	@Test
 	public void testWrapString()
 	{
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * JetUML - A desktop application for fast UML diagramming.
+ *
+ * Copyright (C) 2020, 2021 by McGill University.
+ *     
+ * See: https://github.com/prmr/JetUML
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ *******************************************************************************/
+package org.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class TestJSONTokener
+{
+	/*
+	 * Returns at most one character per read, so that every token
+	 * spans the boundary of the buffer of the tokener.
+	 */
+	private static Reader slowReader(String pText)
+	{
+		return new StringReader(pText) 
+		{
+			@Override
+			public int read(char[] pBuffer, int pOffset, int pLength) throws java.io.IOException
+			{
+				return super.read(pBuffer, pOffset, Math.min(1, pLength));
+			}
+		};
+	}
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"0", "7", "-7", "123456789", "2147483647", "-2147483648"})
+	public void testIntegers(String pValue)
+	{
+		assertEquals(Integer.valueOf(pValue), new JSONTokener(pValue).nextValue());
+		assertEquals(Integer.valueOf(pValue), JSONObject.stringToValue(pValue));
+	}
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"2147483648", "-2147483649", "999999999999999999", "9223372036854775807"})
+	public void testLongs(String pValue)
+	{
+		assertEquals(Long.valueOf(pValue), new JSONTokener(pValue).nextValue());
+		assertEquals(Long.valueOf(pValue), JSONObject.stringToValue(pValue));
+	}
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"007", "-", "--1", "1a", "99999999999999999999"})
+	public void testNotNumbers(String pValue)
+	{
+		assertEquals(pValue, new JSONTokener(pValue).nextValue());
+		assertEquals(pValue, JSONObject.stringToValue(pValue));
+	}
+	
+	@Test
+	public void testDecimals()
+	{
+		assertEquals(-0.0, new JSONTokener("-0").nextValue());
+		assertEquals(1.5, new JSONTokener("1.5").nextValue());
+		assertEquals(100.0, new JSONTokener("1e2").nextValue());
+	}
+	
+	@Test
+	public void testStrings()
+	{
+		assertEquals("abc", new JSONTokener("\"abc\"").nextValue());
+		assertEquals("", new JSONTokener("\"\"").nextValue());
+		assertEquals("a\"b\nc\u00e9", new JSONTokener("\"a\\\"b\\nc\\u00e9\"").nextValue());
+		assertThrows(JSONException.class, () -> new JSONTokener("\"abc").nextValue());
+		assertThrows(JSONException.class, () -> new JSONTokener("\"ab\ncd\"").nextValue());
+	}
+	
+	@Test
+	public void testSameWithSlowReader()
+	{
+		String text = "{\"a\": \"x\\ty\", \"b\" : [1, -20, 300, 4000000000, 1.5, true, null], \"c\":{\"d\":\"\"}}";
+		assertEquals(new JSONObject(text).toString(), new JSONObject(new JSONTokener(slowReader(text))).toString());
+	}
+	
+	@Test
+	public void testPositionAfterString()
+	{
+		JSONTokener tokener = new JSONTokener("\"abc\" x");
+		tokener.nextValue();
+		assertEquals(" at 5 [character 6 line 1]", tokener.toString());
+		assertEquals('x', tokener.nextClean());
+		tokener.back();
+		assertEquals('x', tokener.next());
+	}
+	
+	@Test
+	public void testDuplicateKey()
+	{
+		assertThrows(JSONException.class, () -> new JSONObject("{\"a\":1,\"a\":2}"));
+	}
+	
+	@Test
+	public void testQuote()
+	{
+		assertEquals("\"abc\"", JSONObject.quote("abc"));
+		assertEquals("\"\"", JSONObject.quote(""));
+		assertEquals("\"a\\\"b\\\\c\"", JSONObject.quote("a\"b\\c"));
+		assertEquals("\"<\\/a>/\"", JSONObject.quote("</a>/"));
+		assertEquals("\"\\n\\u0085\"", JSONObject.quote("\n\u0085"));
+	}
+}